@@ -18,12 +18,13 @@ public class Main {
         double c1 = 12 / R0Actual;
         double a2 = 1 / R3Actual;
         double b2 = -(1 / R3Actual + 1 / R4Actual);
-        Matrix m = new Matrix(new double[][]{
-                {a1, b1, c1},
-                {a2, b2, 0}
-        });
-        double V1 = m.getSolution().value().getComps(0);
-        double V2 = m.getSolution().value().getComps(1);
+        LinearSolver solver = new Matrix(new double[][]{
+                {a1, b1},
+                {a2, b2}
+        }).getLinearSolver();
+        Vector V = solver.solve(new Vector(c1, 0)).value();
+        double V1 = V.getComps(0);
+        double V2 = V.getComps(1);
         double I1 = V1 / R1Actual;
         double I2 = V1 / R2Actual;
         double I3 = V2 / R4Actual;
@@ -0,0 +1,192 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class BandedLUDecomposition implements MatrixDecomposition {
+    /*
+        P * A = L * U for a banded A, by Gaussian elimination with partial pivoting inside the band
+
+        Row swaps can push U up to lowerBandwidth + upperBandwidth diagonals above the main one,
+        so the factors are stored in a band that much wider than A's:
+            lu[i * width + (j - i + lowerBandwidth)], -lowerBandwidth <= j - i <= lowerBandwidth + upperBandwidth
+        As in LAPACK's band routines the multipliers of step k stay in column k and the swaps are replayed
+        one step at a time during the solve, so the whole factorization is O(n * kl * (kl + ku))
+     */
+    //  pivots smaller than this, relative to the largest entry of A, are treated as zero
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+
+    private final int size;
+    private final int lowerBandwidth;
+    //  the upper bandwidth of U
+    private final int upperBandwidth;
+    private final int width;
+    private final double[] lu;
+    //  at step k, row k was swapped with row pivot[k]
+    private final int[] pivot;
+    private final int pivotSign;
+    private final boolean singular;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public BandedLUDecomposition(BandedMatrix a) {
+        size = a.getSize();
+        lowerBandwidth = a.getLowerBandwidth();
+        upperBandwidth = min(lowerBandwidth + a.getUpperBandwidth(), size - 1);
+        width = lowerBandwidth + upperBandwidth + 1;
+        lu = new double[size * width];
+        pivot = new int[size];
+
+        double largestEntry = 0;
+        for (int i = 0; i < size; i++) {
+            int first = max(0, i - lowerBandwidth);
+            int last = min(size - 1, i + a.getUpperBandwidth());
+            for (int j = first; j <= last; j++) {
+                double entry = a.getEntry(i, j);
+                lu[position(i, j)] = entry;
+                largestEntry = max(largestEntry, abs(entry));
+            }
+        }
+        double tolerance = SINGULARITY_TOLERANCE * largestEntry;
+
+        int sign = 1;
+        boolean isSingular = false;
+        for (int k = 0; k < size; k++) {
+            int lastRow = min(size - 1, k + lowerBandwidth);
+            int lastColumn = min(size - 1, k + upperBandwidth);
+
+            int p = k;
+            for (int i = k + 1; i <= lastRow; i++) {
+                if (abs(lu[position(i, k)]) > abs(lu[position(p, k)])) p = i;
+            }
+            pivot[k] = p;
+            if (p != k) {
+                for (int j = k; j <= lastColumn; j++) {
+                    double temp = lu[position(k, j)];
+                    lu[position(k, j)] = lu[position(p, j)];
+                    lu[position(p, j)] = temp;
+                }
+                sign = -sign;
+            }
+
+            double pivotValue = lu[position(k, k)];
+            if (abs(pivotValue) <= tolerance) {
+                isSingular = true;
+                if (pivotValue == 0) continue;
+            }
+
+            int pivotStart = position(k, 0);
+            for (int i = k + 1; i <= lastRow; i++) {
+                int rowStart = position(i, 0);
+                double l = lu[rowStart + k] / pivotValue;
+                lu[rowStart + k] = l;
+                if (l == 0) continue;
+                for (int j = k + 1; j <= lastColumn; j++) {
+                    lu[rowStart + j] -= l * lu[pivotStart + j];
+                }
+            }
+        }
+        pivotSign = sign;
+        singular = isSingular;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    private int position(int row, int column) {
+        return row * width + column - row + lowerBandwidth;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    @Override
+    public double getDeterminant() {
+        double determinant = pivotSign;
+        for (int i = 0; i < size; i++) {
+            determinant *= lu[position(i, i)];
+        }
+        return determinant;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = b.clone();
+        substitute(x);
+        return x;
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = b.toArray();
+        substitute(x);
+        return new Vector(x);
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRows() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        int columns = b.getNumColumns();
+        double[] x = new double[size * columns];
+        double[] column = new double[size];
+        for (int c = 0; c < columns; c++) {
+            for (int i = 0; i < size; i++) {
+                column[i] = b.getEntry(i, c);
+            }
+            substitute(column);
+            for (int i = 0; i < size; i++) {
+                x[i * columns + c] = column[i];
+            }
+        }
+        return new Matrix(size, columns, x);
+    }
+
+    //  the inverse of a banded matrix is dense in general
+    @Override
+    public Matrix getInverse() {
+        return solve(Matrix.createIdentityMatrix(size));
+    }
+
+    //  replay the swaps and L, then back substitute with U
+    private void substitute(double[] x) {
+        if (singular) throw new Matrix.NotInvertibleException("This matrix is singular");
+        for (int k = 0; k < size; k++) {
+            int p = pivot[k];
+            if (p != k) {
+                double temp = x[k];
+                x[k] = x[p];
+                x[p] = temp;
+            }
+            double xk = x[k];
+            if (xk == 0) continue;
+            int lastRow = min(size - 1, k + lowerBandwidth);
+            for (int i = k + 1; i <= lastRow; i++) {
+                x[i] -= lu[position(i, k)] * xk;
+            }
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            int rowStart = position(i, 0);
+            int lastColumn = min(size - 1, i + upperBandwidth);
+            double sum = x[i];
+            for (int j = i + 1; j <= lastColumn; j++) {
+                sum -= lu[rowStart + j] * x[j];
+            }
+            x[i] = sum / lu[rowStart + i];
+        }
+    }
+}
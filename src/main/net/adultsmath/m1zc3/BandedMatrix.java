@@ -0,0 +1,224 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class BandedMatrix implements LinearOperator {
+    /*
+        A square matrix whose nonzero entries all lie within a band around the diagonal:
+        entry (i, j) can only be nonzero for -lowerBandwidth <= j - i <= upperBandwidth
+
+        Only the band is stored, row by row, so a tridiagonal matrix takes 3 doubles per row
+            band[i * width + (j - i + lowerBandwidth)], width = lowerBandwidth + upperBandwidth + 1
+        Solving costs O(n * lowerBandwidth * (lowerBandwidth + upperBandwidth)) instead of O(n^3),
+        which is O(n) for the tridiagonal systems of splines and 1-D discretisations
+     */
+    //  pivots smaller than this, relative to the largest entry, are treated as zero, as in BandedLUDecomposition
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+
+    private final int size;
+    private final int lowerBandwidth;
+    private final int upperBandwidth;
+    private final int width;
+    private final double[] band;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public BandedMatrix(int size, int lowerBandwidth, int upperBandwidth) {
+        if (size <= 0 || lowerBandwidth < 0 || upperBandwidth < 0)
+            throw new InvalidDimensionsException("Invalid size or bandwidths for a banded matrix");
+        this.size = size;
+        this.lowerBandwidth = min(lowerBandwidth, size - 1);
+        this.upperBandwidth = min(upperBandwidth, size - 1);
+        this.width = this.lowerBandwidth + this.upperBandwidth + 1;
+        this.band = new double[size * width];
+    }
+
+    //  the tridiagonal matrix with sub[i] at (i + 1, i), diagonal[i] at (i, i) and sup[i] at (i, i + 1)
+    public static BandedMatrix createTridiagonal(double[] sub, double[] diagonal, double[] sup) {
+        int n = diagonal.length;
+        if (sub.length != n - 1 || sup.length != n - 1)
+            throw new InvalidDimensionsException("The off-diagonals need one entry less than the diagonal");
+        BandedMatrix m = new BandedMatrix(n, 1, 1);
+        for (int i = 0; i < n; i++) {
+            m.setEntry(i, i, diagonal[i]);
+            if (i > 0) m.setEntry(i, i - 1, sub[i - 1]);
+            if (i < n - 1) m.setEntry(i, i + 1, sup[i]);
+        }
+        return m;
+    }
+
+    //  copy the band of a square matrix, with its bandwidths detected from its entries
+    public static BandedMatrix fromMatrix(Matrix m) {
+        return fromMatrix(m, m.getLowerBandwidth(), m.getUpperBandwidth());
+    }
+
+    //  copy the given band of a square matrix, entries outside it are ignored
+    public static BandedMatrix fromMatrix(Matrix m, int lowerBandwidth, int upperBandwidth) {
+        if (!m.isSquare()) throw new InvalidDimensionsException("Banded matrices have to be square");
+        BandedMatrix banded = new BandedMatrix(m.getNumRows(), lowerBandwidth, upperBandwidth);
+        for (int i = 0; i < banded.size; i++) {
+            int first = max(0, i - banded.lowerBandwidth);
+            int last = min(banded.size - 1, i + banded.upperBandwidth);
+            m.copyRowInto(i, first, last + 1, banded.band, banded.position(i, first));
+        }
+        return banded;
+    }
+
+    //  whether solving a size x size system with these bandwidths in band storage beats a dense factorization
+    static boolean isNarrow(int size, int lowerBandwidth, int upperBandwidth) {
+        return 4 * (2 * lowerBandwidth + upperBandwidth + 1) <= size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getNumRows() {
+        return size;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return size;
+    }
+
+    public int getLowerBandwidth() {
+        return lowerBandwidth;
+    }
+
+    public int getUpperBandwidth() {
+        return upperBandwidth;
+    }
+
+    public boolean isTridiagonal() {
+        return lowerBandwidth <= 1 && upperBandwidth <= 1;
+    }
+
+    public boolean isInBand(int row, int column) {
+        return column - row >= -lowerBandwidth && column - row <= upperBandwidth;
+    }
+
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= size || column < 0 || column >= size)
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the matrix");
+        return isInBand(row, column) ? band[position(row, column)] : 0;
+    }
+
+    public void setEntry(int row, int column, double value) {
+        if (row < 0 || row >= size || column < 0 || column >= size)
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the matrix");
+        if (!isInBand(row, column))
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the band");
+        band[position(row, column)] = value;
+    }
+
+    //  the stored band, shared with this matrix
+    double[] getBand() {
+        return band;
+    }
+
+    int position(int row, int column) {
+        return row * width + column - row + lowerBandwidth;
+    }
+
+    public Matrix toMatrix() {
+        double[] dense = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            int first = max(0, i - lowerBandwidth);
+            int last = min(size - 1, i + upperBandwidth);
+            System.arraycopy(band, position(i, first), dense, i * size + first, last - first + 1);
+        }
+        return new Matrix(size, size, dense);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  y = A * x
+    @Override
+    public void apply(double[] x, double[] y) {
+        if (x.length != size || y.length != size)
+            throw new InvalidDimensionsException("The vectors do not match the size of the matrix");
+        for (int i = 0; i < size; i++) {
+            int first = max(0, i - lowerBandwidth);
+            int last = min(size - 1, i + upperBandwidth);
+            int start = position(i, 0);
+            double sum = 0;
+            for (int j = first; j <= last; j++) {
+                sum += band[start + j] * x[j];
+            }
+            y[i] = sum;
+        }
+    }
+
+    //  banded LU with partial pivoting, reusable for many right-hand sides
+    public BandedLUDecomposition getDecomposition() {
+        return new BandedLUDecomposition(this);
+    }
+
+    //  solve A * x = b, by the Thomas algorithm when A is tridiagonal and diagonally dominant
+    //  and by BandedLUDecomposition otherwise, or when a pivot of the Thomas algorithm turns out too small
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        if (lowerBandwidth == 1 && upperBandwidth == 1 && isDiagonallyDominant()) {
+            double[] x = solveTridiagonal(b);
+            if (x != null) return x;
+        }
+        return getDecomposition().solve(b);
+    }
+
+    public Vector solve(Vector b) {
+        return new Vector(solve(b.toArray()));
+    }
+
+    //  |a_ii| >= sum of |a_ij| over the rest of row i, so elimination without pivoting is stable
+    private boolean isDiagonallyDominant() {
+        for (int i = 0; i < size; i++) {
+            int first = max(0, i - lowerBandwidth);
+            int last = min(size - 1, i + upperBandwidth);
+            double offDiagonal = 0;
+            for (int j = first; j <= last; j++) {
+                if (j != i) offDiagonal += abs(band[position(i, j)]);
+            }
+            if (abs(band[position(i, i)]) < offDiagonal || band[position(i, i)] == 0) return false;
+        }
+        return true;
+    }
+
+    //  the Thomas algorithm, elimination without pivoting in one sweep down and one back up
+    //  needs only one extra array of n entries
+    //  weak dominance allows pivots that vanish, as in [[1, 1], [1, 1]], so each one is checked
+    //  and null is returned for the caller to pivot instead
+    private double[] solveTridiagonal(double[] b) {
+        double largestEntry = 0;
+        for (double entry : band) {
+            largestEntry = max(largestEntry, abs(entry));
+        }
+        double tolerance = SINGULARITY_TOLERANCE * largestEntry;
+
+        double[] modifiedSup = new double[size];
+        double[] x = new double[size];
+        double diagonal = band[1];
+        if (!(abs(diagonal) > tolerance)) return null;
+        modifiedSup[0] = size > 1 ? band[2] / diagonal : 0;
+        x[0] = b[0] / diagonal;
+        for (int i = 1; i < size; i++) {
+            int row = i * width;
+            double sub = band[row];
+            double denominator = band[row + 1] - sub * modifiedSup[i - 1];
+            if (!(abs(denominator) > tolerance)) return null;
+            if (i < size - 1) modifiedSup[i] = band[row + 2] / denominator;
+            x[i] = (b[i] - sub * x[i - 1]) / denominator;
+        }
+        for (int i = size - 2; i >= 0; i--) {
+            x[i] -= modifiedSup[i] * x[i + 1];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,195 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+public class BatchSolver {
+    /*
+        Solves many independent n x n systems A * x = b of the same size at once
+
+        The systems are packed in structure-of-arrays buffers, the same entry of every system is
+        stored next to each other:
+            coefficients[(row * n + column) * count + system]
+            constants[row * count + system]
+            solutions[row * count + system]
+        Gaussian elimination with partial pivoting then runs on all systems in lockstep,
+        every inner loop runs across systems, so it has no dependencies and vectorizes
+        Systems are processed in chunks so that the chunk being eliminated stays in cache
+        A system whose pivot falls below the tolerance of LUDecomposition is marked singular
+        and goes on being eliminated with the others, its solution is replaced by NaN at the end
+     */
+    private static final int CHUNK = 256;
+    //  pivots smaller than this, relative to the largest entry of the system, are treated as zero
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+
+    private final int size;
+    //  scratch space for one chunk, reused between solves
+    private final int[] pivotRows = new int[CHUNK];
+    private final double[] pivotMagnitudes = new double[CHUNK];
+    private final double[] factors = new double[CHUNK];
+    private final double[] tolerances = new double[CHUNK];
+    private final boolean[] singular = new boolean[CHUNK];
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public BatchSolver(int size) {
+        if (size <= 0) throw new InvalidDimensionsException("Cannot solve systems with less than 1 unknown");
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public static int coefficientIndex(int row, int column, int system, int size, int count) {
+        return (row * size + column) * count + system;
+    }
+
+    public static int constantIndex(int row, int system, int count) {
+        return row * count + system;
+    }
+
+    //  pack an augmented matrix [A | b] as system number system
+    public static void putSystem(Matrix augmented, int system, int count, double[] coefficients, double[] constants) {
+        int size = augmented.getNumRows();
+        if (augmented.getNumColumns() != size + 1)
+            throw new InvalidDimensionsException("The augmented matrix must have one more column than it has rows");
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                coefficients[coefficientIndex(i, j, system, size, count)] = augmented.getEntry(i, j);
+            }
+            constants[constantIndex(i, system, count)] = augmented.getEntry(i, size);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  solve count systems, overwriting coefficients and constants with their eliminated forms
+    //  systems that are singular, as LUDecomposition would find them, get NaN solutions, the number of them is returned
+    public int solve(int count, double[] coefficients, double[] constants, double[] solutions) {
+        if (coefficients.length < size * size * count || constants.length < size * count
+                || solutions.length < size * count)
+            throw new InvalidDimensionsException("The buffers are too small for " + count + " systems");
+        int numSingular = 0;
+        for (int start = 0; start < count; start += CHUNK) {
+            int end = min(start + CHUNK, count);
+            eliminate(count, start, end, coefficients, constants);
+            substitute(count, start, end, coefficients, constants, solutions);
+            for (int s = 0; s < end - start; s++) {
+                if (!singular[s]) continue;
+                numSingular++;
+                for (int i = 0; i < size; i++) {
+                    solutions[i * count + start + s] = Double.NaN;
+                }
+            }
+        }
+        return numSingular;
+    }
+
+    //  forward elimination of systems [start, end)
+    private void eliminate(int count, int start, int end, double[] a, double[] b) {
+        int n = size;
+        int width = end - start;
+        for (int s = 0; s < width; s++) {
+            tolerances[s] = 0;
+            singular[s] = false;
+        }
+        for (int ij = 0; ij < n * n; ij++) {
+            int offset = ij * count + start;
+            for (int s = 0; s < width; s++) {
+                tolerances[s] = max(tolerances[s], abs(a[offset + s]));
+            }
+        }
+        for (int s = 0; s < width; s++) {
+            tolerances[s] *= SINGULARITY_TOLERANCE;
+        }
+
+        for (int k = 0; k < n; k++) {
+            //  every system picks its own pivot row
+            int kk = (k * n + k) * count + start;
+            for (int s = 0; s < width; s++) {
+                pivotRows[s] = k;
+                pivotMagnitudes[s] = abs(a[kk + s]);
+            }
+            for (int i = k + 1; i < n; i++) {
+                int ik = (i * n + k) * count + start;
+                for (int s = 0; s < width; s++) {
+                    double magnitude = abs(a[ik + s]);
+                    boolean larger = magnitude > pivotMagnitudes[s];
+                    pivotMagnitudes[s] = larger ? magnitude : pivotMagnitudes[s];
+                    pivotRows[s] = larger ? i : pivotRows[s];
+                }
+            }
+            //  NaN entries fail the comparison and mark the system too
+            for (int s = 0; s < width; s++) {
+                singular[s] |= !(pivotMagnitudes[s] > tolerances[s]);
+            }
+
+            //  swap each system's pivot row into row k, as a select so the loops stay branch free
+            for (int i = k + 1; i < n; i++) {
+                for (int j = k; j < n; j++) {
+                    swapWhere(a, (k * n + j) * count + start, (i * n + j) * count + start, i, width);
+                }
+                swapWhere(b, k * count + start, i * count + start, i, width);
+            }
+
+            //  eliminate below the pivot
+            for (int i = k + 1; i < n; i++) {
+                int ik = (i * n + k) * count + start;
+                for (int s = 0; s < width; s++) {
+                    factors[s] = a[ik + s] / a[kk + s];
+                }
+                for (int j = k + 1; j < n; j++) {
+                    int ij = (i * n + j) * count + start;
+                    int kj = (k * n + j) * count + start;
+                    for (int s = 0; s < width; s++) {
+                        a[ij + s] -= factors[s] * a[kj + s];
+                    }
+                }
+                int bi = i * count + start;
+                int bk = k * count + start;
+                for (int s = 0; s < width; s++) {
+                    b[bi + s] -= factors[s] * b[bk + s];
+                }
+            }
+        }
+    }
+
+    //  swap the entries at top and other of the systems whose pivot row is row
+    private void swapWhere(double[] buffer, int top, int other, int row, int width) {
+        for (int s = 0; s < width; s++) {
+            boolean swap = pivotRows[s] == row;
+            double topValue = buffer[top + s];
+            double otherValue = buffer[other + s];
+            buffer[top + s] = swap ? otherValue : topValue;
+            buffer[other + s] = swap ? topValue : otherValue;
+        }
+    }
+
+    //  back substitution of systems [start, end)
+    private void substitute(int count, int start, int end, double[] a, double[] b, double[] x) {
+        int n = size;
+        int width = end - start;
+        for (int i = n - 1; i >= 0; i--) {
+            int xi = i * count + start;
+            System.arraycopy(b, xi, x, xi, width);
+            for (int j = i + 1; j < n; j++) {
+                int ij = (i * n + j) * count + start;
+                int xj = j * count + start;
+                for (int s = 0; s < width; s++) {
+                    x[xi + s] -= a[ij + s] * x[xj + s];
+                }
+            }
+            int ii = (i * n + i) * count + start;
+            for (int s = 0; s < width; s++) {
+                x[xi + s] /= a[ii + s];
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package main.net.adultsmath.m1zc3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.Math.*;
+
+public class ChannelRowSource implements RowSource, Closeable {
+    /*
+        Rows stored back to back in a file, or any other seekable channel, as raw 8-byte doubles with no header,
+        row-major in the given byte order (little-endian unless told otherwise, which is what numpy's tofile()
+        and most C programs write on x86 and ARM)
+
+        Every read goes through one direct buffer of about BUFFER_SIZE bytes and is decoded from it
+        by a DoubleBuffer view, so a file of any length is read with constant memory and without
+        a double being boxed or copied more than once
+        I/O failures surface as UncheckedIOException, since RowSource does not declare them
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final SeekableByteChannel channel;
+    private final int numColumns;
+    //  the position of the first row, so data can follow a header
+    private final long start;
+    private final ByteBuffer buffer;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public ChannelRowSource(SeekableByteChannel channel, int numColumns) throws IOException {
+        this(channel, numColumns, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    //  the rows start at the current position of the channel
+    public ChannelRowSource(SeekableByteChannel channel, int numColumns, ByteOrder order) throws IOException {
+        if (numColumns <= 0) throw new InvalidDimensionsException("There has to be at least 1 column");
+        this.channel = channel;
+        this.numColumns = numColumns;
+        this.start = channel.position();
+        int rowBytes = numColumns * Double.BYTES;
+        buffer = ByteBuffer.allocateDirect(max(1, BUFFER_SIZE / rowBytes) * rowBytes).order(order);
+    }
+
+    public static ChannelRowSource open(Path path, int numColumns) throws IOException {
+        return new ChannelRowSource(FileChannel.open(path, StandardOpenOption.READ), numColumns);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    //  the number of rows, known from the size of the channel
+    public long getNumRows() {
+        try {
+            return (channel.size() - start) / ((long) numColumns * Double.BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    @Override
+    public void rewind() {
+        try {
+            channel.position(start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int read(double[] target, int maxRows) {
+        int rowBytes = numColumns * Double.BYTES;
+        int rows = 0;
+        try {
+            while (rows < maxRows) {
+                int wanted = min(maxRows - rows, buffer.capacity() / rowBytes) * rowBytes;
+                buffer.clear().limit(wanted);
+                //  a channel can return fewer bytes than asked for before its end
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) break;
+                }
+                int bytes = buffer.position();
+                if (bytes % rowBytes != 0) throw new IllegalStateException("The data ends in the middle of a row");
+                buffer.flip();
+                buffer.asDoubleBuffer().get(target, rows * numColumns, bytes / Double.BYTES);
+                rows += bytes / rowBytes;
+                if (bytes < wanted) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,211 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class CholeskyDecomposition implements MatrixDecomposition {
+    /*
+        A = L * L^T for a symmetric positive-definite A, L lower triangular with a positive diagonal
+
+        Only the lower triangle of A is read, and L is stored packed by rows, row i starting at i * (i + 1) / 2,
+        so the factorization needs about half the flops and half the memory of LU
+        The factorization stops at the first pivot that is not positive, or is so small next to the
+        largest diagonal entry that it is only rounding, which is how a matrix that is not positive-definite,
+        or is positive semi-definite and singular, is detected
+        A matrix that is not symmetric is not factored at all, the lower triangle alone would
+        describe a different matrix, so it is reported as not positive-definite
+     */
+    //  pivots smaller than this, relative to the largest diagonal entry of A, count as 0
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+    //  right-hand sides are substituted this many columns at a time so the rows being updated stay in cache
+    private static final int PANEL_WIDTH = 64;
+
+    private final int size;
+    private final double[] l;
+    private final boolean positiveDefinite;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public CholeskyDecomposition(Matrix a) {
+        if (!a.isSquare())
+            throw new InvalidDimensionsException("Cannot get the Cholesky decomposition of a non-square matrix");
+        size = a.getNumRows();
+        l = new double[size * (size + 1) / 2];
+
+        //  the largest entry of a positive-definite matrix is on its diagonal
+        double largestDiagonal = 0;
+        for (int i = 0; i < size; i++) {
+            largestDiagonal = max(largestDiagonal, abs(a.getEntry(i, i)));
+        }
+        double tolerance = SINGULARITY_TOLERANCE * largestDiagonal;
+
+        boolean isPositiveDefinite = a.getStructure().isSymmetricToRounding();
+        for (int i = 0; i < size && isPositiveDefinite; i++) {
+            int rowI = rowStart(i);
+            for (int j = 0; j <= i; j++) {
+                int rowJ = rowStart(j);
+                double sum = a.getEntry(i, j);
+                for (int k = 0; k < j; k++) {
+                    sum -= l[rowI + k] * l[rowJ + k];
+                }
+                if (i == j) {
+                    if (!(sum > tolerance)) {
+                        isPositiveDefinite = false;
+                        break;
+                    }
+                    l[rowI + i] = sqrt(sum);
+                } else {
+                    l[rowI + j] = sum / l[rowJ + j];
+                }
+            }
+        }
+        positiveDefinite = isPositiveDefinite;
+    }
+
+    //  a cheap test that rules out most matrices that are not symmetric positive-definite
+    //  without factoring them, a positive-definite matrix is symmetric with a positive diagonal
+    public static boolean isCandidate(Matrix a) {
+        MatrixStructure structure = a.getStructure();
+        return structure.isSquare() && structure.hasPositiveDiagonal() && structure.isSymmetricToRounding();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isPositiveDefinite() {
+        return positiveDefinite;
+    }
+
+    @Override
+    public boolean isSingular() {
+        return !positiveDefinite;
+    }
+
+    public Matrix getL() {
+        checkPositiveDefinite();
+        double[] lower = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(l, rowStart(i), lower, i * size, i + 1);
+        }
+        return new Matrix(size, size, lower);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  det(A) = det(L)^2
+    @Override
+    public double getDeterminant() {
+        checkPositiveDefinite();
+        double determinant = 1;
+        for (int i = 0; i < size; i++) {
+            double diagonal = l[rowStart(i) + i];
+            determinant *= diagonal * diagonal;
+        }
+        return determinant;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = b.clone();
+        substitute(x, 1);
+        return x;
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b.getComps(i);
+        }
+        substitute(x, 1);
+        return new Vector(x);
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRows() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        int columns = b.getNumColumns();
+        double[] x = new double[size * columns];
+        for (int i = 0; i < size; i++) {
+            b.copyRowInto(i, 0, columns, x, i * columns);
+        }
+        substitute(x, columns);
+        return new Matrix(size, columns, x);
+    }
+
+    @Override
+    public Matrix getInverse() {
+        double[] x = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            x[i * size + i] = 1;
+        }
+        substitute(x, size);
+        return new Matrix(size, size, x);
+    }
+
+    //  solve L * Y = B and then L^T * X = Y on a row-major block of right-hand sides, in place
+    private void substitute(double[] x, int columns) {
+        checkPositiveDefinite();
+        for (int c0 = 0; c0 < columns; c0 += PANEL_WIDTH) {
+            int c1 = min(c0 + PANEL_WIDTH, columns);
+            for (int i = 0; i < size; i++) {
+                int row = rowStart(i);
+                int xi = i * columns;
+                for (int j = 0; j < i; j++) {
+                    double lij = l[row + j];
+                    if (lij == 0) continue;
+                    int xj = j * columns;
+                    for (int c = c0; c < c1; c++) {
+                        x[xi + c] -= lij * x[xj + c];
+                    }
+                }
+                double diagonal = l[row + i];
+                for (int c = c0; c < c1; c++) {
+                    x[xi + c] /= diagonal;
+                }
+            }
+            //  L^T is walked by rows of L, each solved unknown is subtracted from the ones above it
+            for (int i = size - 1; i >= 0; i--) {
+                int row = rowStart(i);
+                int xi = i * columns;
+                double diagonal = l[row + i];
+                for (int c = c0; c < c1; c++) {
+                    x[xi + c] /= diagonal;
+                }
+                for (int j = 0; j < i; j++) {
+                    double lij = l[row + j];
+                    if (lij == 0) continue;
+                    int xj = j * columns;
+                    for (int c = c0; c < c1; c++) {
+                        x[xj + c] -= lij * x[xi + c];
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkPositiveDefinite() {
+        if (!positiveDefinite) throw new NotPositiveDefiniteException("This matrix is not positive-definite");
+    }
+
+    private static int rowStart(int i) {
+        return i * (i + 1) / 2;
+    }
+
+    public static class NotPositiveDefiniteException extends RuntimeException {
+        public NotPositiveDefiniteException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package main.net.adultsmath.m1zc3;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static java.lang.Math.min;
+
+final class DoubleChunks {
+    /*
+        A long array of doubles outside the Java heap, split into DoubleBuffers of CHUNK_ENTRIES entries
+        since a buffer is indexed with an int, entry i being entry i % CHUNK_ENTRIES of chunk i / CHUNK_ENTRIES
+
+        The chunks are either direct buffers, whose memory free() hands back to the operating system at once,
+        or the mapping of a file
+        Everything here uses absolute indices and leaves the positions of the buffers alone,
+        so any number of threads can read at the same time
+     */
+    //  2^27 entries, 1 GiB per buffer
+    static final long CHUNK_ENTRIES = 1L << 27;
+    private static final int CHUNK_SHIFT = 27;
+    //  entries are copied out of the buffers this many at a time by the products
+    private static final int BLOCK_ENTRIES = 1 << 13;
+    //  sun.misc.Unsafe.invokeCleaner(ByteBuffer), the only way before java.lang.foreign to free a direct buffer
+    //  without waiting for the garbage collector, null if the runtime does not have it
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final long size;
+    private final DoubleBuffer[] chunks;
+    //  the direct buffers behind the chunks, null for a mapping
+    private final ByteBuffer[] memory;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    private DoubleChunks(long size, DoubleBuffer[] chunks, ByteBuffer[] memory) {
+        this.size = size;
+        this.chunks = chunks;
+        this.memory = memory;
+    }
+
+    //  size zeroes in direct memory, which counts against -XX:MaxDirectMemorySize rather than the heap
+    static DoubleChunks allocate(long size) {
+        int count = numChunks(size);
+        DoubleBuffer[] chunks = new DoubleBuffer[count];
+        ByteBuffer[] memory = new ByteBuffer[count];
+        try {
+            for (int k = 0; k < count; k++) {
+                long length = min(CHUNK_ENTRIES, size - k * CHUNK_ENTRIES);
+                memory[k] = ByteBuffer.allocateDirect((int) length * Double.BYTES).order(ByteOrder.nativeOrder());
+                chunks[k] = memory[k].asDoubleBuffer();
+            }
+        } catch (OutOfMemoryError e) {
+            new DoubleChunks(size, chunks, memory).free();
+            throw e;
+        }
+        return new DoubleChunks(size, chunks, memory);
+    }
+
+    //  size entries of a file from position on, read-only, the mapping outlives the channel
+    static DoubleChunks map(FileChannel channel, long position, long size, ByteOrder order) throws IOException {
+        DoubleBuffer[] chunks = new DoubleBuffer[numChunks(size)];
+        for (int k = 0; k < chunks.length; k++) {
+            long start = k * CHUNK_ENTRIES;
+            long length = min(CHUNK_ENTRIES, size - start);
+            chunks[k] = channel.map(FileChannel.MapMode.READ_ONLY, position + start * Double.BYTES,
+                    length * Double.BYTES).order(order).asDoubleBuffer();
+        }
+        return new DoubleChunks(size, chunks, null);
+    }
+
+    private static int numChunks(long size) {
+        return (int) ((size + CHUNK_ENTRIES - 1) >>> CHUNK_SHIFT);
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    double get(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & (CHUNK_ENTRIES - 1)));
+    }
+
+    void set(long index, double value) {
+        chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & (CHUNK_ENTRIES - 1)), value);
+    }
+
+    //  release the direct memory now, the chunks must not be used afterwards
+    //  without invokeCleaner the buffers are only dropped, and freed by the garbage collector
+    void free() {
+        Arrays.fill(chunks, null);
+        if (memory == null) return;
+        for (int k = 0; k < memory.length; k++) {
+            if (memory[k] != null && INVOKE_CLEANER != null) {
+                try {
+                    INVOKE_CLEANER.invoke(UNSAFE, memory[k]);
+                } catch (ReflectiveOperationException e) {
+                    //  nothing to do, the garbage collector frees it instead
+                }
+            }
+            memory[k] = null;
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  entries [index, index + length) copied into target from offset on
+    void copyTo(long index, double[] target, int offset, int length) {
+        while (length > 0) {
+            DoubleBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+            int position = (int) (index & (CHUNK_ENTRIES - 1));
+            int count = min(length, chunk.limit() - position);
+            chunk.get(position, target, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    //  entries [index, index + length) overwritten by source from offset on
+    void copyFrom(double[] source, int offset, long index, int length) {
+        while (length > 0) {
+            DoubleBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+            int position = (int) (index & (CHUNK_ENTRIES - 1));
+            int count = min(length, chunk.limit() - position);
+            chunk.put(position, source, offset, count);
+            index += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    //  every entry copied into a target of at least the same size, a block at a time
+    void copyInto(DoubleChunks target) {
+        double[] block = new double[BLOCK_ENTRIES];
+        for (long start = 0; start < size; start += BLOCK_ENTRIES) {
+            int length = (int) min(BLOCK_ENTRIES, size - start);
+            copyTo(start, block, 0, length);
+            target.copyFrom(block, 0, start, length);
+        }
+    }
+
+    //  y = S * x for the entries read as rows of the given length, a dot product per row
+    //  the entries are read a block at a time, each block split into the pieces of the rows it holds
+    void multiply(int columns, double[] x, double[] y) {
+        Arrays.fill(y, 0);
+        double[] block = new double[BLOCK_ENTRIES];
+        int row = 0;
+        int column = 0;
+        for (long start = 0; start < size; start += BLOCK_ENTRIES) {
+            int length = (int) min(BLOCK_ENTRIES, size - start);
+            copyTo(start, block, 0, length);
+            for (int k = 0; k < length; ) {
+                int count = min(length - k, columns - column);
+                double sum = 0;
+                for (int t = 0; t < count; t++) {
+                    sum += block[k + t] * x[column + t];
+                }
+                y[row] += sum;
+                k += count;
+                column += count;
+                if (column == columns) {
+                    column = 0;
+                    row++;
+                }
+            }
+        }
+    }
+
+    //  y = S^T * x for the entries read as rows of the given length, each row added in times its entry of x
+    void multiplyTranspose(int columns, double[] x, double[] y) {
+        Arrays.fill(y, 0);
+        double[] block = new double[BLOCK_ENTRIES];
+        int row = 0;
+        int column = 0;
+        for (long start = 0; start < size; start += BLOCK_ENTRIES) {
+            int length = (int) min(BLOCK_ENTRIES, size - start);
+            copyTo(start, block, 0, length);
+            for (int k = 0; k < length; ) {
+                int count = min(length - k, columns - column);
+                double scale = x[row];
+                for (int t = 0; t < count; t++) {
+                    y[column + t] += scale * block[k + t];
+                }
+                k += count;
+                column += count;
+                if (column == columns) {
+                    column = 0;
+                    row++;
+                }
+            }
+        }
+    }
+}
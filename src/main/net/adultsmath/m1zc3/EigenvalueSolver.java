@@ -0,0 +1,360 @@
+package main.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.ComplexNumber;
+
+import static java.lang.Math.*;
+
+public class EigenvalueSolver {
+    /*
+        Every eigenvalue of a real square matrix, real or complex, without the characteristic polynomial
+
+        The matrix is first balanced (rows and columns scaled by powers of 2 so their norms are comparable,
+        which keeps rounding errors relative to the eigenvalues), then reduced to upper Hessenberg form
+        by Householder reflections, zero below the first subdiagonal, in 10/3 n^3 flops
+        The Francis double-shift QR algorithm then drives the subdiagonal to zero, splitting off
+        1 x 1 blocks (real eigenvalues) and 2 x 2 blocks (complex conjugate pairs) from the bottom,
+        each QR step on the Hessenberg matrix costs O(n^2) and usually 2 to 3 steps are needed per eigenvalue
+     */
+    //  more QR steps than this per eigenvalue means the iteration is not converging
+    private static final int MAX_ITERATIONS_PER_EIGENVALUE = 30;
+
+    private final int size;
+    private final double[] realParts;
+    private final double[] imaginaryParts;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public EigenvalueSolver(Matrix a) {
+        if (!a.isSquare()) throw new InvalidDimensionsException("Cannot get the eigenvalues of a non-square matrix");
+        size = a.getNumRows();
+        realParts = new double[size];
+        imaginaryParts = new double[size];
+        double[] h = a.toArray();
+        balance(h);
+        reduceToHessenberg(h);
+        francisQR(h);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    //  the eigenvalues in the order they were split off, complex conjugate pairs next to each other
+    public ComplexNumber[] getEigenvalues() {
+        ComplexNumber[] eigenvalues = new ComplexNumber[size];
+        for (int i = 0; i < size; i++) {
+            eigenvalues[i] = new ComplexNumber(realParts[i], imaginaryParts[i]);
+        }
+        return eigenvalues;
+    }
+
+    public double[] getRealParts() {
+        return realParts.clone();
+    }
+
+    public double[] getImaginaryParts() {
+        return imaginaryParts.clone();
+    }
+
+    //  the real eigenvalues with their multiplicities, eigenvalues within 1E-5 of each other count as one
+    public PolynomialRoots getRealEigenvalues() {
+        PolynomialRoots roots = new PolynomialRoots();
+        for (int i = 0; i < size; i++) {
+            if (imaginaryParts[i] == 0) roots.addRoot(realParts[i]);
+        }
+        return roots;
+    }
+
+    //  the largest modulus of an eigenvalue
+    public double getSpectralRadius() {
+        double radius = 0;
+        for (int i = 0; i < size; i++) {
+            radius = max(radius, hypot(realParts[i], imaginaryParts[i]));
+        }
+        return radius;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  scale row i by 1 / f and column i by f, a similarity transform, until rows and columns are balanced
+    private void balance(double[] a) {
+        int n = size;
+        boolean done = false;
+        while (!done) {
+            done = true;
+            for (int i = 0; i < n; i++) {
+                double columnNorm = 0;
+                double rowNorm = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j == i) continue;
+                    columnNorm += abs(a[j * n + i]);
+                    rowNorm += abs(a[i * n + j]);
+                }
+                if (columnNorm == 0 || rowNorm == 0) continue;
+
+                double sum = columnNorm + rowNorm;
+                double f = 1;
+                double g = rowNorm / 2;
+                while (columnNorm < g) {
+                    f *= 2;
+                    columnNorm *= 4;
+                }
+                g = rowNorm * 2;
+                while (columnNorm > g) {
+                    f /= 2;
+                    columnNorm /= 4;
+                }
+                if ((columnNorm + rowNorm) / f < 0.95 * sum) {
+                    done = false;
+                    double inverse = 1 / f;
+                    for (int j = 0; j < n; j++) {
+                        a[i * n + j] *= inverse;
+                        a[j * n + i] *= f;
+                    }
+                }
+            }
+        }
+    }
+
+    //  a = Q^T * a * Q with a upper Hessenberg, Q is not kept
+    private void reduceToHessenberg(double[] a) {
+        int n = size;
+        double[] v = new double[n];
+        double[] w = new double[n];
+        for (int k = 0; k < n - 2; k++) {
+            //  the reflection zeroes column k below row k + 1
+            double norm = 0;
+            for (int i = k + 1; i < n; i++) {
+                norm = hypot(norm, a[i * n + k]);
+            }
+            if (norm == 0) continue;
+            double alpha = a[(k + 1) * n + k] > 0 ? -norm : norm;
+            double vSquared = 0;
+            for (int i = k + 1; i < n; i++) {
+                v[i] = a[i * n + k];
+            }
+            v[k + 1] -= alpha;
+            for (int i = k + 1; i < n; i++) {
+                vSquared += v[i] * v[i];
+            }
+            double tau = 2 / vSquared;
+
+            //  from the left on rows k + 1 and down: a -= tau * v * (v^T * a)
+            for (int j = k; j < n; j++) {
+                w[j] = 0;
+            }
+            for (int i = k + 1; i < n; i++) {
+                double vi = v[i];
+                int row = i * n;
+                for (int j = k; j < n; j++) {
+                    w[j] += vi * a[row + j];
+                }
+            }
+            for (int i = k + 1; i < n; i++) {
+                double tv = tau * v[i];
+                int row = i * n;
+                for (int j = k; j < n; j++) {
+                    a[row + j] -= tv * w[j];
+                }
+            }
+
+            //  from the right on columns k + 1 and after: a -= tau * (a * v) * v^T
+            for (int i = 0; i < n; i++) {
+                int row = i * n;
+                double sum = 0;
+                for (int j = k + 1; j < n; j++) {
+                    sum += a[row + j] * v[j];
+                }
+                sum *= tau;
+                for (int j = k + 1; j < n; j++) {
+                    a[row + j] -= sum * v[j];
+                }
+            }
+
+            a[(k + 1) * n + k] = alpha;
+            for (int i = k + 2; i < n; i++) {
+                a[i * n + k] = 0;
+            }
+        }
+    }
+
+    //  the Francis double-shift QR iteration on the Hessenberg matrix a, after EISPACK's hqr
+    //  only the active block [l, last] is updated since the eigenvectors are not wanted
+    private void francisQR(double[] a) {
+        int n = size;
+        double epsilon = ulp(1.0);
+        double norm = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = max(i - 1, 0); j < n; j++) {
+                norm += abs(a[i * n + j]);
+            }
+        }
+
+        int last = n - 1;
+        int iterations = 0;
+        //  the total of the exceptional shifts subtracted from the diagonal so far
+        double shiftTotal = 0;
+        double x = 0, y = 0, w = 0;
+        while (last >= 0) {
+            //  look for a negligible subdiagonal entry, which splits the matrix at l
+            int l = last;
+            while (l > 0) {
+                double s = abs(a[(l - 1) * n + l - 1]) + abs(a[l * n + l]);
+                if (s == 0) s = norm;
+                if (abs(a[l * n + l - 1]) < epsilon * s) {
+                    a[l * n + l - 1] = 0;
+                    break;
+                }
+                l--;
+            }
+
+            x = a[last * n + last];
+            if (l == last) {
+                //  one real eigenvalue
+                realParts[last] = x + shiftTotal;
+                imaginaryParts[last] = 0;
+                last--;
+                iterations = 0;
+                continue;
+            }
+            y = a[(last - 1) * n + last - 1];
+            w = a[last * n + last - 1] * a[(last - 1) * n + last];
+            if (l == last - 1) {
+                //  a 2 x 2 block, two real eigenvalues or a complex pair
+                double p = (y - x) / 2;
+                double q = p * p + w;
+                double z = sqrt(abs(q));
+                x += shiftTotal;
+                if (q >= 0) {
+                    z = p + (p >= 0 ? z : -z);
+                    realParts[last - 1] = x + z;
+                    realParts[last] = z != 0 ? x - w / z : x + z;
+                    imaginaryParts[last - 1] = 0;
+                    imaginaryParts[last] = 0;
+                } else {
+                    realParts[last - 1] = x + p;
+                    realParts[last] = x + p;
+                    imaginaryParts[last - 1] = z;
+                    imaginaryParts[last] = -z;
+                }
+                last -= 2;
+                iterations = 0;
+                continue;
+            }
+
+            if (iterations == MAX_ITERATIONS_PER_EIGENVALUE)
+                throw new NotConvergedException("The QR algorithm did not converge");
+            if (iterations == 10 || iterations == 20) {
+                //  an exceptional shift to break out of a cycle
+                shiftTotal += x;
+                for (int i = 0; i <= last; i++) {
+                    a[i * n + i] -= x;
+                }
+                double s = abs(a[last * n + last - 1]) + abs(a[(last - 1) * n + last - 2]);
+                x = 0.75 * s;
+                y = x;
+                w = -0.4375 * s * s;
+            }
+            iterations++;
+            doubleShiftStep(a, l, last, x, y, w);
+        }
+    }
+
+    //  one implicit double-shift QR step on the block [l, last], with shifts the eigenvalues of
+    //  the trailing 2 x 2 block, given by x and y (its diagonal) and w (the product of its off-diagonal)
+    private void doubleShiftStep(double[] a, int l, int last, double x, double y, double w) {
+        int n = size;
+        double epsilon = ulp(1.0);
+
+        //  look for two consecutive small subdiagonal entries, so the step can start lower than l
+        int m = last - 2;
+        double p = 0, q = 0, r = 0;
+        while (true) {
+            double z = a[m * n + m];
+            double rx = x - z;
+            double sy = y - z;
+            p = (rx * sy - w) / a[(m + 1) * n + m] + a[m * n + m + 1];
+            q = a[(m + 1) * n + m + 1] - z - rx - sy;
+            r = a[(m + 2) * n + m + 1];
+            double s = abs(p) + abs(q) + abs(r);
+            p /= s;
+            q /= s;
+            r /= s;
+            if (m == l) break;
+            double u = abs(a[m * n + m - 1]) * (abs(q) + abs(r));
+            double v = abs(p) * (abs(a[(m - 1) * n + m - 1]) + abs(z) + abs(a[(m + 1) * n + m + 1]));
+            if (u < epsilon * v) break;
+            m--;
+        }
+        for (int i = m + 2; i <= last; i++) {
+            a[i * n + i - 2] = 0;
+            if (i > m + 2) a[i * n + i - 3] = 0;
+        }
+
+        //  chase the bulge down the subdiagonal with 3 x 3 reflections
+        for (int k = m; k <= last - 1; k++) {
+            boolean notLast = k != last - 1;
+            double scale = 0;
+            if (k != m) {
+                p = a[k * n + k - 1];
+                q = a[(k + 1) * n + k - 1];
+                r = notLast ? a[(k + 2) * n + k - 1] : 0;
+                scale = abs(p) + abs(q) + abs(r);
+                if (scale == 0) continue;
+                p /= scale;
+                q /= scale;
+                r /= scale;
+            }
+            double s = sqrt(p * p + q * q + r * r);
+            if (p < 0) s = -s;
+            if (s == 0) continue;
+            if (k != m) a[k * n + k - 1] = -s * scale;
+            else if (l != m) a[k * n + k - 1] = -a[k * n + k - 1];
+
+            p += s;
+            double vx = p / s;
+            double vy = q / s;
+            double vz = r / s;
+            q /= p;
+            r /= p;
+
+            //  rows k to k + 2
+            for (int j = k; j <= last; j++) {
+                double sum = a[k * n + j] + q * a[(k + 1) * n + j];
+                if (notLast) {
+                    sum += r * a[(k + 2) * n + j];
+                    a[(k + 2) * n + j] -= sum * vz;
+                }
+                a[(k + 1) * n + j] -= sum * vy;
+                a[k * n + j] -= sum * vx;
+            }
+            //  columns k to k + 2
+            int lastRow = min(last, k + 3);
+            for (int i = l; i <= lastRow; i++) {
+                int row = i * n;
+                double sum = vx * a[row + k] + vy * a[row + k + 1];
+                if (notLast) {
+                    sum += vz * a[row + k + 2];
+                    a[row + k + 2] -= sum * r;
+                }
+                a[row + k + 1] -= sum * q;
+                a[row + k] -= sum;
+            }
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    public static class NotConvergedException extends RuntimeException {
+        public NotConvergedException(String message) {
+            super(message);
+        }
+    }
+}
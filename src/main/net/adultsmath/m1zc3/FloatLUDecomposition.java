@@ -0,0 +1,116 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+final class FloatLUDecomposition {
+    /*
+        P * A = L * U as in LUDecomposition, but with the factors stored and updated as floats
+
+        The elimination moves half as many bytes and fits twice as many entries in a vector register,
+        at the cost of an error around 1E-7 relative to A instead of 1E-16, which is what
+        MixedPrecisionLUDecomposition corrects for
+        Solves read the float factors but substitute in double, so they add no rounding of their own
+     */
+    //  pivots smaller than this, relative to the largest entry of A, leave too few correct digits to refine
+    private static final float SINGULARITY_TOLERANCE = 1E-6f;
+
+    private final int size;
+    private final float[] lu;
+    private final int[] pivot;
+    //  a pivot that is too small or not finite, after which the factors are of no use
+    private final boolean singular;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    //  factors a, a row-major size x size array, in place
+    FloatLUDecomposition(float[] a, int size) {
+        this.size = size;
+        lu = a;
+        pivot = new int[size];
+        for (int i = 0; i < size; i++) {
+            pivot[i] = i;
+        }
+
+        float largestEntry = 0;
+        for (float entry : lu) {
+            largestEntry = max(largestEntry, abs(entry));
+        }
+        float tolerance = max(SINGULARITY_TOLERANCE * largestEntry, Float.MIN_NORMAL);
+
+        boolean isSingular = Float.isNaN(largestEntry) || Float.isInfinite(largestEntry);
+        for (int k = 0; k < size && !isSingular; k++) {
+            int p = k;
+            for (int i = k + 1; i < size; i++) {
+                if (abs(lu[i * size + k]) > abs(lu[p * size + k])) p = i;
+            }
+            if (p != k) {
+                swapRows(p, k);
+                int temp = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = temp;
+            }
+
+            float pivotValue = lu[k * size + k];
+            if (!(abs(pivotValue) > tolerance) || Float.isInfinite(pivotValue)) {
+                isSingular = true;
+                continue;
+            }
+
+            int pivotRow = k * size;
+            for (int i = k + 1; i < size; i++) {
+                int row = i * size;
+                float l = lu[row + k] / pivotValue;
+                lu[row + k] = l;
+                if (l == 0) continue;
+                for (int j = k + 1; j < size; j++) {
+                    lu[row + j] -= l * lu[pivotRow + j];
+                }
+            }
+        }
+        singular = isSingular;
+    }
+
+    boolean isSingular() {
+        return singular;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  x = A^-1 * b, b is left alone
+    void solve(double[] b, double[] x) {
+        for (int i = 0; i < size; i++) {
+            x[i] = b[pivot[i]];
+        }
+        for (int i = 0; i < size; i++) {
+            int row = i * size;
+            double sum = x[i];
+            for (int j = 0; j < i; j++) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            int row = i * size;
+            double sum = x[i];
+            for (int j = i + 1; j < size; j++) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum / lu[row + i];
+        }
+    }
+
+    private void swapRows(int row1, int row2) {
+        int start1 = row1 * size;
+        int start2 = row2 * size;
+        for (int j = 0; j < size; j++) {
+            float temp = lu[start1 + j];
+            lu[start1 + j] = lu[start2 + j];
+            lu[start2 + j] = temp;
+        }
+    }
+}
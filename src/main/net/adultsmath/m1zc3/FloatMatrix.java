@@ -0,0 +1,152 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+public class FloatMatrix implements LinearOperator {
+    /*
+        A dense matrix stored as 4-byte floats, compact and row-major
+
+        Half the memory of a Matrix, and half the bytes to move through every product, for data that
+        does not carry more than about 7 significant digits anyway (measurements, images, model weights)
+        Entries are rounded to the nearest float once, when the matrix is built,
+        every product and solve then works in double, so no further precision is lost
+        getMixedPrecisionLUDecomposition() solves systems with it to full double accuracy
+     */
+    private final int numRows;
+    private final int numColumns;
+    private final float[] data;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public FloatMatrix(float[][] inputs) {
+        numRows = inputs.length;
+        numColumns = inputs[0].length;
+        data = new float[numRows * numColumns];
+        for (int i = 0; i < numRows; i++) {
+            if (inputs[i].length != numColumns)
+                throw new InvalidDimensionsException("The rows do not all have the same length");
+            System.arraycopy(inputs[i], 0, data, i * numColumns, numColumns);
+        }
+    }
+
+    //  every entry of m rounded to the nearest float
+    public FloatMatrix(Matrix m) {
+        numRows = m.getNumRows();
+        numColumns = m.getNumColumns();
+        data = toFloats(m);
+    }
+
+    //  wrap a compact row-major array without copying it
+    FloatMatrix(int numRows, int numColumns, float[] data) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.data = data;
+    }
+
+    //  the entries of m rounded to floats, row-major
+    static float[] toFloats(Matrix m) {
+        int columns = m.getNumColumns();
+        float[] floats = new float[m.getNumRows() * columns];
+        double[] row = new double[columns];
+        for (int i = 0; i < m.getNumRows(); i++) {
+            m.copyRowInto(i, 0, columns, row, 0);
+            for (int j = 0; j < columns; j++) {
+                floats[i * columns + j] = (float) row[j];
+            }
+        }
+        return floats;
+    }
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public boolean isSquare() {
+        return numRows == numColumns;
+    }
+
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= numRows || column < 0 || column >= numColumns)
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the matrix");
+        return data[row * numColumns + column];
+    }
+
+    //  a copy of the entries, row-major
+    public float[] toArray() {
+        return data.clone();
+    }
+
+    float[] getData() {
+        return data;
+    }
+
+    //  the same entries in double precision, exactly
+    public Matrix toMatrix() {
+        double[] entries = new double[data.length];
+        for (int k = 0; k < data.length; k++) {
+            entries[k] = data[k];
+        }
+        return new Matrix(numRows, numColumns, entries);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  y = A * x, accumulated in double
+    @Override
+    public void apply(double[] x, double[] y) {
+        if (x.length != numColumns || y.length != numRows)
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        for (int i = 0; i < numRows; i++) {
+            int row = i * numColumns;
+            double sum = 0;
+            for (int j = 0; j < numColumns; j++) {
+                sum += data[row + j] * x[j];
+            }
+            y[i] = sum;
+        }
+    }
+
+    public Vector multiply(Vector x) {
+        double[] y = new double[numRows];
+        apply(x.toArray(), y);
+        return new Vector(y);
+    }
+
+    //  factored in float, refined to double accuracy against these entries
+    public MixedPrecisionLUDecomposition getMixedPrecisionLUDecomposition() {
+        return new MixedPrecisionLUDecomposition(this);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        return obj instanceof FloatMatrix matrix && numRows == matrix.numRows && numColumns == matrix.numColumns
+                && Arrays.equals(data, matrix.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(numRows, numColumns, Arrays.hashCode(data));
+    }
+}
@@ -0,0 +1,211 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class IncrementalQR {
+    /*
+        Least squares for A * x = b with many more equations than unknowns, one block of rows at a time
+
+        Only the n x n triangular factor R of A, the matching n entries of Q^T * b and the sum of squares of
+        the residual are kept. Each block of rows [B | c] is folded in by Householder reflections of the
+        stacked matrix [R | z ; B | c], which zero B and leave the new R and z on top
+        R has zeroes below its diagonal, so reflection k only touches row k of R and the rows of the block
+        The rows are read once and memory stays O(n^2) however many rows are added, so with a RowSource
+        reading them from a file or an iterator, systems with far more rows than fit in memory can be solved
+     */
+    //  rows are buffered into blocks this tall before they are folded in, small enough to stay in cache
+    private static final int BLOCK_ROWS = 256;
+
+    private final int numUnknowns;
+    //  row-major (n + 1) wide: R in the first n columns, z = (Q^T * b)[0:n] in the last
+    private final double[] r;
+    private final double[] block;
+    private final double[] w;
+    private int blockRows;
+    private long numRowsAdded;
+    private double residualSumOfSquares;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public IncrementalQR(int numUnknowns) {
+        if (numUnknowns <= 0) throw new InvalidDimensionsException("There has to be at least 1 unknown");
+        this.numUnknowns = numUnknowns;
+        r = new double[numUnknowns * (numUnknowns + 1)];
+        block = new double[BLOCK_ROWS * (numUnknowns + 1)];
+        w = new double[numUnknowns + 1];
+    }
+
+    public int getNumUnknowns() {
+        return numUnknowns;
+    }
+
+    public long getNumRowsAdded() {
+        return numRowsAdded;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  add the equation coefficients . x = constant
+    public void addRow(double[] coefficients, double constant) {
+        if (coefficients.length != numUnknowns)
+            throw new InvalidDimensionsException("The row does not match the number of unknowns");
+        int start = blockRows * (numUnknowns + 1);
+        System.arraycopy(coefficients, 0, block, start, numUnknowns);
+        block[start + numUnknowns] = constant;
+        rowAdded();
+    }
+
+    //  add rows given back to back, each one the n coefficients followed by the constant
+    public void addRows(double[] augmentedRows, int offset, int rows) {
+        int width = numUnknowns + 1;
+        if (offset < 0 || rows < 0 || (long) rows * width > augmentedRows.length - offset)
+            throw new InvalidDimensionsException("The array does not hold " + rows + " rows after position " + offset);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(augmentedRows, offset + i * width, block, blockRows * width, width);
+            rowAdded();
+        }
+    }
+
+    //  add every row of an augmented matrix [A | b]
+    public void addRows(Matrix augmented) {
+        if (augmented.getNumColumns() != numUnknowns + 1)
+            throw new InvalidDimensionsException("The augmented matrix does not match the number of unknowns");
+        int width = numUnknowns + 1;
+        for (int i = 0; i < augmented.getNumRows(); i++) {
+            augmented.copyRowInto(i, 0, width, block, blockRows * width);
+            rowAdded();
+        }
+    }
+
+    //  add every row the source has left, each one the n coefficients followed by the constant
+    //  the rows are read straight into the block buffer, so however many there are, memory stays O(n^2)
+    //  the source is not rewound, so it can be a one-shot stream, and rows already added are kept
+    public void addRows(RowSource augmentedRows) {
+        if (augmentedRows.getNumColumns() != numUnknowns + 1)
+            throw new InvalidDimensionsException("The row source does not match the number of unknowns");
+        flush();
+        int rows;
+        while ((rows = augmentedRows.read(block, BLOCK_ROWS)) > 0) {
+            blockRows = rows;
+            numRowsAdded += rows;
+            flush();
+        }
+    }
+
+    private void rowAdded() {
+        blockRows++;
+        numRowsAdded++;
+        if (blockRows == BLOCK_ROWS) flush();
+    }
+
+    //  fold the buffered rows into R and z
+    private void flush() {
+        int n = numUnknowns;
+        int width = n + 1;
+        int rows = blockRows;
+        for (int k = 0; k < n; k++) {
+            //  the reflection mixes row k of R with column k of the block
+            double alpha = r[k * width + k];
+            double blockSumOfSquares = 0;
+            for (int i = 0; i < rows; i++) {
+                double entry = block[i * width + k];
+                blockSumOfSquares += entry * entry;
+            }
+            if (blockSumOfSquares == 0) continue;
+            double norm = sqrt(alpha * alpha + blockSumOfSquares);
+
+            double beta = alpha >= 0 ? -norm : norm;
+            double scale = 1 / (alpha - beta);
+            double tau = (beta - alpha) / beta;
+            r[k * width + k] = beta;
+            for (int i = 0; i < rows; i++) {
+                block[i * width + k] *= scale;
+            }
+
+            //  w = v^T * [R row k ; B] for the columns after k, then subtract tau * v * w
+            for (int j = k + 1; j < width; j++) {
+                w[j] = r[k * width + j];
+            }
+            for (int i = 0; i < rows; i++) {
+                int row = i * width;
+                double v = block[row + k];
+                for (int j = k + 1; j < width; j++) {
+                    w[j] += v * block[row + j];
+                }
+            }
+            for (int j = k + 1; j < width; j++) {
+                r[k * width + j] -= tau * w[j];
+            }
+            for (int i = 0; i < rows; i++) {
+                int row = i * width;
+                double tv = tau * block[row + k];
+                for (int j = k + 1; j < width; j++) {
+                    block[row + j] -= tv * w[j];
+                }
+                block[row + k] = 0;
+            }
+        }
+
+        //  what is left of the constants in the block is part of the residual
+        for (int i = 0; i < rows; i++) {
+            double entry = block[i * width + n];
+            residualSumOfSquares += entry * entry;
+        }
+        blockRows = 0;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  R, n x n upper triangular with A^T * A = R^T * R
+    public Matrix getR() {
+        flush();
+        double[] triangular = new double[numUnknowns * numUnknowns];
+        for (int i = 0; i < numUnknowns; i++) {
+            System.arraycopy(r, i * (numUnknowns + 1) + i, triangular, i * numUnknowns + i, numUnknowns - i);
+        }
+        return new Matrix(numUnknowns, numUnknowns, triangular);
+    }
+
+    //  false when the rows added so far do not determine every unknown
+    public boolean isFullRank() {
+        flush();
+        int width = numUnknowns + 1;
+        double largest = 0;
+        for (int k = 0; k < numUnknowns; k++) {
+            largest = max(largest, abs(r[k * width + k]));
+        }
+        double tolerance = max(numRowsAdded, numUnknowns) * ulp(1.0) * largest;
+        for (int k = 0; k < numUnknowns; k++) {
+            if (abs(r[k * width + k]) <= tolerance) return false;
+        }
+        return largest > 0;
+    }
+
+    //  the x minimizing ||A * x - b|| over every row added so far
+    public Vector solve() {
+        if (!isFullRank()) throw new Matrix.NotInvertibleException("The rows added so far do not determine every unknown");
+        int width = numUnknowns + 1;
+        double[] x = new double[numUnknowns];
+        for (int i = numUnknowns - 1; i >= 0; i--) {
+            double sum = r[i * width + numUnknowns];
+            for (int j = i + 1; j < numUnknowns; j++) {
+                sum -= r[i * width + j] * x[j];
+            }
+            x[i] = sum / r[i * width + i];
+        }
+        return new Vector(x);
+    }
+
+    //  ||A * x - b|| at the least squares solution
+    public double getResidualNorm() {
+        flush();
+        return sqrt(residualSumOfSquares);
+    }
+}
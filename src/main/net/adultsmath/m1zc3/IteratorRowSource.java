@@ -0,0 +1,48 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Iterator;
+
+final class IteratorRowSource implements RowSource {
+    /*
+        The rows of an Iterable or a single Iterator of double[], see RowSource.of()
+     */
+    private final Iterable<double[]> iterable;
+    private final int numColumns;
+    private Iterator<double[]> rows;
+    private boolean started;
+
+    IteratorRowSource(Iterable<double[]> iterable, Iterator<double[]> rows, int numColumns) {
+        if (numColumns <= 0) throw new InvalidDimensionsException("There has to be at least 1 column");
+        this.iterable = iterable;
+        this.rows = iterable != null ? iterable.iterator() : rows;
+        this.numColumns = numColumns;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    @Override
+    public void rewind() {
+        if (iterable != null) {
+            rows = iterable.iterator();
+        } else if (started) {
+            throw new IllegalStateException("An iterator can only be read once");
+        }
+    }
+
+    @Override
+    public int read(double[] buffer, int maxRows) {
+        int count = 0;
+        while (count < maxRows && rows.hasNext()) {
+            double[] row = rows.next();
+            if (row.length != numColumns)
+                throw new InvalidDimensionsException("A row has " + row.length + " entries instead of " + numColumns);
+            System.arraycopy(row, 0, buffer, count * numColumns, numColumns);
+            count++;
+            started = true;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,253 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class LUDecomposition implements MatrixDecomposition {
+    /*
+        P * A = L * U, computed by Gaussian elimination with partial pivoting
+
+        L (unit lower triangular, diagonal not stored) and U (upper triangular) are packed
+        together in one row-major array, the same way they overwrite A in the textbook algorithm
+        row i of P * A is row pivot[i] of A
+     */
+    //  pivots smaller than this, relative to the largest entry of A, are treated as zero
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+    //  right-hand sides are substituted this many columns at a time so the rows being updated stay in cache
+    private static final int PANEL_WIDTH = 64;
+
+    private final int size;
+    private final double[] lu;
+    private final int[] pivot;
+    //  +1 or -1 depending on the parity of the row swaps, the sign of det(P)
+    private final int pivotSign;
+    private final boolean singular;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public LUDecomposition(Matrix a) {
+        if (!a.isSquare())
+            throw new InvalidDimensionsException("Cannot get the LU decomposition of a non-square matrix");
+        size = a.getNumRows();
+        lu = a.toArray();
+        pivot = new int[size];
+        for (int i = 0; i < size; i++) {
+            pivot[i] = i;
+        }
+
+        double largestEntry = 0;
+        for (double entry : lu) {
+            largestEntry = max(largestEntry, abs(entry));
+        }
+        double tolerance = SINGULARITY_TOLERANCE * largestEntry;
+
+        int sign = 1;
+        boolean isSingular = false;
+        for (int k = 0; k < size; k++) {
+            //  find the largest entry on or below the diagonal in column k
+            int p = k;
+            for (int i = k + 1; i < size; i++) {
+                if (abs(lu[i * size + k]) > abs(lu[p * size + k])) p = i;
+            }
+            if (p != k) {
+                swapRows(p, k);
+                int temp = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = temp;
+                sign = -sign;
+            }
+
+            double pivotValue = lu[k * size + k];
+            if (abs(pivotValue) <= tolerance) {
+                //  nothing left to eliminate in this column
+                isSingular = true;
+                if (pivotValue == 0) continue;
+            }
+
+            //  eliminate below the pivot, the inner loop runs along contiguous rows
+            int pivotRow = k * size;
+            for (int i = k + 1; i < size; i++) {
+                int row = i * size;
+                double l = lu[row + k] / pivotValue;
+                lu[row + k] = l;
+                if (l == 0) continue;
+                for (int j = k + 1; j < size; j++) {
+                    lu[row + j] -= l * lu[pivotRow + j];
+                }
+            }
+        }
+        pivotSign = sign;
+        singular = isSingular;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    //  the row permutation, row i of P * A is row getPivot()[i] of A
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+
+    public Matrix getL() {
+        double[] l = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(lu, i * size, l, i * size, i);
+            l[i * size + i] = 1;
+        }
+        return new Matrix(size, size, l);
+    }
+
+    public Matrix getU() {
+        double[] u = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(lu, i * size + i, u, i * size + i, size - i);
+        }
+        return new Matrix(size, size, u);
+    }
+
+    public Matrix getP() {
+        double[] p = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            p[i * size + pivot[i]] = 1;
+        }
+        return new Matrix(size, size, p);
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  det(A) = det(P) * product of the diagonal of U
+    @Override
+    public double getDeterminant() {
+        double determinant = pivotSign;
+        for (int i = 0; i < size; i++) {
+            determinant *= lu[i * size + i];
+        }
+        return determinant;
+    }
+
+    //  solve A * x = b
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b[pivot[i]];
+        }
+        substitute(x);
+        return x;
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b.getComps(pivot[i]);
+        }
+        substitute(x);
+        return new Vector(x);
+    }
+
+    //  solve A * X = B, one column of X for each column of B
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRows() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        int columns = b.getNumColumns();
+        double[] x = new double[size * columns];
+        for (int i = 0; i < size; i++) {
+            b.copyRowInto(pivot[i], 0, columns, x, i * columns);
+        }
+        substitute(x, columns);
+        return new Matrix(size, columns, x);
+    }
+
+    //  A^-1, found by solving A * X = I, so it costs O(n^3) and reuses this factorization
+    @Override
+    public Matrix getInverse() {
+        double[] x = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            x[i * size + pivot[i]] = 1;
+        }
+        substitute(x, size);
+        return new Matrix(size, size, x);
+    }
+
+    //  forward substitution with L then back substitution with U, overwriting the permuted right-hand side
+    void substitute(double[] x) {
+        if (singular) throw new Matrix.NotInvertibleException("This matrix is singular");
+        for (int i = 0; i < size; i++) {
+            int row = i * size;
+            double sum = x[i];
+            for (int j = 0; j < i; j++) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum;
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            int row = i * size;
+            double sum = x[i];
+            for (int j = i + 1; j < size; j++) {
+                sum -= lu[row + j] * x[j];
+            }
+            x[i] = sum / lu[row + i];
+        }
+    }
+
+    //  the same substitution on a row-major block of right-hand sides, working on whole rows at a time
+    void substitute(double[] x, int columns) {
+        if (singular) throw new Matrix.NotInvertibleException("This matrix is singular");
+        for (int c0 = 0; c0 < columns; c0 += PANEL_WIDTH) {
+            int c1 = min(c0 + PANEL_WIDTH, columns);
+            for (int i = 1; i < size; i++) {
+                int xi = i * columns;
+                for (int j = 0; j < i; j++) {
+                    double l = lu[i * size + j];
+                    if (l == 0) continue;
+                    int xj = j * columns;
+                    for (int c = c0; c < c1; c++) {
+                        x[xi + c] -= l * x[xj + c];
+                    }
+                }
+            }
+            for (int i = size - 1; i >= 0; i--) {
+                int xi = i * columns;
+                for (int j = i + 1; j < size; j++) {
+                    double u = lu[i * size + j];
+                    if (u == 0) continue;
+                    int xj = j * columns;
+                    for (int c = c0; c < c1; c++) {
+                        x[xi + c] -= u * x[xj + c];
+                    }
+                }
+                double diagonal = lu[i * size + i];
+                for (int c = c0; c < c1; c++) {
+                    x[xi + c] /= diagonal;
+                }
+            }
+        }
+    }
+
+    private void swapRows(int row1, int row2) {
+        int start1 = row1 * size;
+        int start2 = row2 * size;
+        for (int j = 0; j < size; j++) {
+            double temp = lu[start1 + j];
+            lu[start1 + j] = lu[start2 + j];
+            lu[start2 + j] = temp;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package main.net.adultsmath.m1zc3;
+
+public interface LinearOperator {
+    /*
+        Anything that can compute y = A * x, without necessarily storing A
+
+        Iterative solvers only ever need the product, so a matrix-free operator
+        (a stencil, a circuit model, a product of other operators) can be solved just like a Matrix
+     */
+    int getNumRows();
+
+    int getNumColumns();
+
+    //  y = A * x, y is overwritten
+    void apply(double[] x, double[] y);
+}
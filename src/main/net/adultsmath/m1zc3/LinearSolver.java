@@ -0,0 +1,187 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+
+public class LinearSolver {
+    /*
+        Factors a coefficient matrix A once so that A * x = b can be solved for many b
+
+        A square, non-singular A is kept as its Cholesky or LU decomposition
+        Any other A is reduced together with the identity, [A | I] -> [rref(A) | E], so that
+        E * A = rref(A) and every right-hand side costs one product E * b, O(n^2)
+        The null space of A does not depend on b, so it is found once and shared by every solution
+     */
+    private final int numEquations;
+    private final int numUnknowns;
+    private final int rank;
+    //  set when A is square and non-singular
+    private final MatrixDecomposition decomposition;
+    //  rref(A) and E, set otherwise
+    private final double[] reduced;
+    private final double[] transform;
+    private final int[] pivotColumns;
+    private final VectorSet nullSpace;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public LinearSolver(Matrix coefficients) {
+        numEquations = coefficients.getNumRows();
+        numUnknowns = coefficients.getNumColumns();
+
+        if (coefficients.isSquare()) {
+            MatrixDecomposition squareDecomposition = coefficients.getDecomposition();
+            if (!squareDecomposition.isSingular()) {
+                decomposition = squareDecomposition;
+                rank = numUnknowns;
+                reduced = null;
+                transform = null;
+                pivotColumns = null;
+                nullSpace = null;
+                return;
+            }
+        }
+        decomposition = null;
+
+        //  reduce [A | I] with pivots only in the columns of A
+        int width = numUnknowns + numEquations;
+        double[] augmented = new double[numEquations * width];
+        for (int i = 0; i < numEquations; i++) {
+            for (int j = 0; j < numUnknowns; j++) {
+                augmented[i * width + j] = coefficients.getEntry(i, j);
+            }
+            augmented[i * width + numUnknowns + i] = 1;
+        }
+        RowReducer reducer = new RowReducer(new Matrix(numEquations, width, augmented), numUnknowns);
+        reducer.reduce(true);
+        rank = reducer.getRank();
+
+        reduced = new double[numEquations * numUnknowns];
+        transform = new double[numEquations * numEquations];
+        for (int i = 0; i < numEquations; i++) {
+            System.arraycopy(augmented, i * width, reduced, i * numUnknowns, numUnknowns);
+            System.arraycopy(augmented, i * width + numUnknowns, transform, i * numEquations, numEquations);
+        }
+        pivotColumns = new int[rank];
+        for (int i = 0; i < rank; i++) {
+            pivotColumns[i] = reducer.getPivotColumn(i);
+        }
+        nullSpace = rank < numUnknowns ? findNullSpace() : null;
+    }
+
+    public int getNumEquations() {
+        return numEquations;
+    }
+
+    public int getNumUnknowns() {
+        return numUnknowns;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    //  SINGLE when every consistent right-hand side has exactly one solution, INFINITE otherwise
+    //  a particular right-hand side can still have NONE
+    public LinearSystemSolution.SolutionType getSolutionType() {
+        return rank == numUnknowns ? LinearSystemSolution.SolutionType.SINGLE : LinearSystemSolution.SolutionType.INFINITE;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  solve A * x = b
+    public LinearSystemSolution solve(Vector b) {
+        if (b.getSize() != numEquations)
+            throw new InvalidDimensionsException("The right-hand side does not match the number of equations");
+        double[] rightHandSide = new double[numEquations];
+        for (int i = 0; i < numEquations; i++) {
+            rightHandSide[i] = b.getComps(i);
+        }
+        return solve(rightHandSide);
+    }
+
+    //  solve A * x = b for every column b of the block, in order
+    public List<LinearSystemSolution> solve(Matrix rightHandSides) {
+        if (rightHandSides.getNumRows() != numEquations)
+            throw new InvalidDimensionsException("The right-hand sides do not match the number of equations");
+        int count = rightHandSides.getNumColumns();
+        List<LinearSystemSolution> solutions = new ArrayList<>(count);
+        if (decomposition != null) {
+            Matrix x = decomposition.solve(rightHandSides);
+            for (int j = 0; j < count; j++) {
+                solutions.add(new LinearSystemSolution(new Vector(x.getColumnArray(j))));
+            }
+            return solutions;
+        }
+
+        //  E * B for the whole block at once, then each column is read off the reduced form
+        Matrix transformed = Matrix.createZeroMatrix(numEquations, count);
+        Operator.multiplyAdd(1, new Matrix(numEquations, numEquations, transform), rightHandSides, 0, transformed);
+        for (int j = 0; j < count; j++) {
+            solutions.add(readSolution(transformed.getColumnArray(j), rightHandSides.getColumnArray(j)));
+        }
+        return solutions;
+    }
+
+    private LinearSystemSolution solve(double[] b) {
+        if (decomposition != null) return new LinearSystemSolution(new Vector(decomposition.solve(b)));
+
+        double[] c = new double[numEquations];
+        for (int i = 0; i < numEquations; i++) {
+            double sum = 0;
+            int row = i * numEquations;
+            for (int j = 0; j < numEquations; j++) {
+                sum += transform[row + j] * b[j];
+            }
+            c[i] = sum;
+        }
+        return readSolution(c, b);
+    }
+
+    //  c = E * b, the constants column of the reduced system
+    private LinearSystemSolution readSolution(double[] c, double[] b) {
+        //  the rows of rref(A) past the rank are zero, so their constants must be too
+        double scale = 1;
+        for (double entry : b) {
+            scale = max(scale, abs(entry));
+        }
+        for (int i = rank; i < numEquations; i++) {
+            if (abs(c[i]) > RowReducer.PIVOT_TOLERANCE * scale) return new LinearSystemSolution();
+        }
+
+        double[] value = new double[numUnknowns];
+        for (int i = 0; i < rank; i++) {
+            value[pivotColumns[i]] = c[i];
+        }
+        if (rank == numUnknowns) return new LinearSystemSolution(new Vector(value));
+        return new LinearSystemSolution(new Vector(value), nullSpace);
+    }
+
+    //  one basis vector for each arbitrary unknown, found from rref(A)
+    private VectorSet findNullSpace() {
+        List<Vector> basis = new ArrayList<>();
+        int pivot = 0;
+        for (int column = 0; column < numUnknowns; column++) {
+            if (pivot < rank && pivotColumns[pivot] == column) {
+                pivot++;
+                continue;
+            }
+            double[] basisVector = new double[numUnknowns];
+            basisVector[column] = 1;
+            for (int i = 0; i < pivot; i++) {
+                double entry = reduced[i * numUnknowns + column];
+                if (entry != 0) basisVector[pivotColumns[i]] = -entry;
+            }
+            basis.add(new Vector(basisVector));
+        }
+        return new VectorSet(basis);
+    }
+}
@@ -9,7 +9,7 @@ public record LinearSystemSolution (SolutionType solutionType, Vector value, Vec
         When a linear system has infinitely many solutions, the solution is represented by taking any linear
         combination of a list of vectors
      */
-    enum SolutionType {
+    public enum SolutionType {
         SINGLE,
         INFINITE,
         NONE
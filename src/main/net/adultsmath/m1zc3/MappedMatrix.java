@@ -0,0 +1,28 @@
+package main.net.adultsmath.m1zc3;
+
+public class MappedMatrix extends OffHeapMatrix {
+    /*
+        A read-only OffHeapMatrix whose entries stay in a memory-mapped file, see MatrixFile.map()
+
+        Nothing is parsed or copied when the file is opened, the operating system reads a page the first time
+        one of its entries is used and can evict it again, so a matrix larger than the heap can be multiplied,
+        streamed into IncrementalQR or RandomizedSingularValueDecomposition, or copied out a block at a time
+        A column-major file is mapped as the transpose of its row-major storage
+        setEntry() and setRow() throw ReadOnlyBufferException, MatrixArena.copyOf() makes a writable copy
+     */
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    MappedMatrix(DoubleChunks storage, int storedRows, int storedColumns, boolean transposed) {
+        super(storage, storedRows, storedColumns, transposed, null);
+    }
+
+    //  the transpose, sharing the same mapping
+    @Override
+    public MappedMatrix getTranspose() {
+        return new MappedMatrix(getStorage(), getStoredRows(), getStoredColumns(), !isTransposed());
+    }
+}
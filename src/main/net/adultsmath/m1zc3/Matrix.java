@@ -1,17 +1,35 @@
 package main.net.adultsmath.m1zc3;
 
+import main.net.adultsmath.ComplexNumber;
+
 import java.util.*;
 
 import static java.lang.Math.*;
 
 
-public class Matrix {
+public class Matrix implements LinearOperator {
+    private static final int TRANSPOSE_TILE = 32;
+    //  pivots smaller than this, relative to the largest entry, are treated as zero, as in LUDecomposition
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+
     //  the number of rows in the matrix
     private final int numRows;
     //  the number of columns in the matrix
     private final int numColumns;
-    //  each row is represented by its corresponding vector
-    private final List<Vector> entries;
+    //  every entry in one flat array, entry (r, c) lives at offset + r * rowStride + c * columnStride
+    //  a matrix built from scratch is compact and row-major, views share the array of the matrix they look into
+    private final double[] data;
+    //  the index of entry (0, 0) in data
+    private final int offset;
+    //  the distance in data between the starts of two consecutive rows
+    private final int rowStride;
+    //  the distance in data between two consecutive entries of a row, 1 except in transposed views
+    private final int columnStride;
+    //  a count of the in-place changes to data, shared by every matrix that looks into the same array
+    private final int[] modifications;
+    //  the structure as of modification count structureVersion, computed on demand
+    private MatrixStructure structure;
+    private int structureVersion;
 
 
     // --------------------------------------------------------------------------------------
@@ -21,71 +39,81 @@ public class Matrix {
     public Matrix(double[][] inputs) {
         numRows = inputs.length;
         numColumns = inputs[0].length;
-        entries = new ArrayList<>();
-        for (double[] row : inputs) {
-            Vector v = new Vector(row);
-            if (v.getSize() == numColumns) {
-                entries.add(v);
-            } else {
-                entries.add(v.getTruncated(numColumns));
-            }
+        data = new double[numRows * numColumns];
+        offset = 0;
+        rowStride = numColumns;
+        columnStride = 1;
+        modifications = new int[1];
+        for (int i = 0; i < numRows; i++) {
+            //  rows that are too short are padded with zeroes, rows that are too long are truncated
+            System.arraycopy(inputs[i], 0, data, i * numColumns, min(inputs[i].length, numColumns));
         }
     }
 
     public Matrix(Vector... vectors) {
-        numRows = vectors.length;
-        numColumns = vectors[0].getSize();
-        entries = new ArrayList<>();
-        for (Vector v : vectors) {
-            if (v.getSize() == numColumns) {
-                entries.add(v);
-            } else {
-                entries.add(v.getTruncated(numColumns));
-            }
-        }
+        this(Arrays.asList(vectors));
     }
 
     public Matrix(List<Vector> vectors) {
         numRows = vectors.size();
         numColumns = vectors.get(0).getSize();
-        entries = new ArrayList<>();
-        for (Vector v : vectors) {
-            if (v.getSize() == numColumns) {
-                entries.add(v);
-            } else {
-                entries.add(v.getTruncated(numColumns));
+        data = new double[numRows * numColumns];
+        offset = 0;
+        rowStride = numColumns;
+        columnStride = 1;
+        modifications = new int[1];
+        for (int i = 0; i < numRows; i++) {
+            Vector v = vectors.get(i);
+            int length = min(v.getSize(), numColumns);
+            for (int j = 0; j < length; j++) {
+                data[i * numColumns + j] = v.getComps(j);
             }
         }
     }
 
+    //  wrap an existing array without copying it
+    Matrix(int numRows, int numColumns, double[] data, int offset, int rowStride, int columnStride) {
+        this(numRows, numColumns, data, offset, rowStride, columnStride, new int[1]);
+    }
+
+    //  a view, which learns about changes made through the matrix it looks into and the other way round
+    private Matrix(int numRows, int numColumns, double[] data, int offset, int rowStride, int columnStride,
+                   int[] modifications) {
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.data = data;
+        this.offset = offset;
+        this.rowStride = rowStride;
+        this.columnStride = columnStride;
+        this.modifications = modifications;
+    }
+
+    //  wrap an existing row-major array without copying it
+    Matrix(int numRows, int numColumns, double[] data, int offset, int rowStride) {
+        this(numRows, numColumns, data, offset, rowStride, 1);
+    }
+
+    //  wrap a compact row-major array without copying it
+    Matrix(int numRows, int numColumns, double[] data) {
+        this(numRows, numColumns, data, 0, numColumns);
+    }
+
     public static Matrix createZeroMatrix(int rows, int columns) {
         if (rows <= 0)
             throw new InvalidMatrixSizeException("Cannot create a zero matrix with less than 1 row");
         if (columns <= 0)
             throw new InvalidMatrixSizeException("Cannot create a zero matrix with less than 1 column");
-        double[][] entries = new double[rows][columns];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < columns; j++) {
-                entries[i][j] = 0;
-            }
-        }
-        return new Matrix(entries);
+        return new Matrix(rows, columns, new double[rows * columns]);
     }
 
     public static Matrix createIdentityMatrix(int size) {
         if (size <= 0)
             throw new InvalidMatrixSizeException("Cannot create an identity matrix of size 0 or less");
-        double[][] matrix = new double[size][size];
+        double[] identity = new double[size * size];
         for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (i == j) {
-                    matrix[i][j] = 1;
-                } else {
-                    matrix[i][j] = 0;
-                }
-            }
+            identity[i * size + i] = 1;
         }
-        return new Matrix(matrix);
+        return new Matrix(size, size, identity);
     }
 
     public static Matrix createFromColumnVectors(List<Vector> vectors) {
@@ -93,37 +121,149 @@ public class Matrix {
     }
 
     public List<Vector> getEntries() {
-        return entries;
+        List<Vector> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(getRow(i));
+        }
+        return rows;
     }
 
+    @Override
     public int getNumRows() {
         return numRows;
     }
 
+    @Override
     public int getNumColumns() {
         return numColumns;
     }
 
     public double getEntry(int row, int column) {
-        return entries.get(row).getComps(column);
+        if (row < 0 || row >= numRows || column < 0 || column >= numColumns)
+            throw new IndexOutOfBoundsException("Entry (" + row + ", " + column + ") does not exist");
+        return data[index(row, column)];
     }
 
     public Vector getRow(int r) {
-        return entries.get(r);
+        return new Vector(getRowArray(r));
     }
 
     public Vector getColumn(int c) {
-        List<Double> column = new ArrayList<>();
-        for (int i = 0; i < this.getNumRows(); i++) {
-            column.add(this.getEntry(i, c));
+        return new Vector(getColumnArray(c));
+    }
+
+    public double[] getRowArray(int r) {
+        checkRow(r);
+        double[] row = new double[numColumns];
+        copyRowInto(r, 0, numColumns, row, 0);
+        return row;
+    }
+
+    public double[] getColumnArray(int c) {
+        checkColumn(c);
+        double[] column = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            column[i] = data[index(i, c)];
         }
-        return new Vector(column);
+        return column;
+    }
+
+    //  copy every entry into a new compact row-major array
+    public double[] toArray() {
+        double[] array = new double[numRows * numColumns];
+        for (int i = 0; i < numRows; i++) {
+            copyRowInto(i, 0, numColumns, array, i * numColumns);
+        }
+        return array;
+    }
+
+    public double[][] to2DArray() {
+        double[][] array = new double[numRows][];
+        for (int i = 0; i < numRows; i++) {
+            array[i] = getRowArray(i);
+        }
+        return array;
+    }
+
+    public Matrix createCopy() {
+        return new Matrix(numRows, numColumns, toArray());
     }
 
     public List<Integer> getDimensions() {
         return Arrays.asList(numRows, numColumns);
     }
 
+    //  the backing storage, shared with package classes so kernels can run on it directly
+    double[] getData() {
+        return data;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getRowStride() {
+        return rowStride;
+    }
+
+    int getColumnStride() {
+        return columnStride;
+    }
+
+    //  true when the entries of each row are next to each other in the backing array,
+    //  which is what kernels that copy or scan whole rows at once need
+    boolean hasContiguousRows() {
+        return columnStride == 1;
+    }
+
+    //  the position of entry (r, c) in the backing array
+    int index(int r, int c) {
+        return offset + r * rowStride + c * columnStride;
+    }
+
+    //  copy columns [columnStart, columnEnd) of row r into target from targetStart on
+    void copyRowInto(int r, int columnStart, int columnEnd, double[] target, int targetStart) {
+        int start = index(r, columnStart);
+        if (columnStride == 1) {
+            System.arraycopy(data, start, target, targetStart, columnEnd - columnStart);
+        } else {
+            for (int j = 0; j < columnEnd - columnStart; j++) {
+                target[targetStart + j] = data[start + j * columnStride];
+            }
+        }
+    }
+
+    void setEntry(int row, int column, double value) {
+        markModified();
+        data[index(row, column)] = value;
+    }
+
+    //  has to be called by anything that writes into data, so the cached structure is recomputed
+    void markModified() {
+        modifications[0]++;
+    }
+
+    //  the bandwidths, symmetry, sparsity and diagonal dominance, from one scan of the entries
+    //  that is reused until the entries of this matrix, or of a view sharing them, change
+    public MatrixStructure getStructure() {
+        MatrixStructure current = structure;
+        int version = modifications[0];
+        if (current == null || structureVersion != version) {
+            current = new MatrixStructure(this);
+            structure = current;
+            structureVersion = version;
+        }
+        return current;
+    }
+
+    private void checkRow(int r) {
+        if (r < 0 || r >= numRows) throw new NoSuchRowException("Row with index " + r + " does not exist");
+    }
+
+    private void checkColumn(int c) {
+        if (c < 0 || c >= numColumns) throw new IllegalArgumentException("The indicated column does not exist");
+    }
+
 
     public Vector getBottomRow() {
         return this.getRow(numRows - 1);
@@ -137,9 +277,66 @@ public class Matrix {
     // --------------------------------------------------------------------------------------
 
 
+    //  VIEWS
+    //  a view shares the backing array of this matrix, so making one copies nothing, and changes made
+    //  through it (getRowEchelonForm(), invertInPlace()) are changes to this matrix
+    //  views can be passed anywhere a Matrix is accepted
+
+    //  A^T, the same entries with the row and column strides swapped
+    public Matrix getTransposeView() {
+        return new Matrix(numColumns, numRows, data, offset, columnStride, rowStride, modifications);
+    }
+
+    //  rows [rowStart, rowEnd) and columns [columnStart, columnEnd)
+    public Matrix getSubmatrixView(int rowStart, int rowEnd, int columnStart, int columnEnd) {
+        if (rowStart < 0 || rowEnd > numRows || rowStart >= rowEnd
+                || columnStart < 0 || columnEnd > numColumns || columnStart >= columnEnd)
+            throw new IndexOutOfBoundsException("Rows [" + rowStart + ", " + rowEnd + ") and columns ["
+                    + columnStart + ", " + columnEnd + ") are not a block of a "
+                    + numRows + " x " + numColumns + " matrix");
+        return new Matrix(rowEnd - rowStart, columnEnd - columnStart, data, index(rowStart, columnStart),
+                rowStride, columnStride, modifications);
+    }
+
+    //  row r as a 1 x n matrix
+    public Matrix getRowView(int r) {
+        checkRow(r);
+        return getSubmatrixView(r, r + 1, 0, numColumns);
+    }
+
+    //  column c as an m x 1 matrix
+    public Matrix getColumnView(int c) {
+        checkColumn(c);
+        return getSubmatrixView(0, numRows, c, c + 1);
+    }
+
+    //  the matrix without row r and column c
+    //  the gaps cannot be described by an offset and strides, so unlike the views this is a copy,
+    //  made in a single pass of whole row segments
+    public Matrix getMinor(int r, int c) {
+        checkRow(r);
+        checkColumn(c);
+        if (numRows == 1 || numColumns == 1)
+            throw new InvalidMatrixSizeException("A minor of a single row or column matrix would be empty");
+        int columns = numColumns - 1;
+        double[] minor = new double[(numRows - 1) * columns];
+        for (int i = 0, target = 0; i < numRows; i++) {
+            if (i == r) continue;
+            copyRowInto(i, 0, c, minor, target);
+            copyRowInto(i, c + 1, numColumns, minor, target + c);
+            target += columns;
+        }
+        return new Matrix(numRows - 1, columns, minor);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
     public boolean hasLeadingOne(int r) {
-        Vector row = this.getRow(r);
-        for (double entry : row.getComps()) {
+        int start = index(r, 0);
+        for (int j = 0; j < numColumns; j++) {
+            double entry = data[start + j * columnStride];
             if (entry != 0) {
                 return entry == 1;
             }
@@ -162,26 +359,17 @@ public class Matrix {
             throw new InvalidDimensionsException("This row's length does not match the number of columns in the matrix");
         if (index < 0) throw new IllegalArgumentException("The index cannot be negative");
         else if (index > numRows) throw new IllegalArgumentException("The index cannot exceed the number of rows");
-        List<Vector> newEntries = new ArrayList<>();
-        boolean inserted = false;
-        for (int i = 0; i < numRows + 1; i++) {
-            if (i == index && !inserted) {
-                newEntries.add(row);
-                i--;
-                inserted = true;
-            } else {
-                try {
-                    newEntries.add(this.getRow(i));
-                } catch (IndexOutOfBoundsException e) {
-                    break;
-                }
-            }
+        double[] newData = new double[(numRows + 1) * numColumns];
+        for (int i = 0; i < index; i++) {
+            copyRowInto(i, 0, numColumns, newData, i * numColumns);
         }
-        return new Matrix(newEntries.toArray(new Vector[numRows + 1]));
-    }
-
-    private Matrix getWithAppendedRow(Vector row) {
-        return getWithInsertedRow(numRows, row);
+        for (int j = 0; j < numColumns; j++) {
+            newData[index * numColumns + j] = row.getComps(j);
+        }
+        for (int i = index; i < numRows; i++) {
+            copyRowInto(i, 0, numColumns, newData, (i + 1) * numColumns);
+        }
+        return new Matrix(numRows + 1, numColumns, newData);
     }
 
     private Matrix getWithInsertedColumn(int index, Vector column) {
@@ -195,14 +383,11 @@ public class Matrix {
     private Matrix getWithRemovedRow(int r) {
         if (r < numRows) {
             Matrix m = Matrix.createZeroMatrix(numRows - 1, numColumns);
-            int i = 0;
-            for (int j = 0; j < m.numRows; j++) {
-                if (i == r) {
-                    j--;
-                } else {
-                    m.entries.set(j, this.getRow(i));
+            for (int i = 0, j = 0; i < numRows; i++) {
+                if (i != r) {
+                    copyRowInto(i, 0, numColumns, m.data, m.index(j, 0));
+                    j++;
                 }
-                i++;
             }
             return m;
         } else {
@@ -214,74 +399,29 @@ public class Matrix {
         return this.getWithRemovedRow(this.numRows - 1);
     }
 
-    private Matrix getWithRemovedColumn(int c) {
-        if (c < numColumns) {
-            Matrix m = Matrix.createZeroMatrix(numRows, numColumns - 1);
-            for (int i = 0; i < numRows; i++) {
-                m.entries.set(i, this.getRow(i).getWithoutIndex(c));
-            }
-            return m;
-        } else {
-            throw new IllegalArgumentException("The indicated column does not exist");
-        }
-    }
-
 
     // --------------------------------------------------------------------------------------
 
 
     //  GAUSS-JORDAN ELIMINATION
     private void switchRows(int row1, int row2) {
-        Vector temp = this.getRow(row2);
-        entries.set(row2, entries.get(row1));
-        entries.set(row1, temp);
-    }
-
-    private void scalMultRow(double k, int row) {
-        entries.set(row, Operator.scalMult(k, getRow(row)));
-    }
-
-    private void addTwoRows(int targetRow, int sourceRow, double k) {
-        entries.set(targetRow,
-                Operator.add(Operator.scalMult(k, this.getRow(sourceRow))
-                        , this.getRow(targetRow)));
-    }
-
-    private void setLeadingNumOne(int row) {
-        for (int i = 0; i < numColumns; i++) {
-            if (abs(getEntry(row, i)) >= 1E-7) {
-                scalMultRow(1 / getEntry(row, i), row);
-                break;
-            }
-        }
-        roundEntriesToOneOrZero();
-    }
-
-    private void roundEntriesToOneOrZero() {
-        //  iterate through each row
-        for (int i = 0; i < numRows; i++) {
-            //  iterate through each entry in a row
-            for (int j = 0; j < numColumns; j++) {
-                double diffToZero = abs(getEntry(i, j));
-                double diffToOne = abs(getEntry(i, j) - 1);
-                //  is zero
-                if (diffToZero <= 1E-5) {
-                    entries.set(i, getRow(i).getReplace(j, 0));
-                }
-                //  is one
-                else if (diffToOne <= 1E-5) {
-                    entries.set(i, getRow(i).getReplace(j, 1));
-                }
-            }
+        if (row1 == row2) return;
+        markModified();
+        int start1 = index(row1, 0);
+        int start2 = index(row2, 0);
+        for (int j = 0; j < numColumns * columnStride; j += columnStride) {
+            double temp = data[start2 + j];
+            data[start2 + j] = data[start1 + j];
+            data[start1 + j] = temp;
         }
     }
 
     //  move all rows of 0's to the bottom of the matrix, also returns the number of zero rows
     private int sortZeroRows() {
         for (int i = 0; i < numRows; i++) {
-            if (this.getRow(i).isZero()) {
+            if (this.isZeroRow(i)) {
                 for (int j = numRows - 1; j > i; j--) {
-                    if (!this.getRow(j).isZero()) {
+                    if (!this.isZeroRow(j)) {
                         switchRows(i, j);
                         break;
                     }
@@ -292,13 +432,26 @@ public class Matrix {
         //  return the number of null rows
         int numNullRows = 0;
         for (int k = 0; k < numRows; k++) {
-            if (this.getRow(k).isZero()) {
+            if (this.isZeroRow(k)) {
                 numNullRows++;
             }
         }
         return numNullRows;
     }
 
+    //  check if the first numColumns entries of a row are all zero
+    private boolean isZeroRow(int r, int length) {
+        int start = index(r, 0);
+        for (int j = 0; j < length; j++) {
+            if (data[start + j * columnStride] != 0) return false;
+        }
+        return true;
+    }
+
+    private boolean isZeroRow(int r) {
+        return isZeroRow(r, numColumns);
+    }
+
     private int getPivotIndex(int r) {
         for (int i = 0; i < numColumns; i++) {
             if (getEntry(r, i) != 0) {
@@ -315,10 +468,9 @@ public class Matrix {
         int numNonNullRows = numRows - sortZeroRows();
 
         //  get an array of the indices of pivots in order of rows
-        //int[] pivotIndices = new int[numNonNullRows];
-        List<Integer> pivotIndices = new ArrayList<>();
+        int[] pivotIndices = new int[numNonNullRows];
         for (int i = 0; i < numNonNullRows; i++) {
-            pivotIndices.add(getPivotIndex(i));
+            pivotIndices[i] = getPivotIndex(i);
         }
 
         //  sort the rows using selection sort
@@ -327,154 +479,90 @@ public class Matrix {
             //  find the minimum in the remaining elements
             int minI = i;
             for (int j = i + 1; j < numNonNullRows; j++) {
-                if (pivotIndices.get(j) < pivotIndices.get(minI)) {
+                if (pivotIndices[j] < pivotIndices[minI]) {
                     //  set a new minimum
                     minI = j;
                 }
             }
             //  swap the current entry with the min
             //  swapping in the array
-            int temp = pivotIndices.get(i);
-            pivotIndices.set(i, pivotIndices.get(minI));
-            pivotIndices.set(minI, temp);
+            int temp = pivotIndices[i];
+            pivotIndices[i] = pivotIndices[minI];
+            pivotIndices[minI] = temp;
 
             //  swapping the rows
             switchRows(i, minI);
         }
     }
 
+    //  both forms are computed in place, so this matrix is reduced as well
     public Matrix getRowEchelonForm() {
-        Matrix m = this;
-        m.sort();
-
-        //  get leading 1's in cascading pattern
-        //  iterate through the rows top to bottom
-        for (int i = 0; i < m.numRows; i++) {
-
-            if (!m.getRow(i).isZero()) {
-                //  get leading 0's
-                //  iterate through the rows from the top and stop before reaching the ith row
-                for (int j = 0; j < i; j++) {
-
-                    double constant = m.getEntry(i, j);
-                    m.addTwoRows(i, j, -constant);
-
-                }
-            }
-
-            //  get a leading 1
-            m.setLeadingNumOne(i);
-        }
-
-        m.sort();
-        return m;
+        new RowReducer(this).reduce(false);
+        return this;
     }
 
     public Matrix getReducedRowEchelonForm() {
-        //  get to REF
-        Matrix m = this.getRowEchelonForm();
-//        System.out.println("After reduceREF:\n" + m);
-
-        //  get 0's in the same column as leading 1's
-        int smallestDimension = min(m.numRows, m.numColumns);
-        for (int i = 0; i < m.numRows; i++) {
-
-//            System.out.println("i = " + i);
-            for (int j = i + 1; j < smallestDimension; j++) {
-                if (!this.getRow(i).isZero()) {
-//                    System.out.println("j = " + j);
-//                    System.out.println("Before add:\n" + m);
-                    double constant = m.getEntry(i, j);
-                    boolean targetIsNull = m.getRow(i).isZero();
-                    boolean sourceIsNull = m.getRow(j).isZero();
-                    boolean shouldAdd = !targetIsNull && !sourceIsNull && !(constant == 0);
-                    if (shouldAdd) {
-                        m.addTwoRows(i, j, -constant);
-                    }
-//                    System.out.println("After add:\n" + m);
-                }
-            }
-        }
-        return m;
+        new RowReducer(this).reduce(true);
+        return this;
     }
 
     //  solve the linear system represented by the augmented matrix
     public LinearSystemSolution getSolution() {
 
-        Matrix reduced = this.getReducedRowEchelonForm();
-
-        //  add or remove some zero rows so that there is one more column than there are rows
-        int rowsMissing = this.getNumColumns() - 1 - this.getNumRows();
-        if (rowsMissing > 0) {
-            for (int i = 0; i < rowsMissing; i++) {
-                reduced = reduced.getWithAppendedRow(Vector.createZeroVector(this.getNumColumns()));
-            }
-        } else if (rowsMissing < 0) {
-            for (int i = 0; i < -rowsMissing; i++) {
-                if (reduced.getBottomRow().isZero()) reduced = reduced.getWithRemovedBottomRow();
-                else return new LinearSystemSolution();
-            }
+        //  a square, non-singular coefficient matrix has a single solution, found by LU in O(n^3)
+        if (numColumns == numRows + 1) {
+            MatrixDecomposition decomposition = getSubmatrixView(0, numRows, 0, numRows).getDecomposition();
+            if (!decomposition.isSingular())
+                return new LinearSystemSolution(decomposition.solve(getColumn(numColumns - 1)));
         }
 
-        if (!reduced.isConsistent()) return new LinearSystemSolution();
+        RowReducer reducer = new RowReducer(this);
+        reducer.reduce(true);
+        int rank = reducer.getRank();
+        int numUnknowns = numColumns - 1;
 
-//        System.out.println("Reduced matrix: \n" + reduced);
+        //  a pivot in the constants column means a row 0 = c with c nonzero
+        if (rank > 0 && reducer.getPivotColumn(rank - 1) == numUnknowns) return new LinearSystemSolution();
 
-
-        //  see if there is a single solution
-        int numPivots = 0;
-        for (Vector row : this.getEntries()) {
-            if (!row.isZero()) numPivots++;
+        //  the pivot unknowns are given by the constants column, the others are arbitrary and set to 0
+        double[] value = new double[numUnknowns];
+        for (int i = 0; i < rank; i++) {
+            value[reducer.getPivotColumn(i)] = data[index(i, numUnknowns)];
         }
-        int numUnknowns = reduced.getNumColumns() - 1;
-        if (numPivots == numUnknowns)
-            return new LinearSystemSolution(reduced.getRightMostColumn().getTruncated(numPivots));
+        if (rank == numUnknowns) return new LinearSystemSolution(new Vector(value));
 
-        //  infinite solutions ---> find the vector space
-        //  find the indices of unknowns that are explicitly defined
-        List<Integer> explicitlyDefinedIndices = new ArrayList<>();
-        for (int i = 0; i < reduced.getNumRows(); i++) {
-            if (reduced.isExplicitlyDefined(i)) explicitlyDefinedIndices.add(reduced.getPivotIndex(i));
-        }
-        //  find the indices of unknowns that are defined based on other unknowns
-        List<Integer> implicitlyDefinedIndices = new ArrayList<>();
-        for (int i = 0; i < reduced.getNumRows(); i++) {
-            if (!reduced.getRow(i).isZero() && !reduced.isExplicitlyDefined(i))
-                implicitlyDefinedIndices.add(reduced.getPivotIndex(i));
-        }
-        //  find the unknowns that are arbitrary
-        List<Integer> arbitraryUnknownIndices = new ArrayList<>();
-        for (int i = 0; i < reduced.getNumColumns() - 1; i++) {
-            if (!explicitlyDefinedIndices.contains(i) && !implicitlyDefinedIndices.contains(i))
-                arbitraryUnknownIndices.add(i);
-        }
-//        System.out.println("Explicit: " + explicitlyDefinedIndices);
-//        System.out.println("Implicit: " + implicitlyDefinedIndices);
-//        System.out.println("Arbitrary: " + arbitraryUnknownIndices);
-
-        //  get the explicit values of the solution
-        Vector solutionValue = reduced.getRightMostColumn().getTruncated(numUnknowns);
-
-        //  get the basis
-        List<Double> comps;
+        //  infinite solutions ---> one basis vector for each arbitrary unknown
         List<Vector> solutionBasis = new ArrayList<>();
-        //  iterate through each column except for the last one
-        for (int i = 0; i < reduced.getNumColumns() - 1; i++) {
-            //  if the unknown represented by the column is arbitrary
-            if (arbitraryUnknownIndices.contains(i)) {
-                comps = new ArrayList<>();
-                //  iterate down the column
-                for (int j = 0; j < numUnknowns; j++) {
-//                    System.out.println("Value at (" + i + ", " + j + "): " + reduced.getValue(j, i));
-                    if (j == i) comps.add(1.0);
-                    else if (reduced.getEntry(j, i) != 0) comps.add(-reduced.getEntry(j, i));
-                    else comps.add(0.0);
-                }
-                solutionBasis.add(new Vector(comps));
+        int pivot = 0;
+        for (int column = 0; column < numUnknowns; column++) {
+            if (pivot < rank && reducer.getPivotColumn(pivot) == column) {
+                pivot++;
+                continue;
+            }
+            double[] basisVector = new double[numUnknowns];
+            basisVector[column] = 1;
+            for (int i = 0; i < pivot; i++) {
+                double entry = data[index(i, column)];
+                if (entry != 0) basisVector[reducer.getPivotColumn(i)] = -entry;
             }
+            solutionBasis.add(new Vector(basisVector));
         }
 
-        return new LinearSystemSolution(solutionValue, new VectorSet(solutionBasis));
+        return new LinearSystemSolution(new Vector(value), new VectorSet(solutionBasis));
+    }
+
+    //  the x minimizing ||A * x - b|| for the augmented matrix [A | b], for systems with more equations than unknowns
+    //  the rows are folded into a QR factorization one block at a time, rank deficient A falls back to pivoted QR
+    public LinearSystemSolution getLeastSquaresSolution() {
+        int numUnknowns = numColumns - 1;
+        if (numUnknowns < 1) throw new InvalidDimensionsException("There has to be at least 1 unknown");
+        if (numRows >= numUnknowns) {
+            IncrementalQR qr = new IncrementalQR(numUnknowns);
+            qr.addRows(this);
+            if (qr.isFullRank()) return new LinearSystemSolution(qr.solve());
+        }
+        Matrix coefficients = getSubmatrixView(0, numRows, 0, numUnknowns);
+        return coefficients.getQRDecomposition(true).getLeastSquaresSolution(getColumn(numUnknowns));
     }
 
 
@@ -487,69 +575,48 @@ public class Matrix {
     }
 
     public boolean isUpperTriangular() {
-        if (isSquare()) {
-            for (int i = 0; i < numRows; i++) {
-                for (int j = 0; j < numColumns; j++) {
-                    if (i > j && getEntry(i, j) != 0) {
-                        return false;
-                    }
-                }
-            }
-        } else {
-            return false;
-        }
-        return true;
+        return getStructure().isUpperTriangular();
     }
 
     public boolean isLowerTriangular() {
-        if (isSquare()) {
-            for (int i = 0; i < numRows; i++) {
-                for (int j = 0; j < numColumns; j++) {
-                    if (i < j && getEntry(i, j) != 0) {
-                        return false;
-                    }
-                }
-            }
-        } else {
-            return false;
-        }
-        return true;
+        return getStructure().isLowerTriangular();
     }
 
     public boolean isDiagonal() {
-        return isUpperTriangular() && isLowerTriangular();
+        return getStructure().isDiagonal();
     }
+
     public boolean isIdentity() {
-        if (isDiagonal()) {
-            for (int i = 0; i < numRows; i++) {
-                if (getEntry(i, i) != 1) {
-                    return false;
-                }
-            }
-        } else {
-            return false;
-        }
-        return true;
+        return getStructure().isIdentity();
     }
 
+    //  with the same tolerance as equals
     public boolean isSymmetric() {
-        if (isSquare()) {
-            Matrix m = this.getTransposeMatrix();
-            return this.equals(m);
-        } else {
-            return false;
-        }
+        return getStructure().isSymmetric();
+    }
+
+    //  the number of diagonals below the main one that hold nonzero entries
+    public int getLowerBandwidth() {
+        return getStructure().getLowerBandwidth();
+    }
+
+    //  the number of diagonals above the main one that hold nonzero entries
+    public int getUpperBandwidth() {
+        return getStructure().getUpperBandwidth();
+    }
+
+    public boolean isTridiagonal() {
+        return getStructure().isTridiagonal();
     }
 
     public boolean isInvertible() {
-        return isSquare() && getDeterminant() != 0;
+        return isSquare() && !getDecomposition().isSingular();
     }
 
     //  test if linear system is consistent
     public boolean isConsistent() {
-        for (Vector row : this.getEntries()) {
-            if (row.getWithoutIndex(numColumns - 1).isZero()
-                    && abs(row.getComps(numColumns - 1)) > 1E-7)
+        for (int i = 0; i < numRows; i++) {
+            if (isZeroRow(i, numColumns - 1) && abs(getEntry(i, numColumns - 1)) > 1E-7)
                 return false;
         }
         return true;
@@ -570,12 +637,26 @@ public class Matrix {
 
     //  transpose
     public Matrix getTransposeMatrix() {
-        Matrix newMatrix = Matrix.createZeroMatrix(this.numColumns, this.numRows);
-        for (int i = 0; i < this.numColumns; i++) {
-            //System.out.println(a.getColumn(i).display());
-            newMatrix.entries.set(i, this.getColumn(i));
+        double[] transposed = new double[numRows * numColumns];
+        transposeRowsInto(0, numRows, transposed);
+        return new Matrix(numColumns, numRows, transposed);
+    }
+
+    //  write rows [rowStart, rowEnd) into their columns of a compact row-major transpose
+    //  in square tiles, so both the reads and the writes stay within a few cache lines
+    void transposeRowsInto(int rowStart, int rowEnd, double[] transposed) {
+        for (int i0 = rowStart; i0 < rowEnd; i0 += TRANSPOSE_TILE) {
+            int i1 = min(i0 + TRANSPOSE_TILE, rowEnd);
+            for (int j0 = 0; j0 < numColumns; j0 += TRANSPOSE_TILE) {
+                int j1 = min(j0 + TRANSPOSE_TILE, numColumns);
+                for (int i = i0; i < i1; i++) {
+                    int start = index(i, 0);
+                    for (int j = j0; j < j1; j++) {
+                        transposed[j * numRows + i] = data[start + j * columnStride];
+                    }
+                }
+            }
         }
-        return newMatrix;
     }
 
     //  get the trace
@@ -615,8 +696,7 @@ public class Matrix {
         else if (r > numRows || c > numColumns)
             throw new IllegalArgumentException("The indicated row or column does not exist");
         else {
-            Matrix m = this.getWithRemovedRow(r).getWithRemovedColumn(c);
-            return m.getDeterminant();
+            return getMinor(r, c).getDeterminant();
         }
     }
 
@@ -632,17 +712,101 @@ public class Matrix {
             } else if (numRows == 2 && numColumns == 2) {
                 return getDet2X2();
             } else {
-                //  cofactor expansion along first row
+                return getDecomposition().getDeterminant();
+            }
+        } else throw new InvalidDimensionsException("Cannot get the determinant of a non-square matrix");
+    }
+
+    //  the determinant by cofactor expansion along the first row, O(n!) so only for small matrices
+    //  it avoids the rounding of elimination, so integer matrices give exact integer determinants
+    public double getCofactorDeterminant() {
+        if (isSquare()) {
+            if (numRows == 1 && numColumns == 1) {
+                return getEntry(0, 0);
+            } else if (numRows == 2 && numColumns == 2) {
+                return getDet2X2();
+            } else {
                 double determinant = 0;
                 for (int i = 0; i < numColumns; i++) {
-                    //System.out.println(entries[0].comps[i] + " x " + minor(0,i) + " x " + pow(-1, i));
-                    determinant += getEntry(0, i) * getCofactor(0, i);
+                    if (getEntry(0, i) == 0) continue;
+                    determinant += getEntry(0, i) * pow(-1, i) * getMinor(0, i).getCofactorDeterminant();
                 }
                 return determinant;
             }
         } else throw new InvalidDimensionsException("Cannot get the determinant of a non-square matrix");
     }
 
+    //  P * A = L * U, reusable for the determinant, inverse and solving
+    public LUDecomposition getLUDecomposition() {
+        return new LUDecomposition(this);
+    }
+
+    //  LU computed in float and refined to double accuracy, faster for large well-conditioned matrices
+    public MixedPrecisionLUDecomposition getMixedPrecisionLUDecomposition() {
+        return new MixedPrecisionLUDecomposition(this);
+    }
+
+    //  A = L * L^T, only for symmetric positive-definite matrices
+    public CholeskyDecomposition getCholeskyDecomposition() {
+        return new CholeskyDecomposition(this);
+    }
+
+    //  the cheapest factorization the cached structure allows, which the determinant, the inverse
+    //  and the solutions all go through:
+    //  a triangular matrix is its own factorization, a narrow band goes to banded LU,
+    //  a large sparse matrix that is diagonally dominant or symmetric positive-definite to sparse LU
+    //  unless it fills in too much, otherwise Cholesky when this matrix is symmetric positive-definite, LU when the cheap checks
+    //  or the sparse or Cholesky factorization itself fails
+    public MatrixDecomposition getDecomposition() {
+        MatrixStructure structure = getStructure();
+        if (structure.isSquare()) {
+            if (structure.isTriangular()) return new TriangularDecomposition(this);
+            int lower = structure.getLowerBandwidth();
+            int upper = structure.getUpperBandwidth();
+            if (BandedMatrix.isNarrow(numRows, lower, upper))
+                return BandedMatrix.fromMatrix(this, lower, upper).getDecomposition();
+            if (SparseLUDecomposition.isCandidate(structure)) {
+                SparseLUDecomposition sparse = SparseLUDecomposition.factorIfSparse(SparseMatrix.fromMatrix(this));
+                if (sparse != null && (structure.isDiagonallyDominant() || sparse.hasPositivePivots())) return sparse;
+            }
+        }
+        if (CholeskyDecomposition.isCandidate(this)) {
+            CholeskyDecomposition cholesky = getCholeskyDecomposition();
+            if (cholesky.isPositiveDefinite()) return cholesky;
+        }
+        return getLUDecomposition();
+    }
+
+    //  y = A * x
+    @Override
+    public void apply(double[] x, double[] y) {
+        if (x.length != numColumns || y.length != numRows)
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        for (int i = 0; i < numRows; i++) {
+            int row = index(i, 0);
+            double sum = 0;
+            for (int j = 0; j < numColumns; j++) {
+                sum += data[row + j * columnStride] * x[j];
+            }
+            y[i] = sum;
+        }
+    }
+
+    //  A = Q * R by Householder reflections
+    public QRDecomposition getQRDecomposition() {
+        return new QRDecomposition(this);
+    }
+
+    //  A * P = Q * R, the column permutation P puts the diagonal of R in decreasing order to reveal the rank
+    public QRDecomposition getQRDecomposition(boolean columnPivoting) {
+        return new QRDecomposition(this, columnPivoting);
+    }
+
+    //  factor this coefficient matrix once to solve it against many right-hand sides
+    public LinearSolver getLinearSolver() {
+        return new LinearSolver(this);
+    }
+
 
     // --------------------------------------------------------------------------------------
 
@@ -651,22 +815,85 @@ public class Matrix {
     //  adjoint
     public Matrix getAdjoint() {
         if (isSquare()) {
+            //  adj(A) = det(A) * A^-1 whenever the inverse exists
+            MatrixDecomposition decomposition = getDecomposition();
+            if (!decomposition.isSingular())
+                return Operator.scalMult(decomposition.getDeterminant(), decomposition.getInverse());
             Matrix m = Matrix.createZeroMatrix(numRows, numColumns);
             for (int i = 0; i < numRows; i++) {
                 for (int j = 0; j < numColumns; j++) {
-                    m.entries.set(i, m.getRow(i).getReplace(j, getCofactor(i, j)));
+                    m.setEntry(i, j, getCofactor(i, j));
                 }
             }
             return m.getTransposeMatrix();
         } else throw new InvalidDimensionsException("Cannot get the adjoint of a non-square matrix");
     }
 
-    //  inverse
+    //  inverse from one LU factorization
+    //  callers that already hold the factorization should use MatrixDecomposition.getInverse() instead
     public Matrix getInverse() {
-        if (isInvertible()) {
-            double k = 1 / getDeterminant();
-            return Operator.scalMult(k, getAdjoint());
-        } else throw new NotInvertibleException("This matrix is not invertible");
+        if (isSquare()) {
+            MatrixDecomposition decomposition = getDecomposition();
+            if (!decomposition.isSingular()) return decomposition.getInverse();
+        }
+        throw new NotInvertibleException("This matrix is not invertible");
+    }
+
+    //  replace this matrix by its inverse using Gauss-Jordan elimination with partial pivoting
+    //  no new matrix is allocated, if the matrix turns out to be singular its entries are left partially reduced
+    public void invertInPlace() {
+        if (!isSquare()) throw new NotInvertibleException("This matrix is not invertible");
+        markModified();
+        int size = numRows;
+        double largestEntry = 0;
+        for (int i = 0; i < size; i++) {
+            int row = index(i, 0);
+            for (int j = 0; j < size; j++) {
+                largestEntry = max(largestEntry, abs(data[row + j * columnStride]));
+            }
+        }
+        //  the pivots are those of LUDecomposition, so both agree on which matrices are singular
+        double tolerance = SINGULARITY_TOLERANCE * largestEntry;
+
+        int[] swaps = new int[size];
+        for (int k = 0; k < size; k++) {
+            int p = k;
+            for (int i = k + 1; i < size; i++) {
+                if (abs(data[index(i, k)]) > abs(data[index(p, k)])) p = i;
+            }
+            if (!(abs(data[index(p, k)]) > tolerance)) throw new NotInvertibleException("This matrix is not invertible");
+            swaps[k] = p;
+            switchRows(p, k);
+
+            //  the pivot column is replaced by the matching column of the inverse as it is eliminated
+            int pivotRow = index(k, 0);
+            double pivotInverse = 1 / data[pivotRow + k * columnStride];
+            data[pivotRow + k * columnStride] = 1;
+            for (int j = 0; j < size; j++) {
+                data[pivotRow + j * columnStride] *= pivotInverse;
+            }
+            for (int i = 0; i < size; i++) {
+                if (i == k) continue;
+                int row = index(i, 0);
+                double factor = data[row + k * columnStride];
+                if (factor == 0) continue;
+                data[row + k * columnStride] = 0;
+                for (int j = 0; j < size; j++) {
+                    data[row + j * columnStride] -= factor * data[pivotRow + j * columnStride];
+                }
+            }
+        }
+
+        //  row swaps of A become column swaps of A^-1, undone in reverse order
+        for (int k = size - 1; k >= 0; k--) {
+            if (swaps[k] == k) continue;
+            for (int i = 0; i < size; i++) {
+                int row = index(i, 0);
+                double temp = data[row + k * columnStride];
+                data[row + k * columnStride] = data[row + swaps[k] * columnStride];
+                data[row + swaps[k] * columnStride] = temp;
+            }
+        }
     }
 
 
@@ -693,14 +920,64 @@ public class Matrix {
                     "Cannot get the lambda * I - A polynomial matrix of a non-square matrix");
     }
 
-    //  find the eigenvalues by solving for the
-    //  roots of the characteristic polynomial, det(lambda * I - A)
+    //  the real eigenvalues with their multiplicities
+    //  up to 4 x 4 they are the roots of the characteristic polynomial, det(lambda * I - A), in closed form,
+    //  larger matrices go through the numeric QR algorithm
     public PolynomialRoots getEigenValues() {
+        if (numRows > 4 && isSquare()) return getEigenvalueSolver().getRealEigenvalues();
         return getLambdaIMinusAMatrix().det().getRoots();
     }
 
+    //  every eigenvalue, complex ones included, of a square matrix of any size
+    public ComplexNumber[] getComplexEigenValues() {
+        return getEigenvalueSolver().getEigenvalues();
+    }
+
+    //  Hessenberg reduction followed by the shifted QR algorithm, O(n^3)
+    public EigenvalueSolver getEigenvalueSolver() {
+        return new EigenvalueSolver(this);
+    }
+
+    //  every eigenpair of a symmetric matrix, with orthonormal eigenvectors
+    public SymmetricEigenDecomposition getSymmetricEigenDecomposition() {
+        return new SymmetricEigenDecomposition(this);
+    }
+
+    //  A = U * S * V^T, with U m x min(m, n) and V n x min(m, n)
+    public SingularValueDecomposition getSingularValueDecomposition() {
+        return new SingularValueDecomposition(this);
+    }
+
+    //  the full SVD has U m x m and V n x n
+    public SingularValueDecomposition getSingularValueDecomposition(boolean economy) {
+        return new SingularValueDecomposition(this, economy);
+    }
+
+    //  the singular values in decreasing order, without the cost of the singular vectors
+    public double[] getSingularValues() {
+        return SingularValueDecomposition.getSingularValues(this);
+    }
+
+    //  the numerical rank, the number of singular values that are not negligible
+    public int getRank() {
+        return SingularValueDecomposition.getRank(getSingularValues(), numRows, numColumns);
+    }
+
+    //  the 2-norm condition number, the ratio of the largest to the smallest singular value,
+    //  infinite for a matrix without full rank
+    public double getConditionNumber() {
+        return SingularValueDecomposition.getConditionNumber(getSingularValues(), numRows, numColumns);
+    }
+
+    //  the Moore-Penrose pseudo-inverse, n x m
+    public Matrix getPseudoInverse() {
+        return getSingularValueDecomposition().getPseudoInverse();
+    }
+
     //  return a matrix of eigenvectors and a diagonal matrix of eigenvalues in corresponding columns
+    //  symmetric matrices are always diagonalizable, by an orthonormal P found without the characteristic polynomial
     public MatrixDiagonalized getDiagonalized() {
+        if (getStructure().isSymmetricToRounding()) return getSymmetricEigenDecomposition().toMatrixDiagonalized();
         PolynomialRoots eigenvalues = getEigenValues();
 
         Map<VectorSet, Double> eigenMap = new HashMap<>();
@@ -729,22 +1006,17 @@ public class Matrix {
     //  display matrix as a String
     @Override
     public String toString() {
-        String display = "";
+        StringBuilder display = new StringBuilder();
         for (int i = 0; i < numRows; i++) {
-            display += "[";
+            if (i > 0) display.append('\n');
+            display.append('[');
             for (int j = 0; j < numColumns; j++) {
-                if (j + 1 == numColumns) {
-                    if (i + 1 == numRows) {
-                        display += getEntry(i, j) + "]";
-                    } else {
-                        display += getEntry(i, j) + "]\n";
-                    }
-                } else {
-                    display += getEntry(i, j) + " ";
-                }
+                if (j > 0) display.append(' ');
+                display.append(getEntry(i, j));
             }
+            display.append(']');
         }
-        return display;
+        return display.toString();
     }
 
     @Override
@@ -753,7 +1025,9 @@ public class Matrix {
         if (obj instanceof Matrix matrix) {
             if (this.getDimensions().equals(matrix.getDimensions())) {
                 for (int i = 0; i < this.numRows; i++) {
-                    if (!this.getRow(i).equals(matrix.getRow(i))) return false;
+                    for (int j = 0; j < this.numColumns; j++) {
+                        if (abs(this.getEntry(i, j) - matrix.getEntry(i, j)) > 1E-7) return false;
+                    }
                 }
                 return true;
             }
@@ -764,7 +1038,7 @@ public class Matrix {
 
     @Override
     public int hashCode() {
-        return Objects.hash(numRows, numColumns, entries);
+        return Objects.hash(numRows, numColumns, Arrays.hashCode(toArray()));
     }
 
 
@@ -0,0 +1,88 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MatrixArena implements AutoCloseable {
+    /*
+        Owns the memory of the OffHeapMatrix objects allocated through it, and frees all of it at once on close()
+
+            try (MatrixArena arena = new MatrixArena()) {
+                OffHeapMatrix a = arena.allocate(3_000_000, 1_000);
+                ...
+            }
+
+        The memory is direct memory, outside the heap, so the garbage collector neither scans nor moves it
+        and it is returned as soon as the arena is closed rather than whenever a collection gets to it
+        Direct memory is limited by -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+        A matrix of a closed arena throws IllegalStateException when used, close() must not be called
+        while another thread is still using one of its matrices
+     */
+    private final List<DoubleChunks> allocations = new ArrayList<>();
+    private long numEntries;
+    private boolean closed;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public MatrixArena() {}
+
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    //  the entries of every matrix allocated so far, 8 bytes each
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    void checkOpen() {
+        if (closed) throw new IllegalStateException("The arena of this matrix has been closed");
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  a rows x columns zero matrix, with up to 2^31 - 1 rows and columns whatever their product
+    public OffHeapMatrix allocate(int rows, int columns) {
+        checkOpen();
+        if (rows < 0 || columns < 0) throw new InvalidDimensionsException("Dimensions cannot be negative");
+        DoubleChunks storage = DoubleChunks.allocate((long) rows * columns);
+        allocations.add(storage);
+        numEntries += storage.getSize();
+        return new OffHeapMatrix(storage, rows, columns, false, this);
+    }
+
+    public OffHeapMatrix copyOf(Matrix m) {
+        OffHeapMatrix copy = allocate(m.getNumRows(), m.getNumColumns());
+        double[] row = new double[m.getNumColumns()];
+        for (int i = 0; i < m.getNumRows(); i++) {
+            m.copyRowInto(i, 0, m.getNumColumns(), row, 0);
+            copy.setRow(i, row);
+        }
+        return copy;
+    }
+
+    //  a copy in this arena, for instance of a MappedMatrix to have it all in memory
+    //  the storage is copied as it is, so a transposed matrix stays a transposed view of its copy
+    public OffHeapMatrix copyOf(OffHeapMatrix m) {
+        OffHeapMatrix copy = allocate(m.getStoredRows(), m.getStoredColumns());
+        m.getStorage().copyInto(copy.getStorage());
+        return m.isTransposed() ? copy.getTranspose() : copy;
+    }
+
+    //  free the memory of every matrix allocated here, closing twice does nothing
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        for (DoubleChunks storage : allocations) {
+            storage.free();
+        }
+        allocations.clear();
+        numEntries = 0;
+    }
+}
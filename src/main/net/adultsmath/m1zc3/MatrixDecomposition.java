@@ -0,0 +1,23 @@
+package main.net.adultsmath.m1zc3;
+
+public interface MatrixDecomposition {
+    /*
+        A factorization of a square matrix A that can be reused for its determinant,
+        its inverse and for solving A * x = b against any number of right-hand sides
+     */
+    int getSize();
+
+    boolean isSingular();
+
+    double getDeterminant();
+
+    //  solve A * x = b
+    double[] solve(double[] b);
+
+    Vector solve(Vector b);
+
+    //  solve A * X = B, one column of X for each column of B
+    Matrix solve(Matrix b);
+
+    Matrix getInverse();
+}
@@ -76,7 +76,7 @@ public class MatrixDiagonalized {
     }
 
     public Matrix matrixD() {
-        return this.toPD().get(0);
+        return this.toPD().get(1);
     }
 
     public boolean contains(VectorSet eigenvector, double eigenvalue) {
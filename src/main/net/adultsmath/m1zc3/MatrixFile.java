@@ -0,0 +1,328 @@
+package main.net.adultsmath.m1zc3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.Math.min;
+
+public final class MatrixFile {
+    /*
+        A binary file format for a Matrix or a Vector, a fixed header followed by the raw entries
+
+        The header is 32 little-endian bytes:
+            0   the magic bytes "M1ZC"
+            4   the format version, 1
+            5   the data type, see DataType
+            6   the layout, see Layout
+            7   reserved, 0
+            8   the number of rows, 8 bytes
+            16  the number of columns, 8 bytes
+            24  reserved, 0
+        and the entries follow from byte 32 on, little-endian, with no padding between rows or columns
+        A Vector is stored as a single column, a FloatMatrix as FLOAT32 entries at half the size
+
+        readMatrix() copies the entries into a Matrix with a few bulk reads and nothing to parse,
+        map() maps the file into memory as a MappedMatrix, so nothing is read before it is touched
+     */
+    public static final int HEADER_SIZE = 32;
+    private static final byte[] MAGIC = {'M', '1', 'Z', 'C'};
+    private static final byte VERSION = 1;
+    //  entries are written and read through a direct buffer of this many bytes
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private MatrixFile() {}
+
+    public enum DataType {
+        FLOAT64((byte) 1, Double.BYTES),
+        FLOAT32((byte) 2, Float.BYTES);
+
+        private final byte code;
+        private final int bytes;
+
+        DataType(byte code, int bytes) {
+            this.code = code;
+            this.bytes = bytes;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    //  ROW_MAJOR stores row 0 first, COLUMN_MAJOR stores column 0 first
+    public enum Layout {
+        ROW_MAJOR((byte) 0),
+        COLUMN_MAJOR((byte) 1);
+
+        private final byte code;
+
+        Layout(byte code) {
+            this.code = code;
+        }
+    }
+
+    public record Header(long numRows, long numColumns, Layout layout, DataType dataType) {
+        public long getNumEntries() {
+            return numRows * numColumns;
+        }
+
+        //  the size of the whole file
+        public long getFileSize() {
+            return HEADER_SIZE + getNumEntries() * dataType.getBytes();
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  WRITING
+    //  a matrix stored column by column, such as a transposed view, is written column-major as it is
+    public static void write(Matrix m, Path path) throws IOException {
+        boolean columnMajor = m.getColumnStride() != 1 && m.getRowStride() == 1;
+        Matrix rows = columnMajor ? m.getTransposeView() : m;
+        Header header = new Header(m.getNumRows(), m.getNumColumns(),
+                columnMajor ? Layout.COLUMN_MAJOR : Layout.ROW_MAJOR, DataType.FLOAT64);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel, header);
+            int columns = rows.getNumColumns();
+            double[] entries = new double[BUFFER_SIZE / Double.BYTES];
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int count = 0;
+            for (int i = 0; i < rows.getNumRows(); i++) {
+                //  a row longer than the buffer goes out in several pieces
+                for (int j = 0; j < columns; ) {
+                    int length = min(columns - j, entries.length - count);
+                    rows.copyRowInto(i, j, j + length, entries, count);
+                    count += length;
+                    j += length;
+                    if (count == entries.length) {
+                        writeEntries(channel, bytes, entries, count);
+                        count = 0;
+                    }
+                }
+            }
+            writeEntries(channel, bytes, entries, count);
+        }
+    }
+
+    public static void write(Vector v, Path path) throws IOException {
+        write(new Matrix(v.getSize(), 1, v.toArray()), path);
+    }
+
+    public static void write(FloatMatrix m, Path path) throws IOException {
+        Header header = new Header(m.getNumRows(), m.getNumColumns(), Layout.ROW_MAJOR, DataType.FLOAT32);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(channel, header);
+            float[] data = m.getData();
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int start = 0; start < data.length; start += BUFFER_SIZE / Float.BYTES) {
+                int length = min(data.length - start, BUFFER_SIZE / Float.BYTES);
+                bytes.clear();
+                bytes.asFloatBuffer().put(data, start, length);
+                bytes.limit(length * Float.BYTES);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, Header header) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.put(MAGIC).put(VERSION).put(header.dataType().code).put(header.layout().code).put((byte) 0)
+                .putLong(header.numRows()).putLong(header.numColumns()).putLong(0);
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    private static void writeEntries(FileChannel channel, ByteBuffer bytes, double[] entries, int count)
+            throws IOException {
+        bytes.clear();
+        bytes.asDoubleBuffer().put(entries, 0, count);
+        bytes.limit(count * Double.BYTES);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  READING
+    public static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, bytes.position()) < 0) throw new InvalidFormatException("The header is cut short");
+        }
+        bytes.flip();
+        for (byte magic : MAGIC) {
+            if (bytes.get() != magic) throw new InvalidFormatException("This is not a matrix file");
+        }
+        byte version = bytes.get();
+        if (version != VERSION) throw new InvalidFormatException("Unknown format version " + version);
+        byte dataTypeCode = bytes.get();
+        byte layoutCode = bytes.get();
+        bytes.get();
+        long numRows = bytes.getLong();
+        long numColumns = bytes.getLong();
+
+        DataType dataType = null;
+        for (DataType type : DataType.values()) {
+            if (type.code == dataTypeCode) dataType = type;
+        }
+        if (dataType == null) throw new InvalidFormatException("Unknown data type " + dataTypeCode);
+        Layout layout = null;
+        for (Layout candidate : Layout.values()) {
+            if (candidate.code == layoutCode) layout = candidate;
+        }
+        if (layout == null) throw new InvalidFormatException("Unknown layout " + layoutCode);
+        if (numRows < 0 || numColumns < 0 || (numColumns > 0 && numRows > Long.MAX_VALUE / numColumns / 8))
+            throw new InvalidFormatException("Invalid dimensions " + numRows + " x " + numColumns);
+
+        Header header = new Header(numRows, numColumns, layout, dataType);
+        if (channel.size() < header.getFileSize())
+            throw new InvalidFormatException("The file is shorter than its header says");
+        return header;
+    }
+
+    //  the whole matrix copied into memory, a column-major file becomes a column-major Matrix without a transpose
+    //  FLOAT32 entries are widened to double, which is exact
+    public static Matrix readMatrix(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            return readMatrix(channel, header);
+        }
+    }
+
+    private static Matrix readMatrix(FileChannel channel, Header header) throws IOException {
+        int rows = toInt(header.numRows());
+        int columns = toInt(header.numColumns());
+        double[] data = new double[toInt(header.getNumEntries())];
+        int entryBytes = header.dataType().getBytes();
+        ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_SIZE;
+        for (int start = 0; start < data.length; ) {
+            int length = min(data.length - start, BUFFER_SIZE / entryBytes);
+            position = readFully(channel, bytes, position, length * entryBytes);
+            if (header.dataType() == DataType.FLOAT32) {
+                FloatBuffer floats = bytes.asFloatBuffer();
+                for (int k = 0; k < length; k++) {
+                    data[start + k] = floats.get(k);
+                }
+            } else {
+                bytes.asDoubleBuffer().get(data, start, length);
+            }
+            start += length;
+        }
+        return header.layout() == Layout.COLUMN_MAJOR
+                ? new Matrix(rows, columns, data, 0, 1, rows)
+                : new Matrix(rows, columns, data);
+    }
+
+    //  a FLOAT32 file as it is, or a FLOAT64 one with its entries rounded to floats
+    public static FloatMatrix readFloatMatrix(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header.dataType() != DataType.FLOAT32 || header.layout() != Layout.ROW_MAJOR)
+                return new FloatMatrix(readMatrix(channel, header));
+            float[] data = new float[toInt(header.getNumEntries())];
+            ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            long position = HEADER_SIZE;
+            for (int start = 0; start < data.length; ) {
+                int length = min(data.length - start, BUFFER_SIZE / Float.BYTES);
+                position = readFully(channel, bytes, position, length * Float.BYTES);
+                bytes.asFloatBuffer().get(data, start, length);
+                start += length;
+            }
+            return new FloatMatrix(toInt(header.numRows()), toInt(header.numColumns()), data);
+        }
+    }
+
+    //  fill bytes with the next length bytes from position on, flipped for reading, and return where they end
+    private static long readFully(FileChannel channel, ByteBuffer bytes, long position, int length)
+            throws IOException {
+        bytes.clear().limit(length);
+        while (bytes.hasRemaining()) {
+            int read = channel.read(bytes, position);
+            if (read < 0) throw new InvalidFormatException("The file is shorter than its header says");
+            position += read;
+        }
+        bytes.flip();
+        return position;
+    }
+
+    //  a file of a single row or a single column
+    public static Vector readVector(Path path) throws IOException {
+        Matrix m = readMatrix(path);
+        if (m.getNumColumns() != 1 && m.getNumRows() != 1)
+            throw new InvalidDimensionsException("A " + m.getDimensions() + " matrix is not a vector");
+        return new Vector(m.toArray());
+    }
+
+    //  the file mapped read-only into memory, pages are only read from disk when their entries are first used
+    //  and can be dropped again by the operating system, so the matrix can be larger than the heap
+    //  the mapping stays valid until the MappedMatrix is garbage collected, the file must not be changed meanwhile
+    public static MappedMatrix map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header.dataType() != DataType.FLOAT64)
+                throw new InvalidFormatException("Only a FLOAT64 file can be mapped as a matrix");
+            boolean columnMajor = header.layout() == Layout.COLUMN_MAJOR;
+            int storedRows = toInt(columnMajor ? header.numColumns() : header.numRows());
+            int storedColumns = toInt(columnMajor ? header.numRows() : header.numColumns());
+            //  a single mapping is limited to 2^31 bytes, so larger files are mapped in chunks
+            DoubleChunks storage = DoubleChunks.map(channel, HEADER_SIZE, header.getNumEntries(),
+                    ByteOrder.LITTLE_ENDIAN);
+            return new MappedMatrix(storage, storedRows, storedColumns, columnMajor);
+        }
+    }
+
+    //  the rows of a row-major file streamed through a ChannelRowSource, without mapping the file
+    public static ChannelRowSource openRowSource(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            Header header = readHeader(channel);
+            if (header.layout() != Layout.ROW_MAJOR || header.dataType() != DataType.FLOAT64)
+                throw new InvalidFormatException("Only a row-major FLOAT64 file can be read row by row");
+            channel.position(HEADER_SIZE);
+            return new ChannelRowSource(channel, toInt(header.numColumns()), ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int toInt(long size) {
+        if (size > Integer.MAX_VALUE)
+            throw new InvalidDimensionsException(size + " is too large for a Java array");
+        return (int) size;
+    }
+
+
+    public static class InvalidFormatException extends RuntimeException {
+        public InvalidFormatException() {
+            super();
+        }
+
+        public InvalidFormatException(String message) {
+            super(message);
+        }
+    }
+}
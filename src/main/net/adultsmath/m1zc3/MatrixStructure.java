@@ -0,0 +1,188 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public final class MatrixStructure {
+    /*
+        What a single scan of a matrix reveals about its shape, for picking the cheapest algorithm
+
+        The bandwidths give triangularity, diagonality and how narrow the band is, the nonzero count
+        gives the density, and the diagonal is compared with the rest of each row for dominance
+        Symmetry is checked during the same scan, in two ways: against the absolute tolerance of Matrix.equals,
+        which says nothing about a matrix of very small or very large entries, and by keeping the largest
+        mismatch over every mirrored pair to compare with the largest entry once the scan is done
+        A Matrix computes this at most once between changes to its entries, see Matrix.getStructure()
+     */
+    //  matrices with at most this fraction of nonzero entries count as sparse
+    static final double SPARSE_DENSITY = 0.1;
+    //  mirrored entries further apart than this make a matrix not symmetric, the tolerance of Matrix.equals
+    static final double SYMMETRY_TOLERANCE = 1E-7;
+    //  mirrored entries further apart than this, relative to the largest entry, make a matrix not symmetric
+    //  for the algorithms that only read one of its triangles
+    static final double RELATIVE_SYMMETRY_TOLERANCE = 1E-12;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int lowerBandwidth;
+    private final int upperBandwidth;
+    private final long numNonzeros;
+    private final boolean symmetric;
+    private final boolean symmetricToRounding;
+    private final boolean unitDiagonal;
+    private final boolean positiveDiagonal;
+    private final boolean diagonallyDominant;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    MatrixStructure(Matrix m) {
+        numRows = m.getNumRows();
+        numColumns = m.getNumColumns();
+        double[] data = m.getData();
+        int step = m.getColumnStride();
+        boolean square = numRows == numColumns;
+
+        int lower = 0;
+        int upper = 0;
+        long nonzeros = 0;
+        double largestEntry = 0;
+        double largestMismatch = 0;
+        boolean isSymmetric = square;
+        boolean isUnitDiagonal = square;
+        boolean isPositiveDiagonal = square;
+        boolean isDiagonallyDominant = square;
+        for (int i = 0; i < numRows; i++) {
+            int row = m.index(i, 0);
+            double offDiagonal = 0;
+            for (int j = 0; j < numColumns; j++) {
+                double entry = data[row + j * step];
+                if (entry == 0) continue;
+                nonzeros++;
+                largestEntry = max(largestEntry, abs(entry));
+                if (i > j) {
+                    lower = max(lower, i - j);
+                    offDiagonal += abs(entry);
+                } else if (i < j) {
+                    upper = max(upper, j - i);
+                    offDiagonal += abs(entry);
+                }
+            }
+            if (square) {
+                for (int j = i + 1; j < numColumns; j++) {
+                    double mismatch = abs(data[row + j * step] - data[m.index(j, i)]);
+                    if (mismatch > SYMMETRY_TOLERANCE) isSymmetric = false;
+                    largestMismatch = max(largestMismatch, mismatch);
+                }
+            }
+            if (square) {
+                double diagonal = data[row + i * step];
+                if (diagonal != 1) isUnitDiagonal = false;
+                if (!(diagonal > 0)) isPositiveDiagonal = false;
+                if (!(abs(diagonal) > offDiagonal)) isDiagonallyDominant = false;
+            }
+        }
+        lowerBandwidth = lower;
+        upperBandwidth = upper;
+        numNonzeros = nonzeros;
+        symmetric = isSymmetric;
+        symmetricToRounding = square && largestMismatch <= RELATIVE_SYMMETRY_TOLERANCE * largestEntry;
+        unitDiagonal = isUnitDiagonal;
+        positiveDiagonal = isPositiveDiagonal;
+        diagonallyDominant = isDiagonallyDominant;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    //  the number of diagonals below the main one that hold nonzero entries
+    public int getLowerBandwidth() {
+        return lowerBandwidth;
+    }
+
+    //  the number of diagonals above the main one that hold nonzero entries
+    public int getUpperBandwidth() {
+        return upperBandwidth;
+    }
+
+    public long getNumNonzeros() {
+        return numNonzeros;
+    }
+
+    //  the fraction of entries that are not 0
+    public double getDensity() {
+        return (double) numNonzeros / ((long) numRows * numColumns);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  BOOLEANS
+    public boolean isSquare() {
+        return numRows == numColumns;
+    }
+
+    public boolean isUpperTriangular() {
+        return isSquare() && lowerBandwidth == 0;
+    }
+
+    public boolean isLowerTriangular() {
+        return isSquare() && upperBandwidth == 0;
+    }
+
+    public boolean isTriangular() {
+        return isUpperTriangular() || isLowerTriangular();
+    }
+
+    public boolean isDiagonal() {
+        return isUpperTriangular() && isLowerTriangular();
+    }
+
+    public boolean isIdentity() {
+        return isDiagonal() && unitDiagonal;
+    }
+
+    public boolean isTridiagonal() {
+        return isSquare() && lowerBandwidth <= 1 && upperBandwidth <= 1;
+    }
+
+    //  equal to its transpose as Matrix.equals compares them, to within 1E-7
+    public boolean isSymmetric() {
+        return symmetric;
+    }
+
+    //  symmetric to within rounding relative to the size of the entries, whatever their scale
+    //  what Cholesky and the symmetric eigensolver need, since they read only one triangle
+    public boolean isSymmetricToRounding() {
+        return symmetricToRounding;
+    }
+
+    //  every diagonal entry is positive, which a symmetric positive-definite matrix needs
+    public boolean hasPositiveDiagonal() {
+        return positiveDiagonal;
+    }
+
+    //  strictly diagonally dominant by rows, |a_ii| > sum of |a_ij| over j != i for every row
+    //  such a matrix is invertible and Gaussian elimination on it needs no pivoting
+    public boolean isDiagonallyDominant() {
+        return diagonallyDominant;
+    }
+
+    public boolean isSparse() {
+        return getDensity() <= SPARSE_DENSITY;
+    }
+
+    @Override
+    public String toString() {
+        return numRows + " x " + numColumns + ", bandwidths " + lowerBandwidth + " and " + upperBandwidth
+                + ", " + numNonzeros + " nonzeros" + (symmetric ? ", symmetric" : "")
+                + (diagonallyDominant ? ", diagonally dominant" : "");
+    }
+}
@@ -0,0 +1,233 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.min;
+
+final class MultiplyKernel {
+    /*
+        C = alpha * A * B + beta * C on storage given as (array, offset, row stride, column stride),
+        entry (i, j) of A being a[aOffset + i * aStride + j * aColumnStride], so views work as they are
+
+        The loops follow the usual GEMM blocking:
+            B is copied KC rows by NC columns at a time into panels NR columns wide (stays in L2/L3)
+            A is copied MC rows by KC columns at a time into panels MR rows tall (stays in L2)
+            each MR x NR block of C is accumulated in local variables by the micro-kernel (registers)
+        Packing makes every access in the micro-kernel sequential, edges are padded with zeroes
+     */
+    private static final int MR = 4;
+    private static final int NR = 4;
+    private static final int MC = 128;
+    private static final int KC = 256;
+    private static final int NC = 2048;
+    //  below this many multiply-adds the packing costs more than it saves
+    private static final int SMALL_PRODUCT = 32 * 32 * 32;
+
+    private MultiplyKernel() {}
+
+    static void gemm(int m, int n, int k, double alpha,
+                     double[] a, int aOffset, int aStride, int aColumnStride,
+                     double[] b, int bOffset, int bStride, int bColumnStride,
+                     double beta, double[] c, int cOffset, int cStride, int cColumnStride) {
+        scale(m, n, beta, c, cOffset, cStride, cColumnStride);
+        if (alpha == 0 || k == 0) return;
+
+        if (isSmall(m, n, k)) {
+            gemmSmall(m, n, k, alpha, a, aOffset, aStride, aColumnStride, b, bOffset, bStride, bColumnStride,
+                    c, cOffset, cStride, cColumnStride);
+        } else {
+            gemmPacked(m, n, k, alpha, a, aOffset, aStride, aColumnStride, b, bOffset, bStride, bColumnStride,
+                    c, cOffset, cStride, cColumnStride);
+        }
+    }
+
+    static boolean isSmall(int m, int n, int k) {
+        return (long) m * n * k <= SMALL_PRODUCT;
+    }
+
+    //  C += alpha * A * B through the packed kernel
+    //  every entry of C is summed in the same order however the rows of C are split between calls
+    static void gemmPacked(int m, int n, int k, double alpha,
+                           double[] a, int aOffset, int aStride, int aColumnStride,
+                           double[] b, int bOffset, int bStride, int bColumnStride,
+                           double[] c, int cOffset, int cStride, int cColumnStride) {
+        double[] aPack = new double[roundUp(min(MC, m), MR) * min(KC, k)];
+        double[] bPack = new double[roundUp(min(NC, n), NR) * min(KC, k)];
+        double[] edge = new double[MR * NR];
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = min(KC, k - pc);
+                packB(kc, nc, b, bOffset + pc * bStride + jc * bColumnStride, bStride, bColumnStride, bPack);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = min(MC, m - ic);
+                    packA(mc, kc, alpha, a, aOffset + ic * aStride + pc * aColumnStride, aStride, aColumnStride, aPack);
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = min(NR, nc - jr);
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = min(MR, mc - ir);
+                            microKernel(kc, aPack, ir * kc, bPack, jr * kc,
+                                    c, cOffset + (ic + ir) * cStride + (jc + jr) * cColumnStride,
+                                    cStride, cColumnStride, mr, nr, edge);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    //  C = beta * C, beta = 0 clears C even if it held NaN
+    static void scale(int m, int n, double beta, double[] c, int cOffset, int cStride, int cColumnStride) {
+        if (beta == 1) return;
+        for (int i = 0; i < m; i++) {
+            int row = cOffset + i * cStride;
+            for (int j = row; j < row + n * cColumnStride; j += cColumnStride) {
+                c[j] = beta == 0 ? 0 : beta * c[j];
+            }
+        }
+    }
+
+    //  plain i-k-j loops for products too small to be worth packing
+    static void gemmSmall(int m, int n, int k, double alpha,
+                          double[] a, int aOffset, int aStride, int aColumnStride,
+                          double[] b, int bOffset, int bStride, int bColumnStride,
+                          double[] c, int cOffset, int cStride, int cColumnStride) {
+        for (int i = 0; i < m; i++) {
+            int aRow = aOffset + i * aStride;
+            int cRow = cOffset + i * cStride;
+            for (int p = 0; p < k; p++) {
+                double aip = alpha * a[aRow + p * aColumnStride];
+                int bRow = bOffset + p * bStride;
+                for (int j = 0; j < n; j++) {
+                    c[cRow + j * cColumnStride] += aip * b[bRow + j * bColumnStride];
+                }
+            }
+        }
+    }
+
+    //  copy mc x kc of A, multiplied by alpha, into panels of MR rows stored column by column
+    private static void packA(int mc, int kc, double alpha, double[] a, int aOffset, int aStride, int aColumnStride,
+                              double[] aPack) {
+        for (int ir = 0; ir < mc; ir += MR) {
+            int mr = min(MR, mc - ir);
+            int panel = ir * kc;
+            for (int i = 0; i < MR; i++) {
+                if (i < mr) {
+                    int row = aOffset + (ir + i) * aStride;
+                    for (int p = 0; p < kc; p++) {
+                        aPack[panel + p * MR + i] = alpha * a[row + p * aColumnStride];
+                    }
+                } else {
+                    for (int p = 0; p < kc; p++) {
+                        aPack[panel + p * MR + i] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    //  copy kc x nc of B into panels of NR columns stored row by row
+    private static void packB(int kc, int nc, double[] b, int bOffset, int bStride, int bColumnStride,
+                              double[] bPack) {
+        for (int jr = 0; jr < nc; jr += NR) {
+            int nr = min(NR, nc - jr);
+            int panel = jr * kc;
+            for (int p = 0; p < kc; p++) {
+                int row = bOffset + p * bStride + jr * bColumnStride;
+                int packed = panel + p * NR;
+                for (int j = 0; j < NR; j++) {
+                    bPack[packed + j] = j < nr ? b[row + j * bColumnStride] : 0;
+                }
+            }
+        }
+    }
+
+    //  C[0:mr, 0:nr] += A panel * B panel, with the 4 x 4 block of C held in locals
+    private static void microKernel(int kc, double[] aPack, int aIndex, double[] bPack, int bIndex,
+                                    double[] c, int cIndex, int cStride, int cColumnStride,
+                                    int mr, int nr, double[] edge) {
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        for (int p = 0; p < kc; p++) {
+            double a0 = aPack[aIndex];
+            double a1 = aPack[aIndex + 1];
+            double a2 = aPack[aIndex + 2];
+            double a3 = aPack[aIndex + 3];
+            double b0 = bPack[bIndex];
+            double b1 = bPack[bIndex + 1];
+            double b2 = bPack[bIndex + 2];
+            double b3 = bPack[bIndex + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            aIndex += MR;
+            bIndex += NR;
+        }
+
+        if (mr == MR && nr == NR) {
+            int c1 = cColumnStride;
+            int c2 = c1 + cColumnStride;
+            int c3 = c2 + cColumnStride;
+            int r0 = cIndex;
+            int r1 = r0 + cStride;
+            int r2 = r1 + cStride;
+            int r3 = r2 + cStride;
+            c[r0] += c00;
+            c[r0 + c1] += c01;
+            c[r0 + c2] += c02;
+            c[r0 + c3] += c03;
+            c[r1] += c10;
+            c[r1 + c1] += c11;
+            c[r1 + c2] += c12;
+            c[r1 + c3] += c13;
+            c[r2] += c20;
+            c[r2 + c1] += c21;
+            c[r2 + c2] += c22;
+            c[r2 + c3] += c23;
+            c[r3] += c30;
+            c[r3 + c1] += c31;
+            c[r3 + c2] += c32;
+            c[r3 + c3] += c33;
+        } else {
+            //  partial block on the bottom or right edge of C
+            edge[0] = c00;
+            edge[1] = c01;
+            edge[2] = c02;
+            edge[3] = c03;
+            edge[4] = c10;
+            edge[5] = c11;
+            edge[6] = c12;
+            edge[7] = c13;
+            edge[8] = c20;
+            edge[9] = c21;
+            edge[10] = c22;
+            edge[11] = c23;
+            edge[12] = c30;
+            edge[13] = c31;
+            edge[14] = c32;
+            edge[15] = c33;
+            for (int i = 0; i < mr; i++) {
+                for (int j = 0; j < nr; j++) {
+                    c[cIndex + i * cStride + j * cColumnStride] += edge[i * NR + j];
+                }
+            }
+        }
+    }
+
+    private static int roundUp(int value, int multiple) {
+        return (value + multiple - 1) / multiple * multiple;
+    }
+}
@@ -0,0 +1,249 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+public class OffHeapMatrix implements LinearOperator, RowSource {
+    /*
+        A dense matrix whose entries live outside the Java heap, allocated by a MatrixArena or mapped
+        from a file by MatrixFile.map()
+
+        Entries are indexed with longs, so only the number of rows and of columns has to fit in an int,
+        and none of them is ever boxed or seen by the garbage collector
+        It plugs into the rest of the package through the interfaces the large-matrix algorithms already use:
+            a LinearOperator for the iterative solvers and eigen solvers (multiply, solve)
+            a RowSource for IncrementalQR (least squares) and RandomizedSingularValueDecomposition
+            multiply(Matrix, MatrixArena) for products with a matrix that fits on the heap
+            getSubmatrix() and toMatrix() to copy a block, or a small enough matrix, into a Matrix
+
+        The entries are stored as storedRows rows of storedColumns entries, getTranspose() only flips
+        which way they are read, products and copies go through the storage front to back in either case
+        Reading rows as a RowSource is the only thing with state, the rest can be used from several threads
+     */
+    //  multiply(Matrix, MatrixArena) takes about this many entries of A at a time onto the heap
+    private static final int PRODUCT_BLOCK_ENTRIES = 1 << 18;
+
+    private final DoubleChunks storage;
+    private final int storedRows;
+    private final int storedColumns;
+    //  whether entry (r, c) is entry (c, r) of the storage
+    private final boolean transposed;
+    //  the arena that owns the storage, null for a mapped file
+    private final MatrixArena arena;
+    //  the next row read as a RowSource
+    private int cursor;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    OffHeapMatrix(DoubleChunks storage, int storedRows, int storedColumns, boolean transposed, MatrixArena arena) {
+        this.storage = storage;
+        this.storedRows = storedRows;
+        this.storedColumns = storedColumns;
+        this.transposed = transposed;
+        this.arena = arena;
+    }
+
+    @Override
+    public int getNumRows() {
+        return transposed ? storedColumns : storedRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return transposed ? storedRows : storedColumns;
+    }
+
+    public long getNumEntries() {
+        return (long) storedRows * storedColumns;
+    }
+
+    public boolean isSquare() {
+        return storedRows == storedColumns;
+    }
+
+    DoubleChunks getStorage() {
+        return storage;
+    }
+
+    int getStoredRows() {
+        return storedRows;
+    }
+
+    int getStoredColumns() {
+        return storedColumns;
+    }
+
+    boolean isTransposed() {
+        return transposed;
+    }
+
+    //  the position of entry (row, column) in the storage
+    private long index(int row, int column) {
+        checkOpen();
+        if (row < 0 || row >= getNumRows() || column < 0 || column >= getNumColumns())
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the matrix");
+        return transposed ? (long) column * storedColumns + row : (long) row * storedColumns + column;
+    }
+
+    public double getEntry(int row, int column) {
+        return storage.get(index(row, column));
+    }
+
+    public void setEntry(int row, int column, double value) {
+        storage.set(index(row, column), value);
+    }
+
+    //  overwrite a row with values
+    public void setRow(int row, double[] values) {
+        if (values.length != getNumColumns())
+            throw new InvalidDimensionsException("The row does not match the number of columns");
+        long start = index(row, 0);
+        if (transposed) {
+            for (int j = 0; j < values.length; j++) {
+                storage.set(start + (long) j * storedColumns, values[j]);
+            }
+        } else {
+            storage.copyFrom(values, 0, start, values.length);
+        }
+    }
+
+    //  the transpose, sharing the same storage
+    public OffHeapMatrix getTranspose() {
+        return new OffHeapMatrix(storage, storedRows, storedColumns, !transposed, arena);
+    }
+
+    private void checkOpen() {
+        if (arena != null) arena.checkOpen();
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  COPIES
+    //  the whole matrix on the heap, which needs it to have fewer than 2^31 entries
+    public Matrix toMatrix() {
+        checkOpen();
+        if (getNumEntries() > Integer.MAX_VALUE)
+            throw new InvalidDimensionsException("A " + getNumRows() + " x " + getNumColumns()
+                    + " matrix is too large to be copied into a Matrix");
+        double[] data = new double[(int) getNumEntries()];
+        storage.copyTo(0, data, 0, data.length);
+        return transposed
+                ? new Matrix(storedColumns, storedRows, data, 0, 1, storedColumns)
+                : new Matrix(storedRows, storedColumns, data);
+    }
+
+    //  rows [rowStart, rowEnd) and columns [columnStart, columnEnd) copied into a Matrix
+    public Matrix getSubmatrix(int rowStart, int rowEnd, int columnStart, int columnEnd) {
+        checkOpen();
+        if (rowStart < 0 || rowEnd > getNumRows() || rowStart > rowEnd
+                || columnStart < 0 || columnEnd > getNumColumns() || columnStart > columnEnd)
+            throw new IndexOutOfBoundsException("The submatrix is not inside the matrix");
+        int rows = rowEnd - rowStart;
+        int columns = columnEnd - columnStart;
+        double[] data = new double[rows * columns];
+        if (transposed) {
+            //  copy the block of the storage, which holds the submatrix column by column
+            for (int j = 0; j < columns; j++) {
+                storage.copyTo((long) (columnStart + j) * storedColumns + rowStart, data, j * rows, rows);
+            }
+            return new Matrix(rows, columns, data, 0, 1, rows);
+        }
+        for (int i = 0; i < rows; i++) {
+            storage.copyTo((long) (rowStart + i) * storedColumns + columnStart, data, i * columns, columns);
+        }
+        return new Matrix(rows, columns, data);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  PRODUCTS
+    //  y = A * x, y is overwritten
+    public void multiply(double[] x, double[] y) {
+        checkOpen();
+        if (x.length != getNumColumns() || y.length != getNumRows())
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        if (transposed) {
+            storage.multiplyTranspose(storedColumns, x, y);
+        } else {
+            storage.multiply(storedColumns, x, y);
+        }
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        multiply(x, y);
+    }
+
+    public Vector multiply(Vector x) {
+        double[] y = new double[getNumRows()];
+        multiply(x.toArray(), y);
+        return new Vector(y);
+    }
+
+    //  y = A^T * x, y is overwritten
+    public void multiplyTranspose(double[] x, double[] y) {
+        checkOpen();
+        if (x.length != getNumRows() || y.length != getNumColumns())
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        if (transposed) {
+            storage.multiply(storedColumns, x, y);
+        } else {
+            storage.multiplyTranspose(storedColumns, x, y);
+        }
+    }
+
+    //  A * B allocated in the given arena, B has to fit on the heap but A and the product do not
+    //  A is taken a block of rows at a time onto the heap and multiplied by the blocked kernel of Operator
+    public OffHeapMatrix multiply(Matrix b, MatrixArena target) {
+        checkOpen();
+        if (getNumColumns() != b.getNumRows())
+            throw new InvalidDimensionsException("Cannot multiply a " + getNumRows() + " x " + getNumColumns()
+                    + " matrix by a " + b.getNumRows() + " x " + b.getNumColumns() + " matrix");
+        OffHeapMatrix product = target.allocate(getNumRows(), b.getNumColumns());
+        int columns = b.getNumColumns();
+        int blockRows = max(1, PRODUCT_BLOCK_ENTRIES / max(1, max(getNumColumns(), columns)));
+        for (int i0 = 0; i0 < getNumRows(); i0 += blockRows) {
+            int i1 = min(i0 + blockRows, getNumRows());
+            Matrix block = Operator.multiply(getSubmatrix(i0, i1, 0, getNumColumns()), b);
+            product.storage.copyFrom(block.toArray(), 0, (long) i0 * columns, (i1 - i0) * columns);
+        }
+        return product;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  ROWS
+    @Override
+    public void rewind() {
+        cursor = 0;
+    }
+
+    //  rows are copied straight out of the storage, unless the matrix is transposed, when they are gathered
+    //  an entry at a time, so a transposed matrix is better read through getTranspose()
+    @Override
+    public int read(double[] buffer, int maxRows) {
+        checkOpen();
+        int rows = min(maxRows, getNumRows() - cursor);
+        int columns = getNumColumns();
+        if (transposed) {
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    buffer[i * columns + j] = storage.get((long) j * storedColumns + cursor + i);
+                }
+            }
+        } else {
+            storage.copyTo((long) cursor * columns, buffer, 0, rows * columns);
+        }
+        cursor += rows;
+        return rows;
+    }
+}
@@ -83,11 +83,22 @@ public class Operator {
     //  a + b
     public static Matrix add(Matrix a, Matrix b) {
         if (a.getNumRows() == b.getNumRows() && a.getNumColumns() == b.getNumColumns()) {
-            Vector[] newEntries = new Vector[a.getNumRows()];
-            for (int i = 0; i < a.getNumRows(); i++) {
-                newEntries[i] = add(a.getRow(i), b.getRow(i));
+            int rows = a.getNumRows();
+            int columns = a.getNumColumns();
+            double[] aData = a.getData();
+            double[] bData = b.getData();
+            double[] cData = new double[rows * columns];
+            int aStep = a.getColumnStride();
+            int bStep = b.getColumnStride();
+            for (int i = 0; i < rows; i++) {
+                int aStart = a.index(i, 0);
+                int bStart = b.index(i, 0);
+                int cStart = i * columns;
+                for (int j = 0; j < columns; j++) {
+                    cData[cStart + j] = aData[aStart + j * aStep] + bData[bStart + j * bStep];
+                }
             }
-            return new Matrix(newEntries);
+            return new Matrix(rows, columns, cData);
         } else {
             throw new InvalidDimensionsException("Cannot add matrices of different dimensions");
         }
@@ -100,28 +111,48 @@ public class Operator {
 
     //  k * a
     public static Matrix scalMult(double k, Matrix a) {
-        Vector[] newEntries = new Vector[a.getNumRows()];
-        for (int i = 0; i < a.getNumRows(); i++) {
-            newEntries[i] = scalMult(k, a.getRow(i));
+        int rows = a.getNumRows();
+        int columns = a.getNumColumns();
+        double[] aData = a.getData();
+        double[] bData = new double[rows * columns];
+        int aStep = a.getColumnStride();
+        for (int i = 0; i < rows; i++) {
+            int aStart = a.index(i, 0);
+            int bStart = i * columns;
+            for (int j = 0; j < columns; j++) {
+                bData[bStart + j] = k * aData[aStart + j * aStep];
+            }
         }
-        return new Matrix(newEntries);
+        return new Matrix(rows, columns, bData);
     }
 
     //  multiply a * b
     public static Matrix multiply(Matrix a, Matrix b) {
         if (a.getNumColumns() == b.getNumRows()) {
-            Vector[] newEntries = new Vector[a.getNumRows()];
-            for (int i = 0; i < a.getNumRows(); i++) {
-                for (int j = 0; j < b.getNumColumns(); j++) {
-                    newEntries[i] = newEntries[i].getReplace(j, dot(a.getRow(i), b.getColumn(j)));
-                }
-            }
-            return new Matrix(newEntries);
+            Matrix c = Matrix.createZeroMatrix(a.getNumRows(), b.getNumColumns());
+            multiplyAdd(1, a, b, 0, c);
+            return c;
         } else {
             throw new InvalidDimensionsException("Cannot multiply matrices with these dimensions. The number of columns of the first matrix must match the number of rows of the second matrix");
         }
     }
 
+    //  c = alpha * a * b + beta * c, overwriting c without allocating a result matrix
+    public static void multiplyAdd(double alpha, Matrix a, Matrix b, double beta, Matrix c) {
+        if (a.getNumColumns() != b.getNumRows())
+            throw new InvalidDimensionsException("Cannot multiply matrices with these dimensions. The number of columns of the first matrix must match the number of rows of the second matrix");
+        if (c.getNumRows() != a.getNumRows() || c.getNumColumns() != b.getNumColumns())
+            throw new InvalidDimensionsException("The dimensions of the result matrix do not match the product");
+        //  c is written while a and b are still being read, so they cannot share its storage
+        if (a.getData() == c.getData()) a = a.createCopy();
+        if (b.getData() == c.getData()) b = b.createCopy();
+        c.markModified();
+        MultiplyKernel.gemm(a.getNumRows(), b.getNumColumns(), a.getNumColumns(), alpha,
+                a.getData(), a.getOffset(), a.getRowStride(), a.getColumnStride(),
+                b.getData(), b.getOffset(), b.getRowStride(), b.getColumnStride(),
+                beta, c.getData(), c.getOffset(), c.getRowStride(), c.getColumnStride());
+    }
+
 
     //  Complex
     //  add
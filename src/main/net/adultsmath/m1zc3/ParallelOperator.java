@@ -0,0 +1,209 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ParallelOperator implements AutoCloseable {
+    /*
+        Parallel versions of the Matrix operations in Operator
+
+        The rows of the result are split in half recursively on a ForkJoinPool until a block
+        is below the threshold, so small matrices run on the calling thread
+        Every entry is computed by the same arithmetic in the same order as the serial version,
+        so the results are identical to Operator's
+     */
+    //  the amount of work (entries for elementwise operations, multiply-adds for products) worth a task
+    public static final int DEFAULT_THRESHOLD = 1 << 15;
+    //  every block of a product packs its own copy of b, so blocks need enough rows to pay for it
+    private static final int MULTIPLY_MIN_ROWS = 32;
+
+    private final ForkJoinPool pool;
+    //  pools created here are shut down by close(), pools passed in belong to the caller
+    private final boolean ownsPool;
+    private final int threshold;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public ParallelOperator() {
+        this(ForkJoinPool.commonPool(), false, DEFAULT_THRESHOLD);
+    }
+
+    public ParallelOperator(int parallelism) {
+        this(new ForkJoinPool(parallelism), true, DEFAULT_THRESHOLD);
+    }
+
+    public ParallelOperator(int parallelism, int threshold) {
+        this(new ForkJoinPool(parallelism), true, threshold);
+    }
+
+    public ParallelOperator(ForkJoinPool pool) {
+        this(pool, false, DEFAULT_THRESHOLD);
+    }
+
+    private ParallelOperator(ForkJoinPool pool, boolean ownsPool, int threshold) {
+        if (threshold <= 0) throw new IllegalArgumentException("The threshold must be positive");
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.threshold = threshold;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) pool.shutdown();
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  a + b
+    public Matrix add(Matrix a, Matrix b) {
+        if (a.getNumRows() != b.getNumRows() || a.getNumColumns() != b.getNumColumns())
+            throw new InvalidDimensionsException("Cannot add matrices of different dimensions");
+        int columns = a.getNumColumns();
+        double[] aData = a.getData();
+        double[] bData = b.getData();
+        double[] cData = new double[a.getNumRows() * columns];
+        int aStep = a.getColumnStride();
+        int bStep = b.getColumnStride();
+        forEachRowBlock(a.getNumRows(), columns, (rowStart, rowEnd) -> {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int aStart = a.index(i, 0);
+                int bStart = b.index(i, 0);
+                int cStart = i * columns;
+                for (int j = 0; j < columns; j++) {
+                    cData[cStart + j] = aData[aStart + j * aStep] + bData[bStart + j * bStep];
+                }
+            }
+        });
+        return new Matrix(a.getNumRows(), columns, cData);
+    }
+
+    //  a - b
+    public Matrix subtract(Matrix a, Matrix b) {
+        return add(a, scalMult(-1, b));
+    }
+
+    //  k * a
+    public Matrix scalMult(double k, Matrix a) {
+        int columns = a.getNumColumns();
+        double[] aData = a.getData();
+        double[] bData = new double[a.getNumRows() * columns];
+        int aStep = a.getColumnStride();
+        forEachRowBlock(a.getNumRows(), columns, (rowStart, rowEnd) -> {
+            for (int i = rowStart; i < rowEnd; i++) {
+                int aStart = a.index(i, 0);
+                int bStart = i * columns;
+                for (int j = 0; j < columns; j++) {
+                    bData[bStart + j] = k * aData[aStart + j * aStep];
+                }
+            }
+        });
+        return new Matrix(a.getNumRows(), columns, bData);
+    }
+
+    //  a * b
+    public Matrix multiply(Matrix a, Matrix b) {
+        if (a.getNumColumns() != b.getNumRows())
+            throw new InvalidDimensionsException("Cannot multiply matrices with these dimensions. The number of columns of the first matrix must match the number of rows of the second matrix");
+        Matrix c = Matrix.createZeroMatrix(a.getNumRows(), b.getNumColumns());
+        multiplyAdd(1, a, b, 0, c);
+        return c;
+    }
+
+    //  c = alpha * a * b + beta * c
+    public void multiplyAdd(double alpha, Matrix a, Matrix b, double beta, Matrix c) {
+        int m = a.getNumRows();
+        int n = b.getNumColumns();
+        int k = a.getNumColumns();
+        if (k != b.getNumRows())
+            throw new InvalidDimensionsException("Cannot multiply matrices with these dimensions. The number of columns of the first matrix must match the number of rows of the second matrix");
+        if (c.getNumRows() != m || c.getNumColumns() != n)
+            throw new InvalidDimensionsException("The dimensions of the result matrix do not match the product");
+        //  products too small for the packed kernel are left to the serial path so the results match it
+        if (MultiplyKernel.isSmall(m, n, k) || (long) m * n * k <= threshold) {
+            Operator.multiplyAdd(alpha, a, b, beta, c);
+            return;
+        }
+        Matrix aSource = a.getData() == c.getData() ? a.createCopy() : a;
+        Matrix bSource = b.getData() == c.getData() ? b.createCopy() : b;
+        double[] cData = c.getData();
+        c.markModified();
+        forEachRowBlock(m, (long) n * k, MULTIPLY_MIN_ROWS, (rowStart, rowEnd) -> {
+            MultiplyKernel.scale(rowEnd - rowStart, n, beta, cData, c.index(rowStart, 0),
+                    c.getRowStride(), c.getColumnStride());
+            if (alpha == 0) return;
+            MultiplyKernel.gemmPacked(rowEnd - rowStart, n, k, alpha,
+                    aSource.getData(), aSource.index(rowStart, 0), aSource.getRowStride(), aSource.getColumnStride(),
+                    bSource.getData(), bSource.getOffset(), bSource.getRowStride(), bSource.getColumnStride(),
+                    cData, c.index(rowStart, 0), c.getRowStride(), c.getColumnStride());
+        });
+    }
+
+    //  the transpose, each block of rows of a fills the matching block of columns of the result
+    public Matrix transpose(Matrix a) {
+        double[] transposed = new double[a.getNumRows() * a.getNumColumns()];
+        forEachRowBlock(a.getNumRows(), a.getNumColumns(),
+                (rowStart, rowEnd) -> a.transposeRowsInto(rowStart, rowEnd, transposed));
+        return new Matrix(a.getNumColumns(), a.getNumRows(), transposed);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    private void forEachRowBlock(int rows, long workPerRow, RowBlock block) {
+        forEachRowBlock(rows, workPerRow, 1, block);
+    }
+
+    //  run the block over [0, rows) split into blocks of at least threshold work and at least minBlockRows rows
+    private void forEachRowBlock(int rows, long workPerRow, int minBlockRows, RowBlock block) {
+        long thresholdRows = threshold / Math.max(1, workPerRow);
+        int minRows = (int) Math.min(rows, Math.max(minBlockRows, thresholdRows));
+        if (rows <= minRows) {
+            block.compute(0, rows);
+        } else {
+            pool.invoke(new RowBlockTask(block, 0, rows, minRows));
+        }
+    }
+
+    private interface RowBlock {
+        void compute(int rowStart, int rowEnd);
+    }
+
+    private static class RowBlockTask extends RecursiveAction {
+        private final RowBlock block;
+        private final int rowStart;
+        private final int rowEnd;
+        private final int minRows;
+
+        RowBlockTask(RowBlock block, int rowStart, int rowEnd, int minRows) {
+            this.block = block;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.minRows = minRows;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= minRows) {
+                block.compute(rowStart, rowEnd);
+            } else {
+                int middle = (rowStart + rowEnd) >>> 1;
+                invokeAll(new RowBlockTask(block, rowStart, middle, minRows),
+                        new RowBlockTask(block, middle, rowEnd, minRows));
+            }
+        }
+    }
+}
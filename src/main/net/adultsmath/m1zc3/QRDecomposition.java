@@ -0,0 +1,314 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.*;
+
+public class QRDecomposition {
+    /*
+        A * P = Q * R by Householder reflections, A is m x n, Q is m x m orthogonal, R is m x n upper triangular
+        P is the identity unless column pivoting is asked for, in which case the remaining column
+        with the largest norm is moved forward at each step, so the diagonal of R decreases and
+        the rank can be read off it
+
+        The reflection H_k = I - tau_k * v_k * v_k^T is stored with v_k below the diagonal of column k
+        (its leading 1 is implicit) and R on and above the diagonal, in one row-major array
+        Reflections are applied a row at a time, first w = v^T * A then A -= tau * v * w,
+        so both passes read the array in the order it is stored
+     */
+    private final int numRows;
+    private final int numColumns;
+    private final double[] qr;
+    private final double[] tau;
+    //  column k of A * P is column permutation[k] of A
+    private final int[] permutation;
+    private final int rank;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public QRDecomposition(Matrix a) {
+        this(a, false);
+    }
+
+    public QRDecomposition(Matrix a, boolean columnPivoting) {
+        numRows = a.getNumRows();
+        numColumns = a.getNumColumns();
+        qr = a.toArray();
+        int steps = min(numRows, numColumns);
+        tau = new double[steps];
+        permutation = new int[numColumns];
+        for (int j = 0; j < numColumns; j++) {
+            permutation[j] = j;
+        }
+
+        //  the norms of what is left of each column, updated cheaply after every step
+        double[] norms = new double[numColumns];
+        double[] originalNorms = new double[numColumns];
+        if (columnPivoting) {
+            for (int j = 0; j < numColumns; j++) {
+                norms[j] = columnNorm(j, 0);
+                originalNorms[j] = norms[j];
+            }
+        }
+
+        double[] w = new double[numColumns];
+        for (int k = 0; k < steps; k++) {
+            if (columnPivoting) {
+                int p = k;
+                for (int j = k + 1; j < numColumns; j++) {
+                    if (norms[j] > norms[p]) p = j;
+                }
+                if (p != k) {
+                    swapColumns(p, k);
+                    int temp = permutation[p];
+                    permutation[p] = permutation[k];
+                    permutation[k] = temp;
+                    norms[p] = norms[k];
+                    originalNorms[p] = originalNorms[k];
+                }
+            }
+
+            householder(k, w);
+
+            if (columnPivoting) {
+                for (int j = k + 1; j < numColumns; j++) {
+                    if (norms[j] == 0) continue;
+                    double ratio = abs(qr[k * numColumns + j]) / norms[j];
+                    double remaining = max(0, 1 - ratio * ratio);
+                    double drift = remaining * (norms[j] / originalNorms[j]) * (norms[j] / originalNorms[j]);
+                    if (drift <= sqrt(ulp(1.0))) {
+                        //  too much cancellation, recompute the norm
+                        norms[j] = columnNorm(j, k + 1);
+                        originalNorms[j] = norms[j];
+                    } else {
+                        norms[j] *= sqrt(remaining);
+                    }
+                }
+            }
+        }
+
+        double largest = steps > 0 ? abs(qr[0]) : 0;
+        if (!columnPivoting) {
+            for (int k = 0; k < steps; k++) {
+                largest = max(largest, abs(qr[k * numColumns + k]));
+            }
+        }
+        double tolerance = max(numRows, numColumns) * ulp(1.0) * largest;
+        int numNonzero = 0;
+        for (int k = 0; k < steps; k++) {
+            if (abs(qr[k * numColumns + k]) > tolerance) numNonzero++;
+            else if (columnPivoting) break;
+        }
+        rank = numNonzero;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    //  only reliable with column pivoting, without it a small diagonal entry can hide anywhere
+    public int getRank() {
+        return rank;
+    }
+
+    public boolean isFullRank() {
+        return rank == min(numRows, numColumns);
+    }
+
+    public int[] getPermutation() {
+        return permutation.clone();
+    }
+
+    //  the upper triangular factor, min(m, n) x n
+    public Matrix getR() {
+        int rows = min(numRows, numColumns);
+        double[] r = new double[rows * numColumns];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(qr, i * numColumns + i, r, i * numColumns + i, numColumns - i);
+        }
+        return new Matrix(rows, numColumns, r);
+    }
+
+    //  the first min(m, n) columns of Q, the thin Q with A * P = Q * R
+    public Matrix getQ() {
+        int columns = min(numRows, numColumns);
+        double[] q = new double[numRows * columns];
+        for (int i = 0; i < columns; i++) {
+            q[i * columns + i] = 1;
+        }
+        applyQ(q, columns);
+        return new Matrix(numRows, columns, q);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  overwrite the row-major numRows x columns block x with Q * x
+    //  Q = H_0 * H_1 * ..., so the reflections are applied from the last one back
+    void applyQ(double[] x, int columns) {
+        double[] w = new double[columns];
+        for (int k = tau.length - 1; k >= 0; k--) {
+            applyReflection(k, x, columns, w);
+        }
+    }
+
+    //  overwrite b with Q^T * b
+    void applyQTranspose(double[] b) {
+        double[] w = new double[1];
+        for (int k = 0; k < tau.length; k++) {
+            applyReflection(k, b, 1, w);
+        }
+    }
+
+    //  the x minimizing ||A * x - b||, with the arbitrary unknowns set to 0 when A is rank deficient
+    public Vector solve(Vector b) {
+        if (b.getSize() != numRows)
+            throw new InvalidDimensionsException("The right-hand side does not match the number of rows");
+        double[] c = new double[numRows];
+        for (int i = 0; i < numRows; i++) {
+            c[i] = b.getComps(i);
+        }
+        applyQTranspose(c);
+
+        double[] x = new double[numColumns];
+        double[] y = backSubstitute(c);
+        for (int k = 0; k < rank; k++) {
+            x[permutation[k]] = y[k];
+        }
+        return new Vector(x);
+    }
+
+    //  the least squares solution together with the null space of A when A is rank deficient
+    public LinearSystemSolution getLeastSquaresSolution(Vector b) {
+        Vector value = solve(b);
+        if (rank == numColumns) return new LinearSystemSolution(value);
+
+        //  column f of A * P past the rank gives z = P * [-R11^-1 * R12_f ; e_f] with A * z = 0
+        List<Vector> basis = new ArrayList<>();
+        for (int f = rank; f < numColumns; f++) {
+            double[] column = new double[rank];
+            for (int i = 0; i < rank; i++) {
+                column[i] = -qr[i * numColumns + f];
+            }
+            double[] y = backSubstitute(column);
+            double[] z = new double[numColumns];
+            for (int k = 0; k < rank; k++) {
+                z[permutation[k]] = y[k];
+            }
+            z[permutation[f]] = 1;
+            basis.add(new Vector(z));
+        }
+        return new LinearSystemSolution(value, new VectorSet(basis));
+    }
+
+    //  solve R11 * y = c for the leading rank x rank block of R
+    private double[] backSubstitute(double[] c) {
+        double[] y = new double[rank];
+        for (int i = rank - 1; i >= 0; i--) {
+            int row = i * numColumns;
+            double sum = c[i];
+            for (int j = i + 1; j < rank; j++) {
+                sum -= qr[row + j] * y[j];
+            }
+            y[i] = sum / qr[row + i];
+        }
+        return y;
+    }
+
+    //  reflect column k onto a multiple of e_k and apply the reflection to the columns after it
+    private void householder(int k, double[] w) {
+        double alpha = qr[k * numColumns + k];
+        double norm = columnNorm(k, k);
+        if (norm == 0) {
+            tau[k] = 0;
+            return;
+        }
+        double beta = alpha >= 0 ? -norm : norm;
+        double scale = 1 / (alpha - beta);
+        for (int i = k + 1; i < numRows; i++) {
+            qr[i * numColumns + k] *= scale;
+        }
+        tau[k] = (beta - alpha) / beta;
+        qr[k * numColumns + k] = beta;
+
+        //  w = v^T * A[k:, k+1:]
+        int start = k + 1;
+        if (start >= numColumns) return;
+        System.arraycopy(qr, k * numColumns + start, w, start, numColumns - start);
+        for (int i = k + 1; i < numRows; i++) {
+            int row = i * numColumns;
+            double v = qr[row + k];
+            if (v == 0) continue;
+            for (int j = start; j < numColumns; j++) {
+                w[j] += v * qr[row + j];
+            }
+        }
+        //  A[k:, k+1:] -= tau * v * w
+        double t = tau[k];
+        for (int j = start; j < numColumns; j++) {
+            qr[k * numColumns + j] -= t * w[j];
+        }
+        for (int i = k + 1; i < numRows; i++) {
+            int row = i * numColumns;
+            double tv = t * qr[row + k];
+            if (tv == 0) continue;
+            for (int j = start; j < numColumns; j++) {
+                qr[row + j] -= tv * w[j];
+            }
+        }
+    }
+
+    //  x = H_k * x for a row-major numRows x columns block x
+    private void applyReflection(int k, double[] x, int columns, double[] w) {
+        double t = tau[k];
+        if (t == 0) return;
+        System.arraycopy(x, k * columns, w, 0, columns);
+        for (int i = k + 1; i < numRows; i++) {
+            double v = qr[i * numColumns + k];
+            if (v == 0) continue;
+            int row = i * columns;
+            for (int j = 0; j < columns; j++) {
+                w[j] += v * x[row + j];
+            }
+        }
+        for (int j = 0; j < columns; j++) {
+            x[k * columns + j] -= t * w[j];
+        }
+        for (int i = k + 1; i < numRows; i++) {
+            double tv = t * qr[i * numColumns + k];
+            if (tv == 0) continue;
+            int row = i * columns;
+            for (int j = 0; j < columns; j++) {
+                x[row + j] -= tv * w[j];
+            }
+        }
+    }
+
+    //  the norm of column j from row start down
+    private double columnNorm(int j, int start) {
+        double sumOfSquares = 0;
+        for (int i = start; i < numRows; i++) {
+            double entry = qr[i * numColumns + j];
+            sumOfSquares += entry * entry;
+        }
+        return sqrt(sumOfSquares);
+    }
+
+    private void swapColumns(int column1, int column2) {
+        for (int i = 0; i < numRows; i++) {
+            int row = i * numColumns;
+            double temp = qr[row + column1];
+            qr[row + column1] = qr[row + column2];
+            qr[row + column2] = temp;
+        }
+    }
+}
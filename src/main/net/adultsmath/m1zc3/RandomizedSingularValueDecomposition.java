@@ -0,0 +1,366 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static java.lang.Math.*;
+
+public class RandomizedSingularValueDecomposition {
+    /*
+        The leading k singular triplets of a large m x n matrix A, A ~ U_k * S_k * V_k^T,
+        by the randomized range finder of Halko, Martinsson and Tropp
+
+        Y = A * G for an n x l Gaussian G, l = k + oversampling, has its columns mostly in the span
+        of the leading left singular vectors, so with Q an orthonormal basis of Y, A ~ Q * Q^T * A
+        Each power iteration Y = A * (A^T * Q) raises the singular values to a higher power, which
+        pushes the trailing ones further down when the spectrum decays slowly
+        The SVD of the small l x n B = Q^T * A then gives A ~ (Q * U_B) * S * V_B^T
+
+        A is only ever touched through the block products A * X and A^T * Y, which costs
+        2 + 2 * powerIterations passes over the data, and apart from one block of rows the memory
+        is the O((m + n) * l) for Q, the sketches and the result
+     */
+    public static final int DEFAULT_OVERSAMPLING = 10;
+    public static final int DEFAULT_POWER_ITERATIONS = 2;
+    //  rows of a RowSource are read in blocks of about this many entries
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private final int numRows;
+    private final int numColumns;
+    private final int rank;
+    private final double[] singularValues;
+    //  m x k and n x k, row-major
+    private final double[] u;
+    private final double[] v;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public RandomizedSingularValueDecomposition(Matrix a, int rank) {
+        this(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS);
+    }
+
+    public RandomizedSingularValueDecomposition(Matrix a, int rank, int oversampling, int powerIterations) {
+        this(new DenseProducts(a), rank, oversampling, powerIterations);
+    }
+
+    public RandomizedSingularValueDecomposition(SparseMatrix a, int rank) {
+        this(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS);
+    }
+
+    public RandomizedSingularValueDecomposition(SparseMatrix a, int rank, int oversampling, int powerIterations) {
+        this(new SparseProducts(a), rank, oversampling, powerIterations);
+    }
+
+    public RandomizedSingularValueDecomposition(RowSource a, int rank) {
+        this(a, rank, DEFAULT_OVERSAMPLING, DEFAULT_POWER_ITERATIONS);
+    }
+
+    public RandomizedSingularValueDecomposition(RowSource a, int rank, int oversampling, int powerIterations) {
+        this(new StreamedProducts(a), rank, oversampling, powerIterations);
+    }
+
+    private RandomizedSingularValueDecomposition(Products a, int rank, int oversampling, int powerIterations) {
+        if (rank <= 0) throw new IllegalArgumentException("The rank has to be at least 1");
+        if (oversampling < 0 || powerIterations < 0)
+            throw new IllegalArgumentException("The oversampling and the power iterations cannot be negative");
+        int n = a.getNumColumns();
+        if (rank > n) throw new InvalidDimensionsException("The rank cannot be more than the number of columns");
+        int l = min(rank + oversampling, n);
+
+        //  Q = orth(A * G)
+        double[] g = new double[n * l];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < g.length; i++) {
+            g[i] = random.nextGaussian();
+        }
+        double[] y = a.multiply(g, l);
+        int m = y.length / l;
+        if (rank > m) throw new InvalidDimensionsException("The rank cannot be more than the number of rows");
+        if (m < l) {
+            y = firstColumns(y, m, l, m);
+            l = m;
+        }
+        double[] q = orthonormalize(y, m, l);
+
+        //  Q = orth(A * orth(A^T * Q)), re-orthonormalizing in between so the small singular values survive
+        for (int iteration = 0; iteration < powerIterations; iteration++) {
+            double[] z = orthonormalize(a.multiplyTranspose(q, l), n, l);
+            q = orthonormalize(a.multiply(z, l), m, l);
+        }
+
+        //  B^T = A^T * Q is n x l, its SVD B^T = W * S * X^T gives B = X * S * W^T and A ~ (Q * X) * S * W^T
+        SingularValueDecomposition svd = new Matrix(n, l, a.multiplyTranspose(q, l)).getSingularValueDecomposition();
+        double[] w = svd.getU().toArray();
+        double[] x = svd.getV().toArray();
+        double[] s = svd.getSingularValues();
+
+        numRows = m;
+        numColumns = n;
+        this.rank = rank;
+        singularValues = Arrays.copyOf(s, rank);
+        u = new double[m * rank];
+        for (int i = 0; i < m; i++) {
+            int qi = i * l;
+            int ui = i * rank;
+            for (int c = 0; c < l; c++) {
+                double qic = q[qi + c];
+                if (qic == 0) continue;
+                int xc = c * l;
+                for (int j = 0; j < rank; j++) {
+                    u[ui + j] += qic * x[xc + j];
+                }
+            }
+        }
+        v = firstColumns(w, n, l, rank);
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    //  the k approximate leading singular values in decreasing order
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    public double getSingularValue(int index) {
+        return singularValues[index];
+    }
+
+    //  m x k, orthonormal columns
+    public Matrix getU() {
+        return new Matrix(numRows, rank, u.clone());
+    }
+
+    //  n x k, orthonormal columns
+    public Matrix getV() {
+        return new Matrix(numColumns, rank, v.clone());
+    }
+
+    public Matrix getS() {
+        double[] diagonal = new double[rank * rank];
+        for (int i = 0; i < rank; i++) {
+            diagonal[i * rank + i] = singularValues[i];
+        }
+        return new Matrix(rank, rank, diagonal);
+    }
+
+    //  U_k * S_k * V_k^T, m x n, only sensible when A itself fits in memory
+    public Matrix getLowRankApproximation() {
+        double[] approximation = new double[numRows * numColumns];
+        for (int i = 0; i < numRows; i++) {
+            int row = i * numColumns;
+            for (int l = 0; l < rank; l++) {
+                double factor = u[i * rank + l] * singularValues[l];
+                if (factor == 0) continue;
+                for (int j = 0; j < numColumns; j++) {
+                    approximation[row + j] += factor * v[j * rank + l];
+                }
+            }
+        }
+        return new Matrix(numRows, numColumns, approximation);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  an orthonormal basis of the columns of the row-major rows x columns y, by Householder QR
+    private static double[] orthonormalize(double[] y, int rows, int columns) {
+        return new QRDecomposition(new Matrix(rows, columns, y)).getQ().toArray();
+    }
+
+    //  the first columns of a row-major matrix
+    private static double[] firstColumns(double[] x, int rows, int columns, int kept) {
+        double[] result = new double[rows * kept];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(x, i * columns, result, i * kept, kept);
+        }
+        return result;
+    }
+
+    //  the row of Y = A * X for one row of A, its entries step apart in a, X being n x l row-major
+    private static void multiplyRow(double[] a, int start, int step, int n, double[] x, int l, double[] y, int yStart) {
+        for (int c = 0; c < n; c++) {
+            double entry = a[start + c * step];
+            if (entry == 0) continue;
+            int xc = c * l;
+            for (int j = 0; j < l; j++) {
+                y[yStart + j] += entry * x[xc + j];
+            }
+        }
+    }
+
+    //  z += row^T * y[row], the contribution of one row of A to A^T * Y
+    private static void multiplyRowTranspose(double[] a, int start, int step, int n,
+                                             double[] y, int yStart, int l, double[] z) {
+        for (int c = 0; c < n; c++) {
+            double entry = a[start + c * step];
+            if (entry == 0) continue;
+            int zc = c * l;
+            for (int j = 0; j < l; j++) {
+                z[zc + j] += entry * y[yStart + j];
+            }
+        }
+    }
+
+    //  the two block products the algorithm needs, on row-major blocks l columns wide
+    private interface Products {
+        int getNumColumns();
+
+        //  A * X, X n x l, the number of rows of A is the length of the result over l
+        double[] multiply(double[] x, int l);
+
+        //  A^T * Y, Y m x l
+        double[] multiplyTranspose(double[] y, int l);
+    }
+
+    private static class DenseProducts implements Products {
+        private final Matrix a;
+
+        DenseProducts(Matrix a) {
+            this.a = a;
+        }
+
+        @Override
+        public int getNumColumns() {
+            return a.getNumColumns();
+        }
+
+        @Override
+        public double[] multiply(double[] x, int l) {
+            int m = a.getNumRows();
+            double[] y = new double[m * l];
+            for (int i = 0; i < m; i++) {
+                multiplyRow(a.getData(), a.index(i, 0), a.getColumnStride(), a.getNumColumns(), x, l, y, i * l);
+            }
+            return y;
+        }
+
+        @Override
+        public double[] multiplyTranspose(double[] y, int l) {
+            double[] z = new double[a.getNumColumns() * l];
+            for (int i = 0; i < a.getNumRows(); i++) {
+                multiplyRowTranspose(a.getData(), a.index(i, 0), a.getColumnStride(), a.getNumColumns(), y, i * l, l, z);
+            }
+            return z;
+        }
+    }
+
+    private static class SparseProducts implements Products {
+        private final SparseMatrix a;
+
+        SparseProducts(SparseMatrix a) {
+            this.a = a;
+        }
+
+        @Override
+        public int getNumColumns() {
+            return a.getNumColumns();
+        }
+
+        @Override
+        public double[] multiply(double[] x, int l) {
+            int[] rowPointers = a.getRowPointers();
+            int[] columnIndices = a.getColumnIndices();
+            double[] values = a.getValues();
+            double[] y = new double[a.getNumRows() * l];
+            for (int i = 0; i < a.getNumRows(); i++) {
+                int yi = i * l;
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    double entry = values[k];
+                    int xc = columnIndices[k] * l;
+                    for (int j = 0; j < l; j++) {
+                        y[yi + j] += entry * x[xc + j];
+                    }
+                }
+            }
+            return y;
+        }
+
+        @Override
+        public double[] multiplyTranspose(double[] y, int l) {
+            int[] rowPointers = a.getRowPointers();
+            int[] columnIndices = a.getColumnIndices();
+            double[] values = a.getValues();
+            double[] z = new double[a.getNumColumns() * l];
+            for (int i = 0; i < a.getNumRows(); i++) {
+                int yi = i * l;
+                for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                    double entry = values[k];
+                    int zc = columnIndices[k] * l;
+                    for (int j = 0; j < l; j++) {
+                        z[zc + j] += entry * y[yi + j];
+                    }
+                }
+            }
+            return z;
+        }
+    }
+
+    //  one pass over the source for each product, the rows are counted on the first one
+    private static class StreamedProducts implements Products {
+        private final RowSource a;
+        private final double[] block;
+        private final int blockRows;
+
+        StreamedProducts(RowSource a) {
+            this.a = a;
+            int n = a.getNumColumns();
+            blockRows = max(1, BLOCK_SIZE / max(n, 1));
+            block = new double[blockRows * n];
+        }
+
+        @Override
+        public int getNumColumns() {
+            return a.getNumColumns();
+        }
+
+        @Override
+        public double[] multiply(double[] x, int l) {
+            int n = a.getNumColumns();
+            double[] y = new double[blockRows * l];
+            int m = 0;
+            a.rewind();
+            int rows;
+            while ((rows = a.read(block, blockRows)) > 0) {
+                if ((m + rows) * l > y.length) y = Arrays.copyOf(y, max(2 * y.length, (m + rows) * l));
+                for (int r = 0; r < rows; r++) {
+                    multiplyRow(block, r * n, 1, n, x, l, y, (m + r) * l);
+                }
+                m += rows;
+            }
+            return Arrays.copyOf(y, m * l);
+        }
+
+        @Override
+        public double[] multiplyTranspose(double[] y, int l) {
+            int n = a.getNumColumns();
+            double[] z = new double[n * l];
+            int m = 0;
+            a.rewind();
+            int rows;
+            while ((rows = a.read(block, blockRows)) > 0) {
+                if ((m + rows) * l > y.length)
+                    throw new IllegalStateException("The row source has more rows than on the first pass");
+                for (int r = 0; r < rows; r++) {
+                    multiplyRowTranspose(block, r * n, 1, n, y, (m + r) * l, l, z);
+                }
+                m += rows;
+            }
+            return z;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.abs;
+
+final class RowReducer {
+    /*
+        Gauss-Jordan elimination with partial pivoting, done in place on a matrix's backing array
+
+        Every row operation works directly on the primitive entries, so the only allocation
+        for a whole reduction is the array of pivot columns
+        After reduce(), the first getRank() rows have a leading 1 in column getPivotColumn(row),
+        the pivot columns increase going down and the remaining rows are zero
+
+        Pivots can be limited to the first columns, the row operations still apply to the whole row,
+        so reducing [A | I] this way leaves the matrix E with E * A = rref(A) in the last columns
+     */
+    //  entries smaller than this are treated as zero when looking for a pivot
+    static final double PIVOT_TOLERANCE = 1E-7;
+    //  entries this close to 0 or 1 are rounded to it once the reduction is done
+    static final double ROUNDING_TOLERANCE = 1E-5;
+
+    private final double[] data;
+    private final int offset;
+    private final int rowStride;
+    private final int columnStride;
+    private final int numRows;
+    private final int numColumns;
+    //  only the first numPivotColumns columns are searched for pivots and rounded
+    private final int numPivotColumns;
+    private final int[] pivotColumns;
+    private int rank;
+
+    RowReducer(Matrix m) {
+        this(m, m.getNumColumns());
+    }
+
+    RowReducer(Matrix m, int numPivotColumns) {
+        m.markModified();
+        this.data = m.getData();
+        this.offset = m.getOffset();
+        this.rowStride = m.getRowStride();
+        this.columnStride = m.getColumnStride();
+        this.numRows = m.getNumRows();
+        this.numColumns = m.getNumColumns();
+        this.numPivotColumns = numPivotColumns;
+        this.pivotColumns = new int[numRows];
+    }
+
+    int getRank() {
+        return rank;
+    }
+
+    int getPivotColumn(int row) {
+        return pivotColumns[row];
+    }
+
+    //  reduce to row echelon form with leading ones, or to reduced row echelon form
+    //  when eliminating above the pivots as well
+    void reduce(boolean eliminateAbove) {
+        rank = 0;
+        for (int column = 0; column < numPivotColumns && rank < numRows; column++) {
+            int pivotRow = rank;
+            for (int i = rank + 1; i < numRows; i++) {
+                if (abs(data[index(i, column)]) > abs(data[index(pivotRow, column)])) pivotRow = i;
+            }
+            if (abs(data[index(pivotRow, column)]) < PIVOT_TOLERANCE) {
+                //  no pivot in this column, what is left of it is rounding noise
+                for (int i = rank; i < numRows; i++) {
+                    data[index(i, column)] = 0;
+                }
+                continue;
+            }
+
+            swapRows(pivotRow, rank);
+            int pivotStart = index(rank, column);
+            double pivotInverse = 1 / data[pivotStart];
+            data[pivotStart] = 1;
+            int rest = (numColumns - column) * columnStride;
+            for (int j = columnStride; j < rest; j += columnStride) {
+                data[pivotStart + j] *= pivotInverse;
+            }
+
+            for (int i = eliminateAbove ? 0 : rank + 1; i < numRows; i++) {
+                if (i == rank) continue;
+                int rowStart = index(i, column);
+                double factor = data[rowStart];
+                if (factor == 0) continue;
+                data[rowStart] = 0;
+                for (int j = columnStride; j < rest; j += columnStride) {
+                    data[rowStart + j] -= factor * data[pivotStart + j];
+                }
+            }
+
+            pivotColumns[rank] = column;
+            rank++;
+        }
+        roundEntriesToOneOrZero();
+    }
+
+    private void roundEntriesToOneOrZero() {
+        for (int i = 0; i < numRows; i++) {
+            int rowStart = index(i, 0);
+            for (int j = rowStart; j < rowStart + numPivotColumns * columnStride; j += columnStride) {
+                if (abs(data[j]) <= ROUNDING_TOLERANCE) {
+                    data[j] = 0;
+                } else if (abs(data[j] - 1) <= ROUNDING_TOLERANCE) {
+                    data[j] = 1;
+                }
+            }
+        }
+    }
+
+    private void swapRows(int row1, int row2) {
+        if (row1 == row2) return;
+        int start1 = index(row1, 0);
+        int start2 = index(row2, 0);
+        for (int j = 0; j < numColumns * columnStride; j += columnStride) {
+            double temp = data[start1 + j];
+            data[start1 + j] = data[start2 + j];
+            data[start2 + j] = temp;
+        }
+    }
+
+    private int index(int r, int c) {
+        return offset + r * rowStride + c * columnStride;
+    }
+}
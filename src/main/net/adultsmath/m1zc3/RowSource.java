@@ -0,0 +1,31 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Iterator;
+
+public interface RowSource {
+    /*
+        The rows of a matrix read front to back a block at a time, for matrices too large to be held in memory
+        (a file, a database cursor, rows generated on the fly)
+
+        An algorithm that needs several passes over the data calls rewind() before each of them,
+        the number of rows does not have to be known in advance
+     */
+    int getNumColumns();
+
+    //  start again from the first row
+    void rewind();
+
+    //  copy up to maxRows of the next rows, back to back, into buffer and return how many were copied
+    //  0 once every row has been read
+    int read(double[] buffer, int maxRows);
+
+    //  the rows of an Iterable, each rewind() starts a new iterator
+    static RowSource of(Iterable<double[]> rows, int numColumns) {
+        return new IteratorRowSource(rows, null, numColumns);
+    }
+
+    //  the rows of an Iterator, such as a Stream's, which can only be read once so rewind() fails after the first row
+    static RowSource of(Iterator<double[]> rows, int numColumns) {
+        return new IteratorRowSource(null, rows, numColumns);
+    }
+}
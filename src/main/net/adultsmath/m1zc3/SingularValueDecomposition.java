@@ -0,0 +1,542 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+public class SingularValueDecomposition {
+    /*
+        A = U * S * V^T for any m x n matrix A, U and V with orthonormal columns, S diagonal holding
+        the singular values s_0 >= s_1 >= ... >= s_min(m, n)-1 >= 0
+
+        A is reduced to an upper bidiagonal B = U1^T * A * V1 by Householder reflections applied
+        alternately from the left and the right (Golub-Kahan), then implicitly shifted QR steps
+        chase B to diagonal form, applying every rotation to U1 and V1 (Golub-Reinsch)
+        (after the LINPACK routine dsvdc)
+
+        The economy SVD keeps only min(m, n) columns of U and V, which is all that A,
+        the pseudo-inverse and the low rank approximations need, the full SVD has U m x m and V n x n
+        A matrix much taller than it is wide is first factored A = Q * R and only the small
+        n x n R is bidiagonalized, a wide matrix is handled through its transpose
+
+        All the work arrays are column-major, so every reflection and rotation updates
+        whole contiguous columns
+     */
+    private static final int MAX_ITERATIONS_PER_SINGULAR_VALUE = 75;
+
+    private final int numRows;
+    private final int numColumns;
+    private final boolean economy;
+    //  in decreasing order
+    private final double[] singularValues;
+    //  column j of U starts at u[j * numRows], column j of V at v[j * numColumns], null when not computed
+    private final double[] u;
+    private final double[] v;
+    private final int numUColumns;
+    private final int numVColumns;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public SingularValueDecomposition(Matrix a) {
+        this(a, true);
+    }
+
+    public SingularValueDecomposition(Matrix a, boolean economy) {
+        this(a, economy, true);
+    }
+
+    private SingularValueDecomposition(Matrix a, boolean economy, boolean wantVectors) {
+        numRows = a.getNumRows();
+        numColumns = a.getNumColumns();
+        this.economy = economy;
+
+        //  T = A, or A^T when A is wide, so T is m x n with m >= n
+        boolean transposed = numRows < numColumns;
+        Matrix t = transposed ? a.getTransposeMatrix() : a;
+        int m = t.getNumRows();
+        int n = t.getNumColumns();
+        int nu = economy ? n : m;
+
+        double[] s = new double[n];
+        double[] tu = wantVectors ? new double[m * nu] : null;
+        double[] tv = wantVectors ? new double[n * n] : null;
+        if (m >= 2 * n && nu == n) {
+            //  T = Q * R, R = U_R * S * V^T, so T = (Q * U_R) * S * V^T
+            QRDecomposition qr = t.getQRDecomposition();
+            double[] ur = wantVectors ? new double[n * n] : null;
+            decompose(n, n, columnMajor(qr.getR()), n, s, ur, tv);
+            if (wantVectors) multiplyByQ(qr, ur, tu);
+        } else {
+            decompose(m, n, columnMajor(t), nu, s, tu, tv);
+        }
+        singularValues = s;
+
+        //  T = U_T * S * V_T^T, so when T = A^T it is A = V_T * S * U_T^T
+        u = transposed ? tv : tu;
+        v = transposed ? tu : tv;
+        numUColumns = transposed ? n : nu;
+        numVColumns = transposed ? nu : n;
+    }
+
+    //  only the singular values, which saves accumulating U and V
+    public static double[] getSingularValues(Matrix a) {
+        return new SingularValueDecomposition(a, true, false).singularValues;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public boolean isEconomy() {
+        return economy;
+    }
+
+    //  the singular values in decreasing order, min(m, n) of them
+    public double[] getSingularValues() {
+        return singularValues.clone();
+    }
+
+    public double getSingularValue(int index) {
+        return singularValues[index];
+    }
+
+    //  m x min(m, n), or m x m for the full SVD
+    public Matrix getU() {
+        return fromColumnMajor(u, numRows, numUColumns);
+    }
+
+    //  n x min(m, n), or n x n for the full SVD
+    public Matrix getV() {
+        return fromColumnMajor(v, numColumns, numVColumns);
+    }
+
+    //  the diagonal matrix of singular values, sized so that A = U * S * V^T
+    public Matrix getS() {
+        double[] diagonal = new double[numUColumns * numVColumns];
+        for (int i = 0; i < singularValues.length; i++) {
+            diagonal[i * numVColumns + i] = singularValues[i];
+        }
+        return new Matrix(numUColumns, numVColumns, diagonal);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  singular values below max(m, n) * ulp(s_0), the same cutoff LAPACK uses, count as zero
+    public double getTolerance() {
+        if (singularValues.length == 0) return 0;
+        return max(numRows, numColumns) * ulp(singularValues[0]);
+    }
+
+    //  the number of singular values above getTolerance(), the numerical rank
+    public int getRank() {
+        return getRank(singularValues, numRows, numColumns);
+    }
+
+    static int getRank(double[] singularValues, int numRows, int numColumns) {
+        if (singularValues.length == 0) return 0;
+        double tolerance = max(numRows, numColumns) * ulp(singularValues[0]);
+        int rank = 0;
+        while (rank < singularValues.length && singularValues[rank] > tolerance) {
+            rank++;
+        }
+        return rank;
+    }
+
+    //  ||A||_2, the largest singular value
+    public double getNorm() {
+        return singularValues.length == 0 ? 0 : singularValues[0];
+    }
+
+    //  s_0 / s_min(m, n)-1, infinite when A does not have full numerical rank
+    public double getConditionNumber() {
+        return getConditionNumber(singularValues, numRows, numColumns);
+    }
+
+    static double getConditionNumber(double[] singularValues, int numRows, int numColumns) {
+        if (getRank(singularValues, numRows, numColumns) < singularValues.length) return Double.POSITIVE_INFINITY;
+        return singularValues[0] / singularValues[singularValues.length - 1];
+    }
+
+    //  A+ = V * S+ * U^T, n x m, where S+ inverts the singular values above getTolerance() and zeros the rest
+    //  A+ * b is the least squares solution of A * x = b with the smallest norm
+    public Matrix getPseudoInverse() {
+        int rank = getRank();
+        double[] inverse = new double[numColumns * numRows];
+        for (int k = 0; k < rank; k++) {
+            int uk = k * numRows;
+            int vk = k * numColumns;
+            double reciprocal = 1 / singularValues[k];
+            //  row i of A+ gets V[i][k] / s_k times column k of U
+            for (int i = 0; i < numColumns; i++) {
+                double factor = v[vk + i] * reciprocal;
+                if (factor == 0) continue;
+                int row = i * numRows;
+                for (int j = 0; j < numRows; j++) {
+                    inverse[row + j] += factor * u[uk + j];
+                }
+            }
+        }
+        return new Matrix(numColumns, numRows, inverse);
+    }
+
+    //  the closest matrix to A of rank at most k, in both the 2-norm and the Frobenius norm
+    public Matrix getLowRankApproximation(int k) {
+        if (k < 0 || k > singularValues.length)
+            throw new IllegalArgumentException("The rank has to be between 0 and " + singularValues.length);
+        double[] approximation = new double[numRows * numColumns];
+        for (int l = 0; l < k; l++) {
+            int ul = l * numRows;
+            int vl = l * numColumns;
+            for (int i = 0; i < numRows; i++) {
+                double factor = u[ul + i] * singularValues[l];
+                if (factor == 0) continue;
+                int row = i * numColumns;
+                for (int j = 0; j < numColumns; j++) {
+                    approximation[row + j] += factor * v[vl + j];
+                }
+            }
+        }
+        return new Matrix(numRows, numColumns, approximation);
+    }
+
+    private static double[] columnMajor(Matrix a) {
+        return a.getTransposeMatrix().toArray();
+    }
+
+    private static Matrix fromColumnMajor(double[] x, int rows, int columns) {
+        if (x == null) throw new IllegalStateException("The singular vectors were not computed");
+        return new Matrix(columns, rows, x).getTransposeMatrix();
+    }
+
+    //  u = Q * [ur ; 0], ur n x n and u m x n column-major, without forming Q
+    private static void multiplyByQ(QRDecomposition qr, double[] ur, double[] u) {
+        int m = qr.getNumRows();
+        int n = qr.getNumColumns();
+        double[] x = new double[m * n];
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < n; i++) {
+                x[i * n + j] = ur[j * n + i];
+            }
+        }
+        qr.applyQ(x, n);
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                u[j * m + i] = x[i * n + j];
+            }
+        }
+    }
+
+    //  the SVD of the m x n column-major a, m >= n, which is overwritten
+    //  s gets the n singular values, u the first nu columns of U and v all of V, when they are not null
+    private static void decompose(int m, int n, double[] a, int nu, double[] s, double[] u, double[] v) {
+        boolean wantU = u != null;
+        boolean wantV = v != null;
+        double[] e = new double[n];
+        double[] work = new double[m];
+
+        //  bidiagonalize, the reflections from the left are stored in the columns of a,
+        //  those from the right in the rows of e and then in the columns of v
+        int nct = min(m - 1, n);
+        int nrt = max(0, min(n - 2, m));
+        for (int k = 0; k < max(nct, nrt); k++) {
+            int ak = k * m;
+            if (k < nct) {
+                //  the reflection zeroing column k below the diagonal, s[k] becomes the diagonal entry
+                double norm = 0;
+                for (int i = k; i < m; i++) {
+                    norm = hypot(norm, a[ak + i]);
+                }
+                if (norm != 0) {
+                    if (a[ak + k] < 0) norm = -norm;
+                    for (int i = k; i < m; i++) {
+                        a[ak + i] /= norm;
+                    }
+                    a[ak + k] += 1;
+                }
+                s[k] = -norm;
+            }
+            for (int j = k + 1; j < n; j++) {
+                int aj = j * m;
+                if (k < nct && s[k] != 0) {
+                    double dot = 0;
+                    for (int i = k; i < m; i++) {
+                        dot += a[ak + i] * a[aj + i];
+                    }
+                    double factor = -dot / a[ak + k];
+                    for (int i = k; i < m; i++) {
+                        a[aj + i] += factor * a[ak + i];
+                    }
+                }
+                //  row k, for the reflection from the right
+                e[j] = a[aj + k];
+            }
+            if (wantU && k < nct) {
+                System.arraycopy(a, ak + k, u, k * m + k, m - k);
+            }
+            if (k < nrt) {
+                //  the reflection zeroing row k right of the superdiagonal, e[k] becomes the superdiagonal entry
+                double norm = 0;
+                for (int i = k + 1; i < n; i++) {
+                    norm = hypot(norm, e[i]);
+                }
+                if (norm != 0) {
+                    if (e[k + 1] < 0) norm = -norm;
+                    for (int i = k + 1; i < n; i++) {
+                        e[i] /= norm;
+                    }
+                    e[k + 1] += 1;
+                }
+                e[k] = -norm;
+                if (k + 1 < m && norm != 0) {
+                    Arrays.fill(work, k + 1, m, 0);
+                    for (int j = k + 1; j < n; j++) {
+                        int aj = j * m;
+                        for (int i = k + 1; i < m; i++) {
+                            work[i] += e[j] * a[aj + i];
+                        }
+                    }
+                    for (int j = k + 1; j < n; j++) {
+                        int aj = j * m;
+                        double factor = -e[j] / e[k + 1];
+                        for (int i = k + 1; i < m; i++) {
+                            a[aj + i] += factor * work[i];
+                        }
+                    }
+                }
+                if (wantV) {
+                    System.arraycopy(e, k + 1, v, k * n + k + 1, n - k - 1);
+                }
+            }
+        }
+
+        //  the last diagonal and superdiagonal entries, which needed no reflection
+        int p = n;
+        if (nct < n) s[nct] = a[nct * m + nct];
+        if (nrt + 1 < p) e[nrt] = a[(p - 1) * m + nrt];
+        e[p - 1] = 0;
+
+        //  U1 = H_0 * H_1 * ..., applied to the first nu columns of the identity from the last reflection back
+        if (wantU) {
+            for (int j = nct; j < nu; j++) {
+                Arrays.fill(u, j * m, (j + 1) * m, 0);
+                u[j * m + j] = 1;
+            }
+            for (int k = nct - 1; k >= 0; k--) {
+                int uk = k * m;
+                if (s[k] != 0) {
+                    for (int j = k + 1; j < nu; j++) {
+                        int uj = j * m;
+                        double dot = 0;
+                        for (int i = k; i < m; i++) {
+                            dot += u[uk + i] * u[uj + i];
+                        }
+                        double factor = -dot / u[uk + k];
+                        for (int i = k; i < m; i++) {
+                            u[uj + i] += factor * u[uk + i];
+                        }
+                    }
+                    for (int i = k; i < m; i++) {
+                        u[uk + i] = -u[uk + i];
+                    }
+                    u[uk + k] += 1;
+                    Arrays.fill(u, uk, uk + k, 0);
+                } else {
+                    Arrays.fill(u, uk, uk + m, 0);
+                    u[uk + k] = 1;
+                }
+            }
+        }
+
+        //  V1 the same way, from the reflections from the right
+        if (wantV) {
+            for (int k = n - 1; k >= 0; k--) {
+                int vk = k * n;
+                if (k < nrt && e[k] != 0) {
+                    for (int j = k + 1; j < n; j++) {
+                        int vj = j * n;
+                        double dot = 0;
+                        for (int i = k + 1; i < n; i++) {
+                            dot += v[vk + i] * v[vj + i];
+                        }
+                        double factor = -dot / v[vk + k + 1];
+                        for (int i = k + 1; i < n; i++) {
+                            v[vj + i] += factor * v[vk + i];
+                        }
+                    }
+                }
+                Arrays.fill(v, vk, vk + n, 0);
+                v[vk + k] = 1;
+            }
+        }
+
+        //  QR iteration on the bidiagonal, the active block is rows k to p - 1
+        int last = p - 1;
+        int iterations = 0;
+        double eps = ulp(1.0);
+        double tiny = Double.MIN_NORMAL / eps;
+        while (p > 0) {
+            //  find the largest k < p - 1 with a negligible e[k], the block below it is unreduced
+            int k;
+            for (k = p - 2; k >= 0; k--) {
+                if (abs(e[k]) <= tiny + eps * (abs(s[k]) + abs(s[k + 1]))) {
+                    e[k] = 0;
+                    break;
+                }
+            }
+            int kind;
+            if (k == p - 2) {
+                //  s[p - 1] is split off, it has converged
+                kind = 4;
+            } else {
+                //  look for a negligible diagonal entry inside the block
+                int ks;
+                for (ks = p - 1; ks > k; ks--) {
+                    double t = (ks != p ? abs(e[ks]) : 0) + (ks != k + 1 ? abs(e[ks - 1]) : 0);
+                    if (abs(s[ks]) <= tiny + eps * t) {
+                        s[ks] = 0;
+                        break;
+                    }
+                }
+                if (ks == k) {
+                    kind = 3;
+                } else if (ks == p - 1) {
+                    kind = 1;
+                } else {
+                    kind = 2;
+                    k = ks;
+                }
+            }
+            k++;
+
+            switch (kind) {
+                case 1 -> {
+                    //  s[p - 1] is negligible, chase e[p - 2] out of the block with rotations from the right
+                    double f = e[p - 2];
+                    e[p - 2] = 0;
+                    for (int j = p - 2; j >= k; j--) {
+                        double t = hypot(s[j], f);
+                        double cs = s[j] / t;
+                        double sn = f / t;
+                        s[j] = t;
+                        if (j != k) {
+                            f = -sn * e[j - 1];
+                            e[j - 1] = cs * e[j - 1];
+                        }
+                        if (wantV) rotate(v, n, j, p - 1, cs, sn);
+                    }
+                }
+                case 2 -> {
+                    //  s[k - 1] is negligible, split the block there with rotations from the left
+                    double f = e[k - 1];
+                    e[k - 1] = 0;
+                    for (int j = k; j < p; j++) {
+                        double t = hypot(s[j], f);
+                        double cs = s[j] / t;
+                        double sn = f / t;
+                        s[j] = t;
+                        f = -sn * e[j];
+                        e[j] = cs * e[j];
+                        if (wantU) rotate(u, m, j, k - 1, cs, sn);
+                    }
+                }
+                case 3 -> {
+                    //  one QR step, shifted by the eigenvalue of the trailing 2 x 2 of B^T * B closer to its last entry
+                    if (++iterations > MAX_ITERATIONS_PER_SINGULAR_VALUE)
+                        throw new EigenvalueSolver.NotConvergedException("The SVD QR iteration did not converge");
+                    double scale = max(max(max(max(abs(s[p - 1]), abs(s[p - 2])), abs(e[p - 2])),
+                            abs(s[k])), abs(e[k]));
+                    double sp = s[p - 1] / scale;
+                    double spm1 = s[p - 2] / scale;
+                    double epm1 = e[p - 2] / scale;
+                    double sk = s[k] / scale;
+                    double ek = e[k] / scale;
+                    double b = ((spm1 + sp) * (spm1 - sp) + epm1 * epm1) / 2;
+                    double c = (sp * epm1) * (sp * epm1);
+                    double shift = 0;
+                    if (b != 0 || c != 0) {
+                        shift = sqrt(b * b + c);
+                        if (b < 0) shift = -shift;
+                        shift = c / (b + shift);
+                    }
+                    double f = (sk + sp) * (sk - sp) + shift;
+                    double g = sk * ek;
+
+                    //  chase the bulge down the bidiagonal
+                    for (int j = k; j < p - 1; j++) {
+                        double t = hypot(f, g);
+                        double cs = f / t;
+                        double sn = g / t;
+                        if (j != k) e[j - 1] = t;
+                        f = cs * s[j] + sn * e[j];
+                        e[j] = cs * e[j] - sn * s[j];
+                        g = sn * s[j + 1];
+                        s[j + 1] = cs * s[j + 1];
+                        if (wantV) rotate(v, n, j, j + 1, cs, sn);
+
+                        t = hypot(f, g);
+                        cs = f / t;
+                        sn = g / t;
+                        s[j] = t;
+                        f = cs * e[j] + sn * s[j + 1];
+                        s[j + 1] = -sn * e[j] + cs * s[j + 1];
+                        g = sn * e[j + 1];
+                        e[j + 1] = cs * e[j + 1];
+                        if (wantU && j < m - 1) rotate(u, m, j, j + 1, cs, sn);
+                    }
+                    e[p - 2] = f;
+                }
+                case 4 -> {
+                    //  converged, make s[k] non-negative and move it into its place in decreasing order
+                    if (s[k] <= 0) {
+                        s[k] = s[k] < 0 ? -s[k] : 0;
+                        if (wantV) {
+                            for (int i = k * n; i < (k + 1) * n; i++) {
+                                v[i] = -v[i];
+                            }
+                        }
+                    }
+                    while (k < last && s[k] < s[k + 1]) {
+                        double t = s[k];
+                        s[k] = s[k + 1];
+                        s[k + 1] = t;
+                        if (wantV) swapColumns(v, n, k, k + 1);
+                        if (wantU) swapColumns(u, m, k, k + 1);
+                        k++;
+                    }
+                    iterations = 0;
+                    p--;
+                }
+            }
+        }
+    }
+
+    //  (x_j, x_l) = (cs * x_j + sn * x_l, -sn * x_j + cs * x_l) for columns j and l of the column-major x
+    private static void rotate(double[] x, int rows, int j, int l, double cs, double sn) {
+        int xj = j * rows;
+        int xl = l * rows;
+        for (int i = 0; i < rows; i++) {
+            double t = cs * x[xj + i] + sn * x[xl + i];
+            x[xl + i] = -sn * x[xj + i] + cs * x[xl + i];
+            x[xj + i] = t;
+        }
+    }
+
+    private static void swapColumns(double[] x, int rows, int j, int l) {
+        int xj = j * rows;
+        int xl = l * rows;
+        for (int i = 0; i < rows; i++) {
+            double t = x[xj + i];
+            x[xj + i] = x[xl + i];
+            x[xl + i] = t;
+        }
+    }
+}
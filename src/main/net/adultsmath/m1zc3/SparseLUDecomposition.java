@@ -0,0 +1,304 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+public class SparseLUDecomposition implements MatrixDecomposition {
+    /*
+        P * A * P^T = L * U for a sparse A, by Gaussian elimination without pivoting, row by row
+
+        P is the reverse Cuthill-McKee order, which gathers the nonzeros near the diagonal so that
+        little fill can appear outside of them, and being symmetric it keeps the diagonal on the diagonal
+        Row i is scattered into a dense work row, then for each column k < i where it is nonzero,
+        in increasing order, it loses l_ik times row k of U, which can only create new nonzeros to the
+        right of k, so a single sweep over the columns still left of the diagonal finds them all
+        L (unit lower triangular, diagonal not stored) and U are kept in CSR form with only their nonzeros,
+        so the cost depends on the fill of the factors rather than on n^3
+
+        Without pivoting this is only safe for some matrices: a strictly diagonally dominant A stays
+        dominant through the elimination, and a symmetric A is positive-definite exactly when every
+        pivot comes out positive, in which case no pivot can grow either, see hasPositivePivots()
+     */
+    //  pivots smaller than this, relative to the largest entry of A, are treated as zero
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+    //  below this size a dense factorization is as fast and needs no structure checks
+    private static final int MIN_SIZE = 100;
+    //  the budget of multiply-adds is n^3 over this, dense LU needs about n^3 / 3 but its kernels
+    //  get about ten times more done per multiply-add than the indirect addressing here
+    private static final int OPERATION_RATIO = 36;
+    //  factors with more than 1 in this many entries nonzero are handed back to dense LU
+    private static final int FILL_RATIO = 8;
+
+    private final int size;
+    //  row i of P * A * P^T is row order[i] of A
+    private final int[] order;
+    private final int[] lPointers;
+    private final int[] lColumns;
+    private final double[] lValues;
+    //  the strictly upper part of U, its diagonal is kept apart
+    private final int[] uPointers;
+    private final int[] uColumns;
+    private final double[] uValues;
+    private final double[] diagonal;
+    private final boolean singular;
+    private final boolean positivePivots;
+    //  set when the elimination was stopped for needing more than the operations it was allowed
+    private final boolean abandoned;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public SparseLUDecomposition(SparseMatrix a) {
+        this(a, false);
+    }
+
+    //  bounded, the elimination is given up as soon as it is clear dense LU would be faster
+    private SparseLUDecomposition(SparseMatrix a, boolean bounded) {
+        if (!a.isSquare())
+            throw new InvalidDimensionsException("Cannot get the LU decomposition of a non-square matrix");
+        size = a.getNumRows();
+        order = a.getReverseCuthillMcKeeOrdering();
+        SparseMatrix permuted = a.getSymmetricPermutation(order);
+        int[] rowPointers = permuted.getRowPointers();
+        int[] columnIndices = permuted.getColumnIndices();
+        double[] values = permuted.getValues();
+
+        double largestEntry = 0;
+        for (int k = 0; k < a.getNumNonzeros(); k++) {
+            largestEntry = max(largestEntry, abs(values[k]));
+        }
+        double tolerance = SINGULARITY_TOLERANCE * largestEntry;
+        long maxOperations = bounded ? (long) size * size * size / OPERATION_RATIO : Long.MAX_VALUE;
+
+        int capacity = max(a.getNumNonzeros(), size);
+        int[] lIndices = new int[capacity];
+        double[] lEntries = new double[capacity];
+        int[] uIndices = new int[capacity];
+        double[] uEntries = new double[capacity];
+        lPointers = new int[size + 1];
+        uPointers = new int[size + 1];
+        diagonal = new double[size];
+
+        double[] work = new double[size];
+        //  marker[j] == i when column j is part of the pattern of row i
+        int[] marker = new int[size];
+        Arrays.fill(marker, -1);
+        int[] upperPattern = new int[size];
+        boolean isSingular = false;
+        boolean isPositive = true;
+        boolean isAbandoned = false;
+        long operations = 0;
+        int lCount = 0;
+        int uCount = 0;
+        for (int i = 0; i < size && !isAbandoned; i++) {
+            int first = i;
+            int upperCount = 0;
+            marker[i] = i;
+            work[i] = 0;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int j = columnIndices[k];
+                if (marker[j] != i) {
+                    marker[j] = i;
+                    work[j] = 0;
+                    if (j < i) first = min(first, j);
+                    else upperPattern[upperCount++] = j;
+                }
+                work[j] += values[k];
+            }
+
+            //  eliminate left of the diagonal, fill appears only in columns still ahead of k
+            for (int k = first; k < i; k++) {
+                if (marker[k] != i || diagonal[k] == 0) continue;
+                double l = work[k] / diagonal[k];
+                if (l == 0) continue;
+                if (lCount == lIndices.length) {
+                    lIndices = Arrays.copyOf(lIndices, 2 * lCount);
+                    lEntries = Arrays.copyOf(lEntries, 2 * lCount);
+                }
+                lIndices[lCount] = k;
+                lEntries[lCount] = l;
+                lCount++;
+                operations += uPointers[k + 1] - uPointers[k];
+                for (int p = uPointers[k]; p < uPointers[k + 1]; p++) {
+                    int j = uIndices[p];
+                    if (marker[j] != i) {
+                        marker[j] = i;
+                        work[j] = 0;
+                        if (j > i) upperPattern[upperCount++] = j;
+                    }
+                    work[j] -= l * uEntries[p];
+                }
+            }
+            lPointers[i + 1] = lCount;
+
+            double pivot = work[i];
+            diagonal[i] = pivot;
+            if (abs(pivot) <= tolerance) isSingular = true;
+            if (!(pivot > 0)) isPositive = false;
+
+            Arrays.sort(upperPattern, 0, upperCount);
+            if (uCount + upperCount > uIndices.length) {
+                uIndices = Arrays.copyOf(uIndices, max(2 * uIndices.length, uCount + upperCount));
+                uEntries = Arrays.copyOf(uEntries, uIndices.length);
+            }
+            for (int p = 0; p < upperCount; p++) {
+                int j = upperPattern[p];
+                if (work[j] == 0) continue;
+                uIndices[uCount] = j;
+                uEntries[uCount] = work[j];
+                uCount++;
+            }
+            uPointers[i + 1] = uCount;
+            //  factors averaging more than size / FILL_RATIO entries per row are too dense to be worth it,
+            //  which random-like patterns show early on, long before most of the work is done
+            if (operations > maxOperations
+                    || (bounded && (long) FILL_RATIO * (lCount + uCount) > (long) (i + 1) * size))
+                isAbandoned = true;
+        }
+        lColumns = lIndices;
+        lValues = lEntries;
+        uColumns = uIndices;
+        uValues = uEntries;
+        singular = isSingular;
+        positivePivots = isPositive;
+        abandoned = isAbandoned;
+    }
+
+    //  the factorization, unless the fill makes the factors too dense or the elimination too long
+    //  for it to beat dense LU, in which case null is returned
+    static SparseLUDecomposition factorIfSparse(SparseMatrix a) {
+        SparseLUDecomposition decomposition = new SparseLUDecomposition(a, true);
+        return decomposition.abandoned ? null : decomposition;
+    }
+
+    //  whether a square matrix with this structure is worth factoring in sparse form without pivoting,
+    //  a symmetric candidate still has to turn out positive-definite, see hasPositivePivots()
+    static boolean isCandidate(MatrixStructure structure) {
+        if (!structure.isSquare() || structure.getNumRows() < MIN_SIZE || !structure.isSparse()) return false;
+        return structure.isDiagonallyDominant() || (structure.isSymmetric() && structure.hasPositiveDiagonal());
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    //  the nonzeros stored for L and U together, the fill of the factorization
+    public int getNumNonzeros() {
+        return lPointers[size] + uPointers[size] + size;
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+    //  every pivot is positive, which for a symmetric A means it is positive-definite and
+    //  the factorization is as stable as Cholesky
+    public boolean hasPositivePivots() {
+        return positivePivots;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  det(A) = product of the diagonal of U, a symmetric permutation does not change the determinant
+    @Override
+    public double getDeterminant() {
+        double determinant = 1;
+        for (double pivot : diagonal) {
+            determinant *= pivot;
+        }
+        return determinant;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b[order[i]];
+        }
+        substitute(x, 1);
+        return unpermute(x, 1);
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b.getComps(order[i]);
+        }
+        substitute(x, 1);
+        return new Vector(unpermute(x, 1));
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRows() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        int columns = b.getNumColumns();
+        double[] x = new double[size * columns];
+        for (int i = 0; i < size; i++) {
+            b.copyRowInto(order[i], 0, columns, x, i * columns);
+        }
+        substitute(x, columns);
+        return new Matrix(size, columns, unpermute(x, columns));
+    }
+
+    //  A^-1 is dense even when A is sparse, so this costs O(n) solves and O(n^2) memory
+    @Override
+    public Matrix getInverse() {
+        double[] x = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            x[i * size + order[i]] = 1;
+        }
+        substitute(x, size);
+        return new Matrix(size, size, unpermute(x, size));
+    }
+
+    //  the rows of the solution of the permuted system put back in the order of A
+    private double[] unpermute(double[] x, int columns) {
+        double[] result = new double[x.length];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(x, i * columns, result, order[i] * columns, columns);
+        }
+        return result;
+    }
+
+    //  forward substitution with L then back substitution with U on a row-major block of right-hand sides
+    private void substitute(double[] x, int columns) {
+        if (singular) throw new Matrix.NotInvertibleException("This matrix is singular");
+        for (int i = 0; i < size; i++) {
+            int xi = i * columns;
+            for (int p = lPointers[i]; p < lPointers[i + 1]; p++) {
+                double l = lValues[p];
+                int xk = lColumns[p] * columns;
+                for (int c = 0; c < columns; c++) {
+                    x[xi + c] -= l * x[xk + c];
+                }
+            }
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            int xi = i * columns;
+            for (int p = uPointers[i]; p < uPointers[i + 1]; p++) {
+                double u = uValues[p];
+                int xj = uColumns[p] * columns;
+                for (int c = 0; c < columns; c++) {
+                    x[xi + c] -= u * x[xj + c];
+                }
+            }
+            double pivot = diagonal[i];
+            for (int c = 0; c < columns; c++) {
+                x[xi + c] /= pivot;
+            }
+        }
+    }
+}
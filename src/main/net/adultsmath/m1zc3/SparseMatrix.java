@@ -0,0 +1,454 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.Arrays;
+
+import static java.lang.Math.min;
+
+public class SparseMatrix implements LinearOperator {
+    /*
+        A matrix that stores only its nonzero entries, in compressed sparse row (CSR) form
+
+        The entries of row i are values[rowPointers[i]] to values[rowPointers[i + 1] - 1],
+        in increasing column order, with their columns in the same positions of columnIndices
+        That is 12 bytes per nonzero plus 4 per row, so 10 million nonzeros take about 120 MB
+
+        The CSR arrays of the transpose are the compressed sparse column (CSC) arrays of the matrix,
+        so getTranspose() is also the conversion to CSC, and fromCompressedColumns() the conversion back
+     */
+    private final int numRows;
+    private final int numColumns;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final double[] values;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    //  take the CSR arrays as they are, without copying, after checking them in one pass over the columns
+    //  the row pointers have to start at 0 and never decrease, and columns have to increase along each row
+    public SparseMatrix(int numRows, int numColumns, int[] rowPointers, int[] columnIndices, double[] values) {
+        if (numRows < 0 || numColumns < 0 || rowPointers.length != numRows + 1 || rowPointers[0] != 0
+                || columnIndices.length < rowPointers[numRows] || values.length < rowPointers[numRows])
+            throw new InvalidDimensionsException("The compressed arrays do not match the dimensions");
+        for (int i = 0; i < numRows; i++) {
+            int start = rowPointers[i];
+            int end = rowPointers[i + 1];
+            if (end < start || end > rowPointers[numRows])
+                throw new InvalidDimensionsException("The row pointers of row " + i + " are out of order");
+            for (int k = start; k < end; k++) {
+                int column = columnIndices[k];
+                if (column < 0 || column >= numColumns)
+                    throw new IndexOutOfBoundsException("(" + i + ", " + column + ") is outside the matrix");
+                if (k > start && column <= columnIndices[k - 1])
+                    throw new IllegalArgumentException("The columns of row " + i + " do not increase");
+            }
+        }
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    //  build from (row, column, value) triplets, repeated positions are added together
+    public static SparseMatrix fromTriplets(int numRows, int numColumns,
+                                            int[] rows, int[] columns, double[] entries, int count) {
+        int[] rowPointers = new int[numRows + 1];
+        for (int t = 0; t < count; t++) {
+            if (rows[t] < 0 || rows[t] >= numRows || columns[t] < 0 || columns[t] >= numColumns)
+                throw new IndexOutOfBoundsException("(" + rows[t] + ", " + columns[t] + ") is outside the matrix");
+            rowPointers[rows[t] + 1]++;
+        }
+        for (int i = 0; i < numRows; i++) {
+            rowPointers[i + 1] += rowPointers[i];
+        }
+
+        //  bucket the triplets by row, then sort and merge each row
+        int[] next = Arrays.copyOf(rowPointers, numRows);
+        int[] columnIndices = new int[count];
+        double[] values = new double[count];
+        for (int t = 0; t < count; t++) {
+            int position = next[rows[t]]++;
+            columnIndices[position] = columns[t];
+            values[position] = entries[t];
+        }
+
+        int nonzeros = 0;
+        int start = 0;
+        for (int i = 0; i < numRows; i++) {
+            int end = rowPointers[i + 1];
+            sortRow(columnIndices, values, start, end);
+            int rowStart = nonzeros;
+            for (int k = start; k < end; k++) {
+                if (nonzeros > rowStart && columnIndices[nonzeros - 1] == columnIndices[k]) {
+                    values[nonzeros - 1] += values[k];
+                } else {
+                    columnIndices[nonzeros] = columnIndices[k];
+                    values[nonzeros] = values[k];
+                    nonzeros++;
+                }
+            }
+            start = end;
+            rowPointers[i + 1] = nonzeros;
+        }
+        return new SparseMatrix(numRows, numColumns, rowPointers,
+                Arrays.copyOf(columnIndices, nonzeros), Arrays.copyOf(values, nonzeros));
+    }
+
+    //  collects triplets one at a time, for assembling a matrix entry by entry
+    public static class Builder {
+        private final int numRows;
+        private final int numColumns;
+        private int[] rows = new int[16];
+        private int[] columns = new int[16];
+        private double[] entries = new double[16];
+        private int count;
+
+        public Builder(int numRows, int numColumns) {
+            this.numRows = numRows;
+            this.numColumns = numColumns;
+        }
+
+        //  add value to entry (row, column)
+        public Builder add(int row, int column, double value) {
+            if (count == rows.length) {
+                rows = Arrays.copyOf(rows, 2 * count);
+                columns = Arrays.copyOf(columns, 2 * count);
+                entries = Arrays.copyOf(entries, 2 * count);
+            }
+            rows[count] = row;
+            columns[count] = column;
+            entries[count] = value;
+            count++;
+            return this;
+        }
+
+        public SparseMatrix build() {
+            return fromTriplets(numRows, numColumns, rows, columns, entries, count);
+        }
+    }
+
+    //  build from compressed sparse column arrays
+    public static SparseMatrix fromCompressedColumns(int numRows, int numColumns,
+                                                     int[] columnPointers, int[] rowIndices, double[] values) {
+        return new SparseMatrix(numColumns, numRows, columnPointers, rowIndices, values).getTranspose();
+    }
+
+    //  keep the entries of a dense matrix that are not 0
+    public static SparseMatrix fromMatrix(Matrix m) {
+        int rows = m.getNumRows();
+        int columns = m.getNumColumns();
+        double[] data = m.getData();
+        int step = m.getColumnStride();
+        int[] rowPointers = new int[rows + 1];
+        for (int i = 0; i < rows; i++) {
+            int start = m.index(i, 0);
+            int count = 0;
+            for (int j = start; j < start + columns * step; j += step) {
+                if (data[j] != 0) count++;
+            }
+            rowPointers[i + 1] = rowPointers[i] + count;
+        }
+        int[] columnIndices = new int[rowPointers[rows]];
+        double[] values = new double[rowPointers[rows]];
+        int k = 0;
+        for (int i = 0; i < rows; i++) {
+            int start = m.index(i, 0);
+            for (int j = 0; j < columns; j++) {
+                if (data[start + j * step] != 0) {
+                    columnIndices[k] = j;
+                    values[k] = data[start + j * step];
+                    k++;
+                }
+            }
+        }
+        return new SparseMatrix(rows, columns, rowPointers, columnIndices, values);
+    }
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    @Override
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getNumNonzeros() {
+        return rowPointers[numRows];
+    }
+
+    public boolean isSquare() {
+        return numRows == numColumns;
+    }
+
+    //  the stored CSR arrays, shared with this matrix rather than copied, so kernels outside
+    //  the class can walk the rows directly, they must not be modified
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    public double[] getValues() {
+        return values;
+    }
+
+    public double getEntry(int row, int column) {
+        if (row < 0 || row >= numRows || column < 0 || column >= numColumns)
+            throw new IndexOutOfBoundsException("(" + row + ", " + column + ") is outside the matrix");
+        int position = find(row, column);
+        return position < 0 ? 0 : values[position];
+    }
+
+    //  where entry (row, column) is stored in getValues(), or -1 if it is not stored
+    public int find(int row, int column) {
+        int position = Arrays.binarySearch(columnIndices, rowPointers[row], rowPointers[row + 1], column);
+        return position < 0 ? -1 : position;
+    }
+
+    public double[] getDiagonal() {
+        double[] diagonal = new double[min(numRows, numColumns)];
+        for (int i = 0; i < diagonal.length; i++) {
+            int position = find(i, i);
+            if (position >= 0) diagonal[i] = values[position];
+        }
+        return diagonal;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONVERSIONS
+    public Matrix toMatrix() {
+        double[] dense = new double[numRows * numColumns];
+        for (int i = 0; i < numRows; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                dense[i * numColumns + columnIndices[k]] = values[k];
+            }
+        }
+        return new Matrix(numRows, numColumns, dense);
+    }
+
+    //  A^T in CSR form, which holds the CSC arrays of A, found with one counting pass over the columns
+    public SparseMatrix getTranspose() {
+        int nonzeros = getNumNonzeros();
+        int[] pointers = new int[numColumns + 1];
+        for (int k = 0; k < nonzeros; k++) {
+            pointers[columnIndices[k] + 1]++;
+        }
+        for (int j = 0; j < numColumns; j++) {
+            pointers[j + 1] += pointers[j];
+        }
+        int[] next = Arrays.copyOf(pointers, numColumns);
+        int[] indices = new int[nonzeros];
+        double[] transposedValues = new double[nonzeros];
+        //  rows are visited in order, so the new rows come out sorted
+        for (int i = 0; i < numRows; i++) {
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                int position = next[columnIndices[k]]++;
+                indices[position] = i;
+                transposedValues[position] = values[k];
+            }
+        }
+        return new SparseMatrix(numColumns, numRows, pointers, indices, transposedValues);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  PRODUCTS
+    //  y = A * x
+    public void multiply(double[] x, double[] y) {
+        if (x.length != numColumns || y.length != numRows)
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        for (int i = 0; i < numRows; i++) {
+            double sum = 0;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                sum += values[k] * x[columnIndices[k]];
+            }
+            y[i] = sum;
+        }
+    }
+
+    @Override
+    public void apply(double[] x, double[] y) {
+        multiply(x, y);
+    }
+
+    public Vector multiply(Vector x) {
+        double[] y = new double[numRows];
+        multiply(x.toArray(), y);
+        return new Vector(y);
+    }
+
+    //  y = A^T * x, scattering each row of A instead of building the transpose
+    public void multiplyTranspose(double[] x, double[] y) {
+        if (x.length != numRows || y.length != numColumns)
+            throw new InvalidDimensionsException("The vectors do not match the dimensions of the matrix");
+        Arrays.fill(y, 0);
+        for (int i = 0; i < numRows; i++) {
+            double xi = x[i];
+            if (xi == 0) continue;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                y[columnIndices[k]] += values[k] * xi;
+            }
+        }
+    }
+
+    //  A * B for a dense B, each nonzero of A adds a multiple of a row of B to a row of the result
+    public Matrix multiply(Matrix b) {
+        if (numColumns != b.getNumRows())
+            throw new InvalidDimensionsException("Cannot multiply a " + numRows + " x " + numColumns
+                    + " matrix by a " + b.getNumRows() + " x " + b.getNumColumns() + " matrix");
+        int columns = b.getNumColumns();
+        double[] bData = b.getData();
+        int step = b.getColumnStride();
+        double[] c = new double[numRows * columns];
+        for (int i = 0; i < numRows; i++) {
+            int cRow = i * columns;
+            for (int k = rowPointers[i]; k < rowPointers[i + 1]; k++) {
+                double a = values[k];
+                int bRow = b.index(columnIndices[k], 0);
+                for (int j = 0; j < columns; j++) {
+                    c[cRow + j] += a * bData[bRow + j * step];
+                }
+            }
+        }
+        return new Matrix(numRows, columns, c);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  ORDERINGS
+    //  the reverse Cuthill-McKee order of a square matrix, order[new] = old, found on the pattern of A + A^T
+    //  each connected part is walked breadth first from a vertex of least degree, visiting neighbours
+    //  of lower degree first, and reversing the walk keeps the nonzeros of P * A * P^T close to the
+    //  diagonal, which is what limits the fill of a factorization without pivoting
+    public int[] getReverseCuthillMcKeeOrdering() {
+        if (!isSquare()) throw new InvalidDimensionsException("Orderings need a square matrix");
+        SparseMatrix transpose = getTranspose();
+        int[] degrees = new int[numRows];
+        for (int i = 0; i < numRows; i++) {
+            degrees[i] = rowPointers[i + 1] - rowPointers[i] + transpose.rowPointers[i + 1] - transpose.rowPointers[i];
+        }
+        Integer[] byDegree = new Integer[numRows];
+        for (int i = 0; i < numRows; i++) {
+            byDegree[i] = i;
+        }
+        Arrays.sort(byDegree, (i, j) -> Integer.compare(degrees[i], degrees[j]));
+
+        int[] order = new int[numRows];
+        boolean[] visited = new boolean[numRows];
+        int[] neighbours = new int[numRows];
+        int count = 0;
+        for (int start : byDegree) {
+            if (visited[start]) continue;
+            visited[start] = true;
+            order[count++] = start;
+            for (int head = count - 1; head < count; head++) {
+                int vertex = order[head];
+                int found = collectUnvisited(this, vertex, visited, neighbours, 0);
+                found = collectUnvisited(transpose, vertex, visited, neighbours, found);
+                //  by increasing degree, by insertion since there are only a few
+                for (int a = 1; a < found; a++) {
+                    int neighbour = neighbours[a];
+                    int b = a - 1;
+                    while (b >= 0 && degrees[neighbours[b]] > degrees[neighbour]) {
+                        neighbours[b + 1] = neighbours[b];
+                        b--;
+                    }
+                    neighbours[b + 1] = neighbour;
+                }
+                System.arraycopy(neighbours, 0, order, count, found);
+                count += found;
+            }
+        }
+        for (int i = 0; i < numRows / 2; i++) {
+            int temp = order[i];
+            order[i] = order[numRows - 1 - i];
+            order[numRows - 1 - i] = temp;
+        }
+        return order;
+    }
+
+    //  append the columns of row vertex that have not been visited yet to neighbours, marking them visited
+    private static int collectUnvisited(SparseMatrix pattern, int vertex, boolean[] visited,
+                                        int[] neighbours, int found) {
+        for (int k = pattern.rowPointers[vertex]; k < pattern.rowPointers[vertex + 1]; k++) {
+            int neighbour = pattern.columnIndices[k];
+            if (visited[neighbour]) continue;
+            visited[neighbour] = true;
+            neighbours[found++] = neighbour;
+        }
+        return found;
+    }
+
+    //  P * A * P^T for the permutation with order[new] = old, entry (i, j) is entry (order[i], order[j]) of A
+    public SparseMatrix getSymmetricPermutation(int[] order) {
+        if (!isSquare() || order.length != numRows)
+            throw new InvalidDimensionsException("The order has to list every row of a square matrix");
+        int[] position = new int[numRows];
+        for (int i = 0; i < numRows; i++) {
+            position[order[i]] = i;
+        }
+        int[] pointers = new int[numRows + 1];
+        for (int i = 0; i < numRows; i++) {
+            pointers[i + 1] = pointers[i] + rowPointers[order[i] + 1] - rowPointers[order[i]];
+        }
+        int[] indices = new int[pointers[numRows]];
+        double[] permutedValues = new double[pointers[numRows]];
+        for (int i = 0; i < numRows; i++) {
+            int k = pointers[i];
+            for (int p = rowPointers[order[i]]; p < rowPointers[order[i] + 1]; p++, k++) {
+                indices[k] = position[columnIndices[p]];
+                permutedValues[k] = values[p];
+            }
+            sortRow(indices, permutedValues, pointers[i], pointers[i + 1]);
+        }
+        return new SparseMatrix(numRows, numColumns, pointers, indices, permutedValues);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  sort one row by column, short rows by insertion and long ones through a packed key sort
+    private static void sortRow(int[] columns, double[] entries, int start, int end) {
+        if (end - start > 32) {
+            long[] keys = new long[end - start];
+            for (int k = start; k < end; k++) {
+                keys[k - start] = (long) columns[k] << 32 | (k - start);
+            }
+            Arrays.sort(keys);
+            double[] sorted = new double[end - start];
+            for (int k = 0; k < keys.length; k++) {
+                columns[start + k] = (int) (keys[k] >>> 32);
+                sorted[k] = entries[start + (int) keys[k]];
+            }
+            System.arraycopy(sorted, 0, entries, start, sorted.length);
+            return;
+        }
+        for (int k = start + 1; k < end; k++) {
+            int column = columns[k];
+            double entry = entries[k];
+            int position = k - 1;
+            while (position >= start && columns[position] > column) {
+                columns[position + 1] = columns[position];
+                entries[position + 1] = entries[position];
+                position--;
+            }
+            columns[position + 1] = column;
+            entries[position + 1] = entry;
+        }
+    }
+}
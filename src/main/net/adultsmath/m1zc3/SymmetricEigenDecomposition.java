@@ -0,0 +1,301 @@
+package main.net.adultsmath.m1zc3;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.Math.*;
+
+public class SymmetricEigenDecomposition {
+    /*
+        A = Q * D * Q^T for a symmetric A, D diagonal holding the eigenvalues, Q orthogonal
+        holding an orthonormal eigenvector in each column
+
+        A is reduced to a symmetric tridiagonal T = Z^T * A * Z by Householder reflections,
+        then the implicit QL algorithm rotates T to diagonal form, applying every rotation to Z
+        Both stages are O(n^3) and there is no characteristic polynomial or elimination involved,
+        so repeated eigenvalues still get a full orthonormal set of eigenvectors
+        (after the Algol procedures tred2 and tql2 of Wilkinson and Reinsch)
+
+        The eigenvectors are kept as the rows of one row-major array, so every rotation
+        updates two contiguous rows
+     */
+    private static final int MAX_ITERATIONS_PER_EIGENVALUE = 30;
+
+    private final int size;
+    //  in increasing order
+    private final double[] eigenvalues;
+    //  row i is the unit eigenvector of eigenvalues[i]
+    private final double[] eigenvectors;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public SymmetricEigenDecomposition(Matrix a) {
+        if (!a.getStructure().isSymmetricToRounding())
+            throw new IllegalArgumentException("The symmetric eigen decomposition needs a symmetric matrix");
+        size = a.getNumRows();
+        double[] z = a.toArray();
+        double[] d = new double[size];
+        double[] e = new double[size];
+        tridiagonalize(z, d, e);
+
+        //  Z^T, so the columns of Z become contiguous rows
+        double[] rows = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                rows[j * size + i] = z[i * size + j];
+            }
+        }
+        diagonalize(rows, d, e);
+
+        //  sort the eigenvalues, and their eigenvectors with them, by selection
+        eigenvalues = d;
+        eigenvectors = rows;
+        for (int i = 0; i < size - 1; i++) {
+            int smallest = i;
+            for (int j = i + 1; j < size; j++) {
+                if (d[j] < d[smallest]) smallest = j;
+            }
+            if (smallest == i) continue;
+            double temp = d[i];
+            d[i] = d[smallest];
+            d[smallest] = temp;
+            for (int k = 0; k < size; k++) {
+                temp = rows[i * size + k];
+                rows[i * size + k] = rows[smallest * size + k];
+                rows[smallest * size + k] = temp;
+            }
+        }
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    //  the eigenvalues in increasing order, repeated ones appear as many times as their multiplicity
+    public double[] getEigenvalues() {
+        return eigenvalues.clone();
+    }
+
+    public double getEigenvalue(int index) {
+        return eigenvalues[index];
+    }
+
+    //  the unit eigenvector of getEigenvalue(index)
+    public Vector getEigenvector(int index) {
+        double[] v = new double[size];
+        System.arraycopy(eigenvectors, index * size, v, 0, size);
+        return new Vector(v);
+    }
+
+    //  Q, the eigenvectors as columns, in the order of getEigenvalues()
+    public Matrix getQ() {
+        double[] q = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                q[j * size + i] = eigenvectors[i * size + j];
+            }
+        }
+        return new Matrix(size, size, q);
+    }
+
+    public Matrix getD() {
+        double[] diagonal = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            diagonal[i * size + i] = eigenvalues[i];
+        }
+        return new Matrix(size, size, diagonal);
+    }
+
+    public MatrixDiagonalized toMatrixDiagonalized() {
+        Map<VectorSet, Double> eigenMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            eigenMap.put(new VectorSet(getEigenvector(i)), eigenvalues[i]);
+        }
+        return new MatrixDiagonalized(eigenMap);
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  Householder tridiagonalization, z holds A on entry and the accumulated transformation Z on exit,
+    //  d the diagonal of T and e its subdiagonal in e[1..n-1]
+    private void tridiagonalize(double[] z, double[] d, double[] e) {
+        int n = size;
+        for (int j = 0; j < n; j++) {
+            d[j] = z[(n - 1) * n + j];
+        }
+
+        //  reduce the rows from the bottom up, the reflection for row i lives in the first i entries
+        for (int i = n - 1; i > 0; i--) {
+            double scale = 0;
+            double h = 0;
+            for (int k = 0; k < i; k++) {
+                scale += abs(d[k]);
+            }
+            if (scale == 0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = z[(i - 1) * n + j];
+                    z[i * n + j] = 0;
+                    z[j * n + i] = 0;
+                }
+            } else {
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+                double f = d[i - 1];
+                double g = sqrt(h);
+                if (f > 0) g = -g;
+                e[i] = scale * g;
+                h -= f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) {
+                    e[j] = 0;
+                }
+
+                //  e = A * u over the leading i x i block, using only its lower triangle
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    z[j * n + i] = f;
+                    g = e[j] + z[j * n + j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += z[k * n + j] * d[k];
+                        e[k] += z[k * n + j] * f;
+                    }
+                    e[j] = g;
+                }
+                f = 0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) {
+                    e[j] -= hh * d[j];
+                }
+                //  the rank 2 update A -= u * e^T + e * u^T
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) {
+                        z[k * n + j] -= f * e[k] + g * d[k];
+                    }
+                    d[j] = z[(i - 1) * n + j];
+                    z[i * n + j] = 0;
+                }
+            }
+            d[i] = h;
+        }
+
+        //  accumulate the reflections into Z
+        for (int i = 0; i < n - 1; i++) {
+            z[(n - 1) * n + i] = z[i * n + i];
+            z[i * n + i] = 1;
+            double h = d[i + 1];
+            if (h != 0) {
+                for (int k = 0; k <= i; k++) {
+                    d[k] = z[k * n + i + 1] / h;
+                }
+                for (int j = 0; j <= i; j++) {
+                    double g = 0;
+                    for (int k = 0; k <= i; k++) {
+                        g += z[k * n + i + 1] * z[k * n + j];
+                    }
+                    for (int k = 0; k <= i; k++) {
+                        z[k * n + j] -= g * d[k];
+                    }
+                }
+            }
+            for (int k = 0; k <= i; k++) {
+                z[k * n + i + 1] = 0;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            d[j] = z[(n - 1) * n + j];
+            z[(n - 1) * n + j] = 0;
+        }
+        z[(n - 1) * n + n - 1] = 1;
+        e[0] = 0;
+    }
+
+    //  the implicit QL algorithm on the tridiagonal (d, e), applying the rotations to the rows of v
+    //  on exit d holds the eigenvalues and row i of v the eigenvector of d[i]
+    private void diagonalize(double[] v, double[] d, double[] e) {
+        int n = size;
+        for (int i = 1; i < n; i++) {
+            e[i - 1] = e[i];
+        }
+        e[n - 1] = 0;
+
+        double epsilon = ulp(1.0);
+        double shift = 0;
+        double norm = 0;
+        for (int l = 0; l < n; l++) {
+            //  find a negligible subdiagonal entry at m, splitting off the block [l, m]
+            norm = max(norm, abs(d[l]) + abs(e[l]));
+            int m = l;
+            while (m < n - 1 && abs(e[m]) > epsilon * norm) {
+                m++;
+            }
+
+            int iterations = 0;
+            while (m > l) {
+                if (++iterations > MAX_ITERATIONS_PER_EIGENVALUE)
+                    throw new EigenvalueSolver.NotConvergedException("The QL algorithm did not converge");
+
+                //  the Wilkinson shift, the eigenvalue of the leading 2 x 2 block closest to d[l]
+                double g = d[l];
+                double p = (d[l + 1] - g) / (2 * e[l]);
+                double r = hypot(p, 1);
+                if (p < 0) r = -r;
+                d[l] = e[l] / (p + r);
+                d[l + 1] = e[l] * (p + r);
+                double dl1 = d[l + 1];
+                double h = g - d[l];
+                for (int i = l + 2; i < n; i++) {
+                    d[i] -= h;
+                }
+                shift += h;
+
+                //  chase the bulge from m up to l with plane rotations
+                p = d[m];
+                double c = 1, c2 = 1, c3 = 1;
+                double el1 = e[l + 1];
+                double s = 0, s2 = 0;
+                for (int i = m - 1; i >= l; i--) {
+                    c3 = c2;
+                    c2 = c;
+                    s2 = s;
+                    g = c * e[i];
+                    h = c * p;
+                    r = hypot(p, e[i]);
+                    e[i + 1] = s * r;
+                    s = e[i] / r;
+                    c = p / r;
+                    p = c * d[i] - s * g;
+                    d[i + 1] = h + s * (c * g + s * d[i]);
+
+                    int rowI = i * n;
+                    int rowNext = rowI + n;
+                    for (int k = 0; k < n; k++) {
+                        double next = v[rowNext + k];
+                        v[rowNext + k] = s * v[rowI + k] + c * next;
+                        v[rowI + k] = c * v[rowI + k] - s * next;
+                    }
+                }
+                p = -s * s2 * c3 * el1 * e[l] / dl1;
+                e[l] = s * p;
+                d[l] = c * p;
+
+                if (abs(e[l]) <= epsilon * norm) break;
+            }
+            d[l] += shift;
+            e[l] = 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package main.net.adultsmath.m1zc3;
+
+import static java.lang.Math.*;
+
+public class TriangularDecomposition implements MatrixDecomposition {
+    /*
+        A triangular A is its own factorization, so nothing is eliminated at all
+
+        The determinant is the product of the diagonal and every solve is a single forward
+        (lower triangular) or back (upper triangular) substitution, O(n^2) instead of the O(n^3) of LU
+        A diagonal matrix counts as upper triangular
+     */
+    //  diagonal entries smaller than this, relative to the largest entry of A, are treated as zero
+    private static final double SINGULARITY_TOLERANCE = 1E-12;
+    //  right-hand sides are substituted this many columns at a time so the rows being updated stay in cache
+    private static final int PANEL_WIDTH = 64;
+
+    private final int size;
+    private final double[] t;
+    private final boolean lower;
+    private final boolean singular;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    public TriangularDecomposition(Matrix a) {
+        MatrixStructure structure = a.getStructure();
+        if (!structure.isSquare())
+            throw new InvalidDimensionsException("Only a square matrix can be triangular");
+        if (!structure.isTriangular()) throw new IllegalArgumentException("This matrix is not triangular");
+        size = a.getNumRows();
+        t = a.toArray();
+        lower = !structure.isUpperTriangular();
+
+        double largestEntry = 0;
+        for (double entry : t) {
+            largestEntry = max(largestEntry, abs(entry));
+        }
+        boolean isSingular = false;
+        for (int i = 0; i < size; i++) {
+            if (abs(t[i * size + i]) <= SINGULARITY_TOLERANCE * largestEntry) isSingular = true;
+        }
+        singular = isSingular;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isLower() {
+        return lower;
+    }
+
+    @Override
+    public boolean isSingular() {
+        return singular;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    @Override
+    public double getDeterminant() {
+        double determinant = 1;
+        for (int i = 0; i < size; i++) {
+            determinant *= t[i * size + i];
+        }
+        return determinant;
+    }
+
+    @Override
+    public double[] solve(double[] b) {
+        if (b.length != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = b.clone();
+        substitute(x, 1);
+        return x;
+    }
+
+    @Override
+    public Vector solve(Vector b) {
+        if (b.getSize() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = b.getComps(i);
+        }
+        substitute(x, 1);
+        return new Vector(x);
+    }
+
+    @Override
+    public Matrix solve(Matrix b) {
+        if (b.getNumRows() != size)
+            throw new InvalidDimensionsException("The right-hand side does not match the size of the matrix");
+        int columns = b.getNumColumns();
+        double[] x = b.toArray();
+        substitute(x, columns);
+        return new Matrix(size, columns, x);
+    }
+
+    //  the inverse of a triangular matrix is triangular the same way
+    @Override
+    public Matrix getInverse() {
+        double[] x = new double[size * size];
+        for (int i = 0; i < size; i++) {
+            x[i * size + i] = 1;
+        }
+        substitute(x, size);
+        return new Matrix(size, size, x);
+    }
+
+    //  forward or back substitution on a row-major block of right-hand sides, overwriting it
+    private void substitute(double[] x, int columns) {
+        if (singular) throw new Matrix.NotInvertibleException("This matrix is singular");
+        for (int c0 = 0; c0 < columns; c0 += PANEL_WIDTH) {
+            int c1 = min(c0 + PANEL_WIDTH, columns);
+            for (int step = 0; step < size; step++) {
+                int i = lower ? step : size - 1 - step;
+                int xi = i * columns;
+                int first = lower ? 0 : i + 1;
+                int last = lower ? i : size;
+                for (int j = first; j < last; j++) {
+                    double entry = t[i * size + j];
+                    if (entry == 0) continue;
+                    int xj = j * columns;
+                    for (int c = c0; c < c1; c++) {
+                        x[xi + c] -= entry * x[xj + c];
+                    }
+                }
+                double diagonal = t[i * size + i];
+                for (int c = c0; c < c1; c++) {
+                    x[xi + c] /= diagonal;
+                }
+            }
+        }
+    }
+}
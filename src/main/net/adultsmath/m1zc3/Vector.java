@@ -48,6 +48,14 @@ public class Vector {
         return size;
     }
 
+    public double[] toArray() {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = comps.get(i);
+        }
+        return values;
+    }
+
 
     // --------------------------------------------------------------------------------------
 
@@ -174,16 +182,13 @@ public class Vector {
     //  show the vector as a string
     @Override
     public String toString() {
-        String outputString = "V(";
+        StringBuilder outputString = new StringBuilder("V(");
         for (int i = 0; i < size; i++) {
-            if (i == size - 1) {
-                outputString += this.getComps(i);
-            } else {
-                outputString += this.getComps(i) + ", ";
-            }
+            if (i > 0) outputString.append(", ");
+            outputString.append(this.getComps(i));
         }
-        outputString += ")";
-        return outputString;
+        outputString.append(")");
+        return outputString.toString();
     }
 
     @Override
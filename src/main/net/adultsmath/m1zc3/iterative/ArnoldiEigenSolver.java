@@ -0,0 +1,391 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.EigenvalueSolver;
+import main.net.adultsmath.m1zc3.LinearOperator;
+import main.net.adultsmath.m1zc3.Matrix;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+public class ArnoldiEigenSolver extends KrylovEigenSolver {
+    /*
+        The implicitly restarted Arnoldi method, for general (non-symmetric) operators
+
+        Arnoldi builds A * V_m = V_m * H_m + f * e_m^T with H_m upper Hessenberg, its eigenvalues are the Ritz values
+        At a restart the unwanted Ritz values are used as exact shifts of QR steps on H_m, H_m = Q^T * H_m * Q,
+        which filters their directions out of the starting vector without any new products with A,
+        and the first k columns of V_m * Q continue as an Arnoldi basis of length k
+        Complex conjugate shifts are applied together as one real double shift, and conjugate
+        pairs are never split between the kept and the discarded part
+     */
+
+    public ArnoldiEigenSolver(int numEigenpairs, EigenvalueTarget target) {
+        this(numEigenpairs, target, defaultSubspaceSize(numEigenpairs), DEFAULT_TOLERANCE, DEFAULT_MAX_RESTARTS);
+    }
+
+    public ArnoldiEigenSolver(int numEigenpairs, EigenvalueTarget target, int subspaceSize,
+                              double tolerance, int maxRestarts) {
+        super(numEigenpairs, target, subspaceSize, tolerance, maxRestarts);
+    }
+
+    @Override
+    protected KrylovEigenpairs iterate(LinearOperator a, int n, int m) {
+        int k = getNumEigenpairs();
+        double[][] basis = new double[m + 1][];
+        for (int i = 0; i <= m; i++) {
+            basis[i] = new double[n];
+        }
+        //  H_m, with the subdiagonal entry beta_m kept separately
+        double[][] h = new double[m][m];
+        double[] coefficients = new double[m];
+        startVector(basis[0]);
+
+        int kept = 0;
+        int restarts = 0;
+        while (true) {
+            double beta = 0;
+            for (int j = kept; j < m; j++) {
+                double[] w = basis[j + 1];
+                a.apply(basis[j], w);
+                Arrays.fill(coefficients, 0);
+                orthogonalize(basis, j + 1, w, coefficients);
+                for (int i = 0; i <= j; i++) {
+                    h[i][j] = coefficients[i];
+                }
+                beta = normalize(basis, j + 1, w);
+                if (j < m - 1) h[j + 1][j] = beta;
+            }
+
+            //  the Ritz values, ordered from most wanted, with conjugate pairs kept together
+            EigenvalueSolver ritz = new Matrix(h).getEigenvalueSolver();
+            double[] re = ritz.getRealParts();
+            double[] im = ritz.getImaginaryParts();
+            int[] order = order(re, im);
+            int wanted = k;
+            if (wanted < m && im[order[wanted - 1]] != 0 && isConjugate(re, im, order[wanted - 1], order[wanted]))
+                wanted++;
+
+            //  the eigenvectors of H_m for the wanted Ritz values, with their residuals
+            double[][] sRe = new double[wanted][];
+            double[][] sIm = new double[wanted][];
+            boolean converged = true;
+            for (int j = 0; j < k; j++) {
+                double[][] s = eigenvector(h, re[order[j]], im[order[j]]);
+                sRe[j] = s[0];
+                sIm[j] = s[1];
+                double residual = abs(beta) * hypot(s[0][m - 1], s[1][m - 1]);
+                if (residual > getTolerance() * max(hypot(re[order[j]], im[order[j]]), ulp(1.0))) converged = false;
+            }
+
+            if (converged || restarts == getMaxRestarts() || m == n || wanted >= m - 1) {
+                double[] values = new double[k];
+                double[] imaginary = new double[k];
+                double[][] vectors = new double[k][];
+                double[][] imaginaryVectors = new double[k][];
+                for (int j = 0; j < k; j++) {
+                    values[j] = re[order[j]];
+                    imaginary[j] = im[order[j]];
+                    vectors[j] = combine(basis, m, sRe[j]);
+                    imaginaryVectors[j] = combine(basis, m, sIm[j]);
+                }
+                return new KrylovEigenpairs(values, imaginary, vectors, imaginaryVectors,
+                        restarts, converged || m == n);
+            }
+
+            //  apply the unwanted Ritz values as shifts, accumulating the orthogonal Q
+            double[][] q = new double[m][m];
+            for (int i = 0; i < m; i++) {
+                q[i][i] = 1;
+            }
+            for (int j = wanted; j < m; j++) {
+                int shift = order[j];
+                if (im[shift] == 0) {
+                    singleShift(h, q, re[shift]);
+                } else {
+                    //  the conjugate is the next one in the order, as pairs are kept together
+                    doubleShift(h, q, 2 * re[shift], re[shift] * re[shift] + im[shift] * im[shift]);
+                    j++;
+                }
+            }
+
+            //  f = v_wanted * H[wanted][wanted - 1] + f_m * Q[m - 1][wanted - 1], then V_wanted = V_m * Q
+            double[] f = new double[n];
+            double[] fm = basis[m];
+            IterativeSolver.axpy(beta * q[m - 1][wanted - 1], fm, f);
+            double[][] rotated = combine(basis, m, q, wanted + 1, n);
+            IterativeSolver.axpy(h[wanted][wanted - 1], rotated[wanted], f);
+            for (int j = 0; j < wanted; j++) {
+                basis[j] = rotated[j];
+            }
+            for (int j = wanted; j <= m; j++) {
+                basis[j] = new double[n];
+            }
+            basis[wanted] = f;
+            orthogonalize(basis, wanted, f, new double[wanted]);
+            double newBeta = normalize(basis, wanted, basis[wanted]);
+
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < m; j++) {
+                    if (i >= wanted || j >= wanted) h[i][j] = 0;
+                }
+            }
+            h[wanted][wanted - 1] = newBeta;
+            kept = wanted;
+            restarts++;
+        }
+    }
+
+    //  indices of the Ritz values from most to least wanted, of a conjugate pair the one with im > 0 first
+    private int[] order(double[] re, double[] im) {
+        int m = re.length;
+        Integer[] indices = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (i, j) -> {
+            //  conjugates have the same priority, so they end up next to each other
+            int byPriority = Double.compare(getTarget().priority(re[j], im[j]), getTarget().priority(re[i], im[i]));
+            return byPriority != 0 ? byPriority : Double.compare(im[j], im[i]);
+        });
+        int[] order = new int[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = indices[i];
+        }
+        return order;
+    }
+
+    private static boolean isConjugate(double[] re, double[] im, int i, int j) {
+        return im[i] != 0 && re[i] == re[j] && im[i] == -im[j];
+    }
+
+    //  x = V_m * s
+    private static double[] combine(double[][] basis, int m, double[] s) {
+        double[] x = new double[basis[0].length];
+        for (int i = 0; i < m; i++) {
+            if (s[i] != 0) IterativeSolver.axpy(s[i], basis[i], x);
+        }
+        return x;
+    }
+
+    //  the unit eigenvector s of the small matrix h for the eigenvalue re + i * im, by inverse iteration,
+    //  as {real part, imaginary part}
+    private static double[][] eigenvector(double[][] h, double re, double im) {
+        int m = h.length;
+        double norm = 0;
+        for (double[] row : h) {
+            for (double entry : row) {
+                norm = max(norm, abs(entry));
+            }
+        }
+        //  a tiny perturbation keeps H - theta * I from being exactly singular
+        double perturbation = max(norm, 1) * 1E-13;
+
+        //  complex LU of H - theta * I with partial pivoting
+        double[][] ar = new double[m][m];
+        double[][] ai = new double[m][m];
+        for (int i = 0; i < m; i++) {
+            ar[i] = h[i].clone();
+            ar[i][i] -= re + perturbation;
+            ai[i][i] = -im;
+        }
+        int[] pivot = new int[m];
+        for (int c = 0; c < m; c++) {
+            int p = c;
+            for (int i = c + 1; i < m; i++) {
+                if (hypot(ar[i][c], ai[i][c]) > hypot(ar[p][c], ai[p][c])) p = i;
+            }
+            pivot[c] = p;
+            double[] temp = ar[p];
+            ar[p] = ar[c];
+            ar[c] = temp;
+            temp = ai[p];
+            ai[p] = ai[c];
+            ai[c] = temp;
+            if (ar[c][c] == 0 && ai[c][c] == 0) ar[c][c] = perturbation;
+            double dr = ar[c][c];
+            double di = ai[c][c];
+            double d2 = dr * dr + di * di;
+            for (int i = c + 1; i < m; i++) {
+                //  l = a[i][c] / a[c][c]
+                double lr = (ar[i][c] * dr + ai[i][c] * di) / d2;
+                double li = (ai[i][c] * dr - ar[i][c] * di) / d2;
+                ar[i][c] = lr;
+                ai[i][c] = li;
+                for (int j = c + 1; j < m; j++) {
+                    ar[i][j] -= lr * ar[c][j] - li * ai[c][j];
+                    ai[i][j] -= lr * ai[c][j] + li * ar[c][j];
+                }
+            }
+        }
+
+        double[] xr = new double[m];
+        double[] xi = new double[m];
+        Arrays.fill(xr, 1);
+        for (int iteration = 0; iteration < 3; iteration++) {
+            for (int c = 0; c < m; c++) {
+                int p = pivot[c];
+                double t = xr[p];
+                xr[p] = xr[c];
+                xr[c] = t;
+                t = xi[p];
+                xi[p] = xi[c];
+                xi[c] = t;
+                for (int i = c + 1; i < m; i++) {
+                    xr[i] -= ar[i][c] * xr[c] - ai[i][c] * xi[c];
+                    xi[i] -= ar[i][c] * xi[c] + ai[i][c] * xr[c];
+                }
+            }
+            for (int i = m - 1; i >= 0; i--) {
+                double sr = xr[i];
+                double si = xi[i];
+                for (int j = i + 1; j < m; j++) {
+                    sr -= ar[i][j] * xr[j] - ai[i][j] * xi[j];
+                    si -= ar[i][j] * xi[j] + ai[i][j] * xr[j];
+                }
+                double dr = ar[i][i];
+                double di = ai[i][i];
+                double d2 = dr * dr + di * di;
+                xr[i] = (sr * dr + si * di) / d2;
+                xi[i] = (si * dr - sr * di) / d2;
+            }
+            double length = 0;
+            for (int i = 0; i < m; i++) {
+                length = hypot(length, hypot(xr[i], xi[i]));
+            }
+            for (int i = 0; i < m; i++) {
+                xr[i] /= length;
+                xi[i] /= length;
+            }
+        }
+        return new double[][]{xr, xi};
+    }
+
+    //  one QR step H - mu * I = Q1 * R, H = R * Q1 + mu * I, by Givens rotations, q = q * Q1
+    private static void singleShift(double[][] h, double[][] q, double mu) {
+        int m = h.length;
+        double[] cosines = new double[m - 1];
+        double[] sines = new double[m - 1];
+        for (int i = 0; i < m; i++) {
+            h[i][i] -= mu;
+        }
+        for (int i = 0; i < m - 1; i++) {
+            double x = h[i][i];
+            double y = h[i + 1][i];
+            double r = hypot(x, y);
+            double c = r == 0 ? 1 : x / r;
+            double s = r == 0 ? 0 : y / r;
+            cosines[i] = c;
+            sines[i] = s;
+            for (int j = 0; j < m; j++) {
+                double upper = h[i][j];
+                double lower = h[i + 1][j];
+                h[i][j] = c * upper + s * lower;
+                h[i + 1][j] = -s * upper + c * lower;
+            }
+        }
+        for (int i = 0; i < m - 1; i++) {
+            double c = cosines[i];
+            double s = sines[i];
+            rotateColumns(h, i, c, s);
+            rotateColumns(q, i, c, s);
+        }
+        for (int i = 0; i < m; i++) {
+            h[i][i] += mu;
+        }
+        clearBelowSubdiagonal(h);
+    }
+
+    private static void rotateColumns(double[][] x, int i, double c, double s) {
+        for (double[] row : x) {
+            double left = row[i];
+            double right = row[i + 1];
+            row[i] = c * left + s * right;
+            row[i + 1] = -s * left + c * right;
+        }
+    }
+
+    //  the QR step for the shifts mu and conj(mu) at once, with M = H^2 - sum * H + product * I = Q2 * R,
+    //  H = Q2^T * H * Q2, q = q * Q2, all in real arithmetic
+    private static void doubleShift(double[][] h, double[][] q, double sum, double product) {
+        int m = h.length;
+        double[][] shifted = new double[m][m];
+        for (int i = 0; i < m; i++) {
+            for (int l = 0; l < m; l++) {
+                double hil = h[i][l];
+                if (hil == 0) continue;
+                for (int j = 0; j < m; j++) {
+                    shifted[i][j] += hil * h[l][j];
+                }
+            }
+            for (int j = 0; j < m; j++) {
+                shifted[i][j] -= sum * h[i][j];
+            }
+            shifted[i][i] += product;
+        }
+
+        //  Householder QR of M, each reflection applied to H from both sides and to q from the right
+        double[] v = new double[m];
+        for (int c = 0; c < m - 1; c++) {
+            double norm = 0;
+            for (int i = c; i < m; i++) {
+                norm = hypot(norm, shifted[i][c]);
+            }
+            if (norm == 0) continue;
+            double alpha = shifted[c][c] > 0 ? -norm : norm;
+            Arrays.fill(v, 0);
+            for (int i = c; i < m; i++) {
+                v[i] = shifted[i][c];
+            }
+            v[c] -= alpha;
+            double vSquared = 0;
+            for (int i = c; i < m; i++) {
+                vSquared += v[i] * v[i];
+            }
+            if (vSquared == 0) continue;
+            double tau = 2 / vSquared;
+            reflectRows(shifted, v, tau, c);
+            reflectRows(h, v, tau, c);
+            reflectColumns(h, v, tau, c);
+            reflectColumns(q, v, tau, c);
+        }
+        clearBelowSubdiagonal(h);
+    }
+
+    //  x = (I - tau * v * v^T) * x, v is zero before index start
+    private static void reflectRows(double[][] x, double[] v, double tau, int start) {
+        int columns = x[0].length;
+        for (int j = 0; j < columns; j++) {
+            double dot = 0;
+            for (int i = start; i < x.length; i++) {
+                dot += v[i] * x[i][j];
+            }
+            dot *= tau;
+            for (int i = start; i < x.length; i++) {
+                x[i][j] -= dot * v[i];
+            }
+        }
+    }
+
+    //  x = x * (I - tau * v * v^T)
+    private static void reflectColumns(double[][] x, double[] v, double tau, int start) {
+        for (double[] row : x) {
+            double dot = 0;
+            for (int i = start; i < row.length; i++) {
+                dot += row[i] * v[i];
+            }
+            dot *= tau;
+            for (int i = start; i < row.length; i++) {
+                row[i] -= dot * v[i];
+            }
+        }
+    }
+
+    private static void clearBelowSubdiagonal(double[][] h) {
+        for (int i = 2; i < h.length; i++) {
+            for (int j = 0; j < i - 1; j++) {
+                h[i][j] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.LinearOperator;
+
+public class BiCGSTAB extends IterativeSolver {
+    /*
+        The biconjugate gradient stabilized method for general non-symmetric A
+
+        Two products with A per iteration and a fixed amount of memory (nine vectors),
+        it can break down when A is far from normal, in which case GMRES is the safer choice
+        The preconditioner is applied on the right, so the residual it checks is the true one
+     */
+
+    public BiCGSTAB() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    public BiCGSTAB(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+    }
+
+    @Override
+    protected IterativeSolution iterate(LinearOperator a, Preconditioner m, double[] b, double[] x,
+                                        double threshold, int maxIterations) {
+        int n = b.length;
+        double[] r = new double[n];
+        residual(a, b, x, r);
+        double[] rHat = r.clone();
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] t = new double[n];
+        //  the preconditioned search directions, A is applied to M^-1 * p and M^-1 * s
+        double[] pHat = new double[n];
+        double[] sHat = new double[n];
+        double rho = 1;
+        double alpha = 1;
+        double omega = 1;
+        double residualNorm = norm(r);
+
+        int iteration = 0;
+        while (residualNorm > threshold && iteration < maxIterations) {
+            double rhoNext = dot(rHat, r);
+            //  breakdown, r has become orthogonal to the shadow residual
+            if (rhoNext == 0 || omega == 0) break;
+            double beta = (rhoNext / rho) * (alpha / omega);
+            for (int i = 0; i < n; i++) {
+                p[i] = r[i] + beta * (p[i] - omega * v[i]);
+            }
+            m.apply(p, pHat);
+            a.apply(pHat, v);
+            alpha = rhoNext / dot(rHat, v);
+            for (int i = 0; i < n; i++) {
+                s[i] = r[i] - alpha * v[i];
+            }
+            iteration++;
+
+            double sNorm = norm(s);
+            if (sNorm <= threshold) {
+                axpy(alpha, pHat, x);
+                System.arraycopy(s, 0, r, 0, n);
+                residualNorm = sNorm;
+                break;
+            }
+
+            m.apply(s, sHat);
+            a.apply(sHat, t);
+            omega = dot(t, s) / dot(t, t);
+            for (int i = 0; i < n; i++) {
+                x[i] += alpha * pHat[i] + omega * sHat[i];
+                r[i] = s[i] - omega * t[i];
+            }
+            rho = rhoNext;
+            residualNorm = norm(r);
+        }
+        return new IterativeSolution(x, iteration, residualNorm, residualNorm <= threshold);
+    }
+}
@@ -0,0 +1,58 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.LinearOperator;
+
+public class ConjugateGradient extends IterativeSolver {
+    /*
+        The conjugate gradient method, only for symmetric positive-definite A
+
+        Each iteration minimizes the A-norm of the error over a search direction A-orthogonal to all
+        the previous ones, using one product A * p and four vectors besides x
+        The preconditioner has to be symmetric positive-definite too, Jacobi and SSOR of an SPD matrix always are
+     */
+
+    public ConjugateGradient() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    public ConjugateGradient(double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+    }
+
+    @Override
+    protected IterativeSolution iterate(LinearOperator a, Preconditioner m, double[] b, double[] x,
+                                        double threshold, int maxIterations) {
+        int n = b.length;
+        double[] r = new double[n];
+        residual(a, b, x, r);
+        double[] z = new double[n];
+        m.apply(r, z);
+        double[] p = z.clone();
+        double[] ap = new double[n];
+        double rz = dot(r, z);
+        double residualNorm = norm(r);
+
+        int iteration = 0;
+        while (residualNorm > threshold && iteration < maxIterations) {
+            a.apply(p, ap);
+            double pap = dot(p, ap);
+            //  p^T * A * p <= 0 can only happen when A or M is not positive-definite
+            if (!(pap > 0)) break;
+            double alpha = rz / pap;
+            axpy(alpha, p, x);
+            axpy(-alpha, ap, r);
+            residualNorm = norm(r);
+            iteration++;
+            if (residualNorm <= threshold) break;
+
+            m.apply(r, z);
+            double rzNext = dot(r, z);
+            double beta = rzNext / rz;
+            for (int i = 0; i < n; i++) {
+                p[i] = z[i] + beta * p[i];
+            }
+            rz = rzNext;
+        }
+        return new IterativeSolution(x, iteration, residualNorm, residualNorm <= threshold);
+    }
+}
@@ -0,0 +1,24 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import static java.lang.Math.hypot;
+
+public enum EigenvalueTarget {
+    /*
+        Which end of the spectrum a Krylov eigen solver should converge to
+     */
+    //  the eigenvalues with the largest modulus, the dominant ones (PCA, power-iteration-like problems)
+    LARGEST_MAGNITUDE,
+    //  the rightmost eigenvalues, for the stability of x' = A * x, or the top of a symmetric spectrum
+    LARGEST_REAL,
+    //  the leftmost eigenvalues, such as the smallest of a graph Laplacian for spectral clustering
+    SMALLEST_REAL;
+
+    //  larger means wanted more
+    double priority(double re, double im) {
+        return switch (this) {
+            case LARGEST_MAGNITUDE -> hypot(re, im);
+            case LARGEST_REAL -> re;
+            case SMALLEST_REAL -> -re;
+        };
+    }
+}
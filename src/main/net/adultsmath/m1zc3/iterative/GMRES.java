@@ -0,0 +1,129 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.LinearOperator;
+
+import java.util.Arrays;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.hypot;
+
+public class GMRES extends IterativeSolver {
+    /*
+        The generalized minimal residual method, restarted every m iterations, for general A
+
+        Each cycle builds an orthonormal basis of the Krylov space span(r, A * r, ..., A^(m-1) * r)
+        with modified Gram-Schmidt and picks the x in it with the smallest residual
+        The small least squares problem is kept triangular with Givens rotations,
+        so the residual norm is known at every step without forming x
+        Memory is m + 2 vectors of length n, a larger m converges in fewer iterations but costs more per iteration
+        The preconditioner is applied on the right, A * M^-1 * u = b with x = M^-1 * u,
+        so the residual being minimized is still the true one
+     */
+    public static final int DEFAULT_RESTART = 30;
+
+    private final int restart;
+
+    public GMRES() {
+        this(DEFAULT_RESTART, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+
+    public GMRES(int restart, double tolerance, int maxIterations) {
+        super(tolerance, maxIterations);
+        if (restart <= 0) throw new IllegalArgumentException("The restart length has to be positive");
+        this.restart = restart;
+    }
+
+    public int getRestart() {
+        return restart;
+    }
+
+    @Override
+    protected IterativeSolution iterate(LinearOperator a, Preconditioner preconditioner, double[] b, double[] x,
+                                        double threshold, int maxIterations) {
+        int n = b.length;
+        int m = Math.min(restart, n);
+        double[][] basis = new double[m + 1][n];
+        //  the Hessenberg matrix, column j holds the Gram-Schmidt coefficients of A * v_j, rotated
+        double[][] h = new double[m][m + 1];
+        double[] cosines = new double[m];
+        double[] sines = new double[m];
+        double[] g = new double[m + 1];
+        double[] y = new double[m];
+        double[] z = new double[n];
+
+        double[] r = basis[0];
+        residual(a, b, x, r);
+        double residualNorm = norm(r);
+        int iteration = 0;
+        while (residualNorm > threshold && iteration < maxIterations) {
+            //  start a cycle from the current residual
+            for (int i = 0; i < n; i++) {
+                basis[0][i] = r[i] / residualNorm;
+            }
+            Arrays.fill(g, 0);
+            g[0] = residualNorm;
+
+            int k = 0;
+            while (k < m && iteration < maxIterations) {
+                double[] w = basis[k + 1];
+                preconditioner.apply(basis[k], z);
+                a.apply(z, w);
+                for (int i = 0; i <= k; i++) {
+                    double coefficient = dot(w, basis[i]);
+                    h[k][i] = coefficient;
+                    axpy(-coefficient, basis[i], w);
+                }
+                double wNorm = norm(w);
+                h[k][k + 1] = wNorm;
+                if (wNorm != 0) {
+                    for (int i = 0; i < n; i++) {
+                        w[i] /= wNorm;
+                    }
+                }
+
+                //  apply the previous rotations to the new column, then zero its subdiagonal entry
+                for (int i = 0; i < k; i++) {
+                    double upper = h[k][i];
+                    double lower = h[k][i + 1];
+                    h[k][i] = cosines[i] * upper + sines[i] * lower;
+                    h[k][i + 1] = -sines[i] * upper + cosines[i] * lower;
+                }
+                double length = hypot(h[k][k], h[k][k + 1]);
+                cosines[k] = length == 0 ? 1 : h[k][k] / length;
+                sines[k] = length == 0 ? 0 : h[k][k + 1] / length;
+                h[k][k] = length;
+                h[k][k + 1] = 0;
+                g[k + 1] = -sines[k] * g[k];
+                g[k] = cosines[k] * g[k];
+
+                k++;
+                iteration++;
+                residualNorm = abs(g[k]);
+                //  wNorm == 0 means the Krylov space is invariant and x is exact
+                if (residualNorm <= threshold || wNorm == 0) break;
+            }
+
+            //  x += M^-1 * V * y, with y solving the k x k triangular system H * y = g
+            for (int i = k - 1; i >= 0; i--) {
+                double sum = g[i];
+                for (int j = i + 1; j < k; j++) {
+                    sum -= h[j][i] * y[j];
+                }
+                y[i] = sum / h[i][i];
+            }
+            //  basis[k] is no longer needed, so it holds V * y
+            double[] correction = basis[k];
+            Arrays.fill(correction, 0);
+            for (int j = 0; j < k; j++) {
+                axpy(y[j], basis[j], correction);
+            }
+            preconditioner.apply(correction, z);
+            axpy(1, z, x);
+
+            //  the rotated residual estimate drifts, so restart from the true residual
+            residual(a, b, x, r);
+            residualNorm = norm(r);
+        }
+        return new IterativeSolution(x, iteration, residualNorm, residualNorm <= threshold);
+    }
+}
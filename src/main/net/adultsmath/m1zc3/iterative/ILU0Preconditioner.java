@@ -0,0 +1,81 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.SparseMatrix;
+
+import java.util.Arrays;
+
+public class ILU0Preconditioner implements Preconditioner {
+    /*
+        Incomplete LU with no fill, M = L * U where L and U have the same nonzero pattern as A
+        Gaussian elimination runs as usual but every update that would land outside the pattern is dropped,
+        so the factors take exactly the memory of A and applying M^-1 is two triangular sweeps
+
+        L (unit diagonal, not stored) and U are packed in one array of values parallel to A's
+     */
+    private final int[] rowPointers;
+    private final int[] columns;
+    private final double[] lu;
+    //  where the diagonal entry of each row is stored
+    private final int[] diagonalPositions;
+
+    public ILU0Preconditioner(SparseMatrix a) {
+        if (!a.isSquare()) throw new InvalidDimensionsException("Cannot precondition a non-square matrix");
+        int n = a.getNumRows();
+        rowPointers = a.getRowPointers();
+        columns = a.getColumnIndices();
+        lu = Arrays.copyOf(a.getValues(), a.getNumNonzeros());
+        diagonalPositions = new int[n];
+
+        //  position[j] is where column j of the current row is stored, -1 outside the pattern
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < n; i++) {
+            int start = rowPointers[i];
+            int end = rowPointers[i + 1];
+            for (int k = start; k < end; k++) {
+                position[columns[k]] = k;
+            }
+
+            int k = start;
+            for (; k < end && columns[k] < i; k++) {
+                int pivotRow = columns[k];
+                double factor = lu[k] / lu[diagonalPositions[pivotRow]];
+                lu[k] = factor;
+                for (int p = diagonalPositions[pivotRow] + 1; p < rowPointers[pivotRow + 1]; p++) {
+                    int target = position[columns[p]];
+                    if (target >= 0) lu[target] -= factor * lu[p];
+                }
+            }
+            if (k == end || columns[k] != i || lu[k] == 0)
+                throw new Matrix.NotInvertibleException("ILU(0) has a zero pivot in row " + i);
+            diagonalPositions[i] = k;
+
+            for (int p = start; p < end; p++) {
+                position[columns[p]] = -1;
+            }
+        }
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        int n = r.length;
+        //  L * y = r
+        for (int i = 0; i < n; i++) {
+            double sum = r[i];
+            for (int k = rowPointers[i]; k < diagonalPositions[i]; k++) {
+                sum -= lu[k] * z[columns[k]];
+            }
+            z[i] = sum;
+        }
+        //  U * z = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = z[i];
+            for (int k = diagonalPositions[i] + 1; k < rowPointers[i + 1]; k++) {
+                sum -= lu[k] * z[columns[k]];
+            }
+            z[i] = sum / lu[diagonalPositions[i]];
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.LinearSystemSolution;
+import main.net.adultsmath.m1zc3.Vector;
+
+public record IterativeSolution(double[] value, int iterations, double residualNorm, boolean converged) {
+    /*
+        The result of an iterative solve: the last iterate x, how many iterations it took,
+        ||b - A * x|| at x, and whether that met the solver's tolerance
+     */
+
+    //  a converged solution is the single solution of the system
+    public LinearSystemSolution toLinearSystemSolution() {
+        if (!converged) throw new NotConvergedException(iterations, residualNorm);
+        return new LinearSystemSolution(new Vector(value));
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    public static class NotConvergedException extends RuntimeException {
+        public NotConvergedException(int iterations, double residualNorm) {
+            super("No convergence after " + iterations + " iterations, the residual norm is " + residualNorm);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.LinearOperator;
+import main.net.adultsmath.m1zc3.LinearSystemSolution;
+import main.net.adultsmath.m1zc3.Vector;
+
+import static java.lang.Math.sqrt;
+
+public abstract class IterativeSolver {
+    /*
+        Solves A * x = b by improving a guess for x until the residual b - A * x is small enough
+
+        A is only ever used through A * x, so each iteration costs one or two products,
+        O(nnz) for a SparseMatrix, and nothing the size of A is ever stored
+        The iteration stops once ||b - A * x|| <= tolerance * ||b|| or after maxIterations iterations
+
+        A Preconditioner M can be given to each solve, the tolerance still applies to the true residual
+     */
+    public static final double DEFAULT_TOLERANCE = 1E-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 10_000;
+
+    private final double tolerance;
+    private final int maxIterations;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    protected IterativeSolver(double tolerance, int maxIterations) {
+        if (!(tolerance > 0)) throw new IllegalArgumentException("The tolerance has to be positive");
+        if (maxIterations < 0) throw new IllegalArgumentException("The iteration limit cannot be negative");
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  solve A * x = b starting from x = 0
+    public IterativeSolution solve(LinearOperator a, double[] b) {
+        return solve(a, Preconditioner.IDENTITY, b, new double[b.length]);
+    }
+
+    public IterativeSolution solve(LinearOperator a, double[] b, double[] initialGuess) {
+        return solve(a, Preconditioner.IDENTITY, b, initialGuess);
+    }
+
+    public IterativeSolution solve(LinearOperator a, Preconditioner m, double[] b) {
+        return solve(a, m, b, new double[b.length]);
+    }
+
+    //  solve A * x = b starting from initialGuess, which is not modified
+    public IterativeSolution solve(LinearOperator a, Preconditioner m, double[] b, double[] initialGuess) {
+        int n = a.getNumRows();
+        if (a.getNumColumns() != n)
+            throw new InvalidDimensionsException("Iterative solvers need a square operator");
+        if (b.length != n || initialGuess.length != n)
+            throw new InvalidDimensionsException("The vectors do not match the size of the operator");
+
+        double[] x = initialGuess.clone();
+        double bNorm = norm(b);
+        if (bNorm == 0) return new IterativeSolution(new double[n], 0, 0, true);
+        return iterate(a, m, b, x, tolerance * bNorm, maxIterations);
+    }
+
+    //  the solution as a LinearSystemSolution, throws NotConvergedException if the tolerance was not reached
+    public LinearSystemSolution getSolution(LinearOperator a, Vector b) {
+        return solve(a, b.toArray()).toLinearSystemSolution();
+    }
+
+    public LinearSystemSolution getSolution(LinearOperator a, Preconditioner m, Vector b) {
+        return solve(a, m, b.toArray()).toLinearSystemSolution();
+    }
+
+    //  run the method from x, which it may overwrite, until ||b - A * x|| <= threshold
+    protected abstract IterativeSolution iterate(LinearOperator a, Preconditioner m, double[] b, double[] x,
+                                                 double threshold, int maxIterations);
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  VECTOR KERNELS
+    static double dot(double[] x, double[] y) {
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    static double norm(double[] x) {
+        return sqrt(dot(x, x));
+    }
+
+    //  y += alpha * x
+    static void axpy(double alpha, double[] x, double[] y) {
+        for (int i = 0; i < x.length; i++) {
+            y[i] += alpha * x[i];
+        }
+    }
+
+    //  r = b - A * x
+    static void residual(LinearOperator a, double[] b, double[] x, double[] r) {
+        a.apply(x, r);
+        for (int i = 0; i < r.length; i++) {
+            r[i] = b[i] - r[i];
+        }
+    }
+}
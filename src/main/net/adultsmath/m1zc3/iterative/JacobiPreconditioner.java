@@ -0,0 +1,30 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.SparseMatrix;
+
+public class JacobiPreconditioner implements Preconditioner {
+    /*
+        M = diag(A), which evens out rows of very different scale, such as resistors
+        ranging over several orders of magnitude
+     */
+    private final double[] inverseDiagonal;
+
+    public JacobiPreconditioner(SparseMatrix a) {
+        if (!a.isSquare()) throw new InvalidDimensionsException("Cannot precondition a non-square matrix");
+        inverseDiagonal = a.getDiagonal();
+        for (int i = 0; i < inverseDiagonal.length; i++) {
+            if (inverseDiagonal[i] == 0)
+                throw new Matrix.NotInvertibleException("Row " + i + " has no diagonal entry");
+            inverseDiagonal[i] = 1 / inverseDiagonal[i];
+        }
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        for (int i = 0; i < r.length; i++) {
+            z[i] = inverseDiagonal[i] * r[i];
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.LinearOperator;
+
+import java.util.SplittableRandom;
+
+import static java.lang.Math.*;
+
+public abstract class KrylovEigenSolver {
+    /*
+        Finds a few eigenpairs of a large operator from a Krylov subspace span(v, A * v, A^2 * v, ...)
+
+        Only products A * v are needed, and the basis is capped at subspaceSize vectors of length n,
+        so the cost of each restart cycle is about subspaceSize products plus O(n * subspaceSize^2)
+        for keeping the basis orthonormal, instead of the O(n^3) of a full eigen decomposition
+        A Ritz pair (theta, x) counts as converged once ||A * x - theta * x|| <= tolerance * |theta|
+     */
+    public static final double DEFAULT_TOLERANCE = 1E-10;
+    public static final int DEFAULT_MAX_RESTARTS = 300;
+
+    private final int numEigenpairs;
+    private final EigenvalueTarget target;
+    private final int subspaceSize;
+    private final double tolerance;
+    private final int maxRestarts;
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    //  CONSTRUCTORS AND GETTERS
+    protected KrylovEigenSolver(int numEigenpairs, EigenvalueTarget target, int subspaceSize,
+                                double tolerance, int maxRestarts) {
+        if (numEigenpairs <= 0) throw new IllegalArgumentException("At least 1 eigenpair has to be asked for");
+        if (subspaceSize <= numEigenpairs + 1)
+            throw new IllegalArgumentException("The subspace needs at least 2 more vectors than eigenpairs asked for");
+        if (!(tolerance > 0)) throw new IllegalArgumentException("The tolerance has to be positive");
+        this.numEigenpairs = numEigenpairs;
+        this.target = target;
+        this.subspaceSize = subspaceSize;
+        this.tolerance = tolerance;
+        this.maxRestarts = maxRestarts;
+    }
+
+    //  twice the number of eigenpairs asked for, and at least 20, is a good default subspace
+    protected static int defaultSubspaceSize(int numEigenpairs) {
+        return max(2 * numEigenpairs + 1, numEigenpairs + 20);
+    }
+
+    public int getNumEigenpairs() {
+        return numEigenpairs;
+    }
+
+    public EigenvalueTarget getTarget() {
+        return target;
+    }
+
+    public int getSubspaceSize() {
+        return subspaceSize;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+
+    // --------------------------------------------------------------------------------------
+
+
+    public KrylovEigenpairs solve(LinearOperator a) {
+        int n = a.getNumRows();
+        if (a.getNumColumns() != n) throw new InvalidDimensionsException("Eigenvalues need a square operator");
+        if (numEigenpairs > n) throw new InvalidDimensionsException("Cannot find more eigenpairs than the size");
+        return iterate(a, n, min(subspaceSize, n));
+    }
+
+    protected abstract KrylovEigenpairs iterate(LinearOperator a, int n, int m);
+
+    //  a fixed pseudo-random unit vector, so results are reproducible
+    static void startVector(double[] v) {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < v.length; i++) {
+            v[i] = random.nextDouble(-1, 1);
+        }
+        double norm = IterativeSolver.norm(v);
+        for (int i = 0; i < v.length; i++) {
+            v[i] /= norm;
+        }
+    }
+
+    //  remove from w its components along basis[0..count-1], twice to stay orthogonal to working precision
+    //  the coefficients of the first pass, plus the corrections of the second, are added to h[0..count-1]
+    static void orthogonalize(double[][] basis, int count, double[] w, double[] h) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < count; i++) {
+                double coefficient = IterativeSolver.dot(basis[i], w);
+                h[i] += coefficient;
+                IterativeSolver.axpy(-coefficient, basis[i], w);
+            }
+        }
+    }
+
+    //  w = w / ||w||, or when w has vanished (the subspace is invariant) a fresh direction
+    //  orthogonal to the basis, the norm that w had is returned
+    static double normalize(double[][] basis, int count, double[] w) {
+        double norm = IterativeSolver.norm(w);
+        if (norm > 1E-12 * sqrt(w.length)) {
+            for (int i = 0; i < w.length; i++) {
+                w[i] /= norm;
+            }
+            return norm;
+        }
+        SplittableRandom random = new SplittableRandom(count);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            for (int i = 0; i < w.length; i++) {
+                w[i] = random.nextDouble(-1, 1);
+            }
+            orthogonalize(basis, count, w, new double[count]);
+            double fresh = IterativeSolver.norm(w);
+            if (fresh > 1E-8) {
+                for (int i = 0; i < w.length; i++) {
+                    w[i] /= fresh;
+                }
+                break;
+            }
+        }
+        return 0;
+    }
+
+    //  target[j] = sum over i of basis[i] * coefficients[i][j], for the first columns of coefficients
+    static double[][] combine(double[][] basis, int count, double[][] coefficients, int columns, int n) {
+        double[][] result = new double[columns][n];
+        for (int j = 0; j < columns; j++) {
+            for (int i = 0; i < count; i++) {
+                double c = coefficients[i][j];
+                if (c != 0) IterativeSolver.axpy(c, basis[i], result[j]);
+            }
+        }
+        return result;
+    }
+}
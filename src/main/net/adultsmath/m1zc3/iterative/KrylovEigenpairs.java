@@ -0,0 +1,35 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.ComplexNumber;
+import main.net.adultsmath.m1zc3.Vector;
+
+public record KrylovEigenpairs(double[] realParts, double[] imaginaryParts,
+                               double[][] realVectors, double[][] imaginaryVectors,
+                               int restarts, boolean converged) {
+    /*
+        The eigenpairs found by a Krylov eigen solver, most wanted first
+        Eigenvector i is realVectors[i] + i * imaginaryVectors[i] with unit norm,
+        the imaginary part is all zero for real eigenvalues and for every pair of a symmetric operator
+     */
+
+    public int getNumEigenpairs() {
+        return realParts.length;
+    }
+
+    public ComplexNumber getEigenvalue(int index) {
+        return new ComplexNumber(realParts[index], imaginaryParts[index]);
+    }
+
+    public boolean isReal(int index) {
+        return imaginaryParts[index] == 0;
+    }
+
+    //  the real part of eigenvector index, which is the eigenvector itself when the eigenvalue is real
+    public Vector getEigenvector(int index) {
+        return new Vector(realVectors[index].clone());
+    }
+
+    public Vector getImaginaryEigenvector(int index) {
+        return new Vector(imaginaryVectors[index].clone());
+    }
+}
@@ -0,0 +1,130 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.LinearOperator;
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.SymmetricEigenDecomposition;
+
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+public class LanczosEigenSolver extends KrylovEigenSolver {
+    /*
+        Lanczos with thick restarts, for symmetric operators
+
+        The projection T = V^T * A * V of A onto the orthonormal basis V is symmetric and small,
+        its eigenpairs (theta, s) give Ritz pairs (theta, V * s) whose residual is |beta * s[m - 1]|,
+        beta being the norm of the part of A * v_last outside the basis
+        When the wanted pairs have not converged, the basis is restarted from the best Ritz vectors
+        plus the residual direction, so none of the progress made so far is thrown away
+        The basis is fully reorthogonalized, which costs O(n * m) per step but keeps the Ritz values free of ghosts
+     */
+
+    public LanczosEigenSolver(int numEigenpairs, EigenvalueTarget target) {
+        this(numEigenpairs, target, defaultSubspaceSize(numEigenpairs), DEFAULT_TOLERANCE, DEFAULT_MAX_RESTARTS);
+    }
+
+    public LanczosEigenSolver(int numEigenpairs, EigenvalueTarget target, int subspaceSize,
+                              double tolerance, int maxRestarts) {
+        super(numEigenpairs, target, subspaceSize, tolerance, maxRestarts);
+    }
+
+    @Override
+    protected KrylovEigenpairs iterate(LinearOperator a, int n, int m) {
+        int k = getNumEigenpairs();
+        double[][] basis = new double[m + 1][];
+        for (int i = 0; i <= m; i++) {
+            basis[i] = new double[n];
+        }
+        double[][] t = new double[m][m];
+        double[] h = new double[m];
+        startVector(basis[0]);
+
+        int kept = 0;
+        int restarts = 0;
+        while (true) {
+            //  extend the basis from v_kept to v_m
+            double beta = 0;
+            for (int j = kept; j < m; j++) {
+                double[] w = basis[j + 1];
+                a.apply(basis[j], w);
+                Arrays.fill(h, 0);
+                orthogonalize(basis, j + 1, w, h);
+                for (int i = 0; i <= j; i++) {
+                    t[i][j] = h[i];
+                    t[j][i] = h[i];
+                }
+                beta = normalize(basis, j + 1, w);
+                if (j < m - 1) {
+                    t[j + 1][j] = beta;
+                    t[j][j + 1] = beta;
+                }
+            }
+
+            //  the Ritz pairs, ordered from most wanted
+            SymmetricEigenDecomposition ritz = new Matrix(t).getSymmetricEigenDecomposition();
+            int[] order = order(ritz.getEigenvalues());
+            double[][] s = new double[m][m];
+            for (int j = 0; j < m; j++) {
+                double[] vector = ritz.getEigenvector(order[j]).toArray();
+                for (int i = 0; i < m; i++) {
+                    s[i][j] = vector[i];
+                }
+            }
+
+            boolean converged = true;
+            for (int j = 0; j < k; j++) {
+                double theta = ritz.getEigenvalue(order[j]);
+                double residual = abs(beta * s[m - 1][j]);
+                if (residual > getTolerance() * max(abs(theta), ulp(1.0))) converged = false;
+            }
+            //  with m = n the basis spans everything and the Ritz pairs are exact
+            if (converged || restarts == getMaxRestarts() || m == n) {
+                double[] values = new double[k];
+                for (int j = 0; j < k; j++) {
+                    values[j] = ritz.getEigenvalue(order[j]);
+                }
+                double[][] vectors = combine(basis, m, s, k, n);
+                return new KrylovEigenpairs(values, new double[k], vectors, new double[k][n],
+                        restarts, converged || m == n);
+            }
+
+            //  thick restart: keep the best Ritz vectors, then the residual direction
+            kept = min(k + (m - k) / 2, m - 1);
+            double[][] ritzVectors = combine(basis, m, s, kept, n);
+            double[] residualDirection = basis[m];
+            for (int j = 0; j < kept; j++) {
+                basis[j] = ritzVectors[j];
+            }
+            double[] spare = basis[kept];
+            basis[kept] = residualDirection;
+            basis[m] = spare;
+
+            for (double[] row : t) {
+                Arrays.fill(row, 0);
+            }
+            for (int j = 0; j < kept; j++) {
+                t[j][j] = ritz.getEigenvalue(order[j]);
+                t[j][kept] = beta * s[m - 1][j];
+                t[kept][j] = t[j][kept];
+            }
+            restarts++;
+        }
+    }
+
+    //  indices of the eigenvalues from most to least wanted
+    private int[] order(double[] eigenvalues) {
+        int m = eigenvalues.length;
+        Integer[] indices = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (i, j) ->
+                Double.compare(getTarget().priority(eigenvalues[j], 0), getTarget().priority(eigenvalues[i], 0)));
+        int[] order = new int[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = indices[i];
+        }
+        return order;
+    }
+}
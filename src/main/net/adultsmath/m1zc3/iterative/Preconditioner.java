@@ -0,0 +1,15 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+public interface Preconditioner {
+    /*
+        An approximation M of A whose inverse is cheap to apply, so that M^-1 * A is closer to
+        the identity than A and iterative solvers need far fewer iterations
+
+        All the setup (extracting the diagonal, factoring) happens when the preconditioner is built,
+        apply() only reads it, so one preconditioner can be shared by any number of solves
+     */
+    Preconditioner IDENTITY = (r, z) -> System.arraycopy(r, 0, z, 0, r.length);
+
+    //  z = M^-1 * r, z is overwritten
+    void apply(double[] r, double[] z);
+}
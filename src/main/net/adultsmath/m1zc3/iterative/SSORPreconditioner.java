@@ -0,0 +1,67 @@
+package main.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.SparseMatrix;
+
+public class SSORPreconditioner implements Preconditioner {
+    /*
+        Symmetric successive over-relaxation, with A = L + D + U split into its strict lower part,
+        diagonal and strict upper part:
+            M = omega / (2 - omega) * (D / omega + L) * (D / omega)^-1 * (D / omega + U)
+        Applying M^-1 is a forward and a backward sweep over A, with no extra storage besides the diagonal
+        M is symmetric positive-definite when A is, so it can be used with conjugate gradients
+     */
+    private final SparseMatrix a;
+    private final double omega;
+    private final double[] diagonal;
+
+    //  omega = 1 is symmetric Gauss-Seidel
+    public SSORPreconditioner(SparseMatrix a) {
+        this(a, 1);
+    }
+
+    public SSORPreconditioner(SparseMatrix a, double omega) {
+        if (!a.isSquare()) throw new InvalidDimensionsException("Cannot precondition a non-square matrix");
+        if (!(omega > 0 && omega < 2)) throw new IllegalArgumentException("omega has to be between 0 and 2");
+        this.a = a;
+        this.omega = omega;
+        diagonal = a.getDiagonal();
+        for (int i = 0; i < diagonal.length; i++) {
+            if (diagonal[i] == 0) throw new Matrix.NotInvertibleException("Row " + i + " has no diagonal entry");
+        }
+    }
+
+    public double getOmega() {
+        return omega;
+    }
+
+    @Override
+    public void apply(double[] r, double[] z) {
+        int[] rowPointers = a.getRowPointers();
+        int[] columns = a.getColumnIndices();
+        double[] values = a.getValues();
+        int n = r.length;
+
+        //  (D / omega + L) * y = r
+        for (int i = 0; i < n; i++) {
+            double sum = r[i];
+            for (int k = rowPointers[i]; k < rowPointers[i + 1] && columns[k] < i; k++) {
+                sum -= values[k] * z[columns[k]];
+            }
+            z[i] = sum * omega / diagonal[i];
+        }
+        //  (D / omega + U) * z = D / omega * y, then the scaling
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = 0;
+            for (int k = rowPointers[i + 1] - 1; k >= rowPointers[i] && columns[k] > i; k--) {
+                sum += values[k] * z[columns[k]];
+            }
+            z[i] -= sum * omega / diagonal[i];
+        }
+        double scale = (2 - omega) / omega;
+        for (int i = 0; i < n; i++) {
+            z[i] *= scale;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BandedMatrixTest {
+
+    //  a random size x size matrix with the given band, not diagonally dominant so pivoting is needed
+    private static Matrix randomBanded(int size, int lower, int upper, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] entries = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = Math.max(0, i - lower); j <= Math.min(size - 1, i + upper); j++) {
+                entries[i][j] = random.nextDouble(-1, 1);
+            }
+        }
+        return new Matrix(entries);
+    }
+
+    @Test
+    void testBandwidthDetection() {
+        Matrix m = randomBanded(30, 2, 3, 1);
+        assertEquals(2, m.getLowerBandwidth());
+        assertEquals(3, m.getUpperBandwidth());
+        assertFalse(m.isTridiagonal());
+        assertTrue(randomBanded(10, 1, 1, 2).isTridiagonal());
+        assertEquals(m, BandedMatrix.fromMatrix(m).toMatrix());
+    }
+
+    @Test
+    void testBandedLUMatchesDenseLU() {
+        Matrix m = randomBanded(40, 2, 1, 3);
+        BandedLUDecomposition banded = BandedMatrix.fromMatrix(m).getDecomposition();
+        LUDecomposition dense = m.getLUDecomposition();
+        assertEquals(dense.getDeterminant(), banded.getDeterminant(), 1E-9 * Math.abs(dense.getDeterminant()));
+
+        double[] b = new double[40];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = i % 7 - 3;
+        }
+        assertArrayEquals(dense.solve(b), banded.solve(b), 1E-9);
+        assertEquals(dense.getInverse(), banded.getInverse());
+        assertTrue(m.getDecomposition() instanceof BandedLUDecomposition);
+    }
+
+    @Test
+    void testThomasAlgorithm() {
+        //  the second difference matrix, -x'' = 2 with x(0) = x(1) = 0 has x = t(1 - t)
+        int n = 1_000_000;
+        double[] sub = new double[n - 1];
+        double[] diagonal = new double[n];
+        double[] sup = new double[n - 1];
+        double[] b = new double[n];
+        double h = 1.0 / (n + 1);
+        java.util.Arrays.fill(sub, -1);
+        java.util.Arrays.fill(sup, -1);
+        java.util.Arrays.fill(diagonal, 2);
+        java.util.Arrays.fill(b, 2 * h * h);
+
+        double[] x = BandedMatrix.createTridiagonal(sub, diagonal, sup).solve(b);
+        double t = (n / 2 + 1) * h;
+        assertEquals(t * (1 - t), x[n / 2], 1E-6);
+    }
+
+    @Test
+    void testWeaklyDominantTridiagonal() {
+        //  dominant only with equality, the Thomas algorithm meets a zero pivot in the second row
+        BandedMatrix singular = BandedMatrix.createTridiagonal(new double[]{1}, new double[]{1, 1}, new double[]{1});
+        assertThrows(Matrix.NotInvertibleException.class, () -> singular.solve(new double[]{1, 2}));
+
+        //  a singular block further down, after pivots that are fine
+        BandedMatrix block = BandedMatrix.createTridiagonal(
+                new double[]{-1, 0, 1}, new double[]{2, 1, 1, 1}, new double[]{-1, 0, 1});
+        assertTrue(block.getDecomposition().isSingular());
+        assertThrows(Matrix.NotInvertibleException.class, () -> block.solve(new double[]{1, 1, 1, 1}));
+    }
+
+    @Test
+    void testSolutionThroughMatrix() {
+        Matrix system = new Matrix(new double[][]{
+                {2, 1, 0, 0, 0, 0, 0, 0, 3},
+                {1, 2, 1, 0, 0, 0, 0, 0, 4},
+                {0, 1, 2, 1, 0, 0, 0, 0, 4},
+                {0, 0, 1, 2, 1, 0, 0, 0, 4},
+                {0, 0, 0, 1, 2, 1, 0, 0, 4},
+                {0, 0, 0, 0, 1, 2, 1, 0, 4},
+                {0, 0, 0, 0, 0, 1, 2, 1, 4},
+                {0, 0, 0, 0, 0, 0, 1, 2, 3}
+        });
+        assertEquals(new Vector(1, 1, 1, 1, 1, 1, 1, 1), system.getSolution().value());
+    }
+
+    @Test
+    void testOutsideBand() {
+        BandedMatrix m = new BandedMatrix(5, 1, 0);
+        assertEquals(0, m.getEntry(0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> m.setEntry(0, 1, 1));
+    }
+}
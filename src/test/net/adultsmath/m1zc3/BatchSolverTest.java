@@ -0,0 +1,79 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+    @Test
+    void testMatchesGetSolution() {
+        int size = 3;
+        int count = 700;
+        double[] coefficients = new double[size * size * count];
+        double[] constants = new double[size * count];
+        double[] solutions = new double[size * count];
+        Matrix[] systems = new Matrix[count];
+        for (int s = 0; s < count; s++) {
+            double[][] entries = new double[size][size + 1];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j <= size; j++) {
+                    entries[i][j] = Math.sin(s * 31 + i * i * 7 + j * j * 3 + i * j);
+                }
+            }
+            //  the first pivot has to come from another row
+            if (s % 2 == 0) entries[0][0] = 0;
+            systems[s] = new Matrix(entries);
+            BatchSolver.putSystem(systems[s], s, count, coefficients, constants);
+        }
+
+        assertEquals(0, new BatchSolver(size).solve(count, coefficients, constants, solutions));
+        for (int s = 0; s < count; s++) {
+            Vector expected = systems[s].getSolution().value();
+            for (int i = 0; i < size; i++) {
+                assertEquals(expected.getComps(i), solutions[BatchSolver.constantIndex(i, s, count)], 1E-7);
+            }
+        }
+    }
+
+    @Test
+    void testCountsSingularSystems() {
+        int count = 2;
+        double[] coefficients = new double[2 * 2 * count];
+        double[] constants = new double[2 * count];
+        BatchSolver.putSystem(new Matrix(new double[][]{{1, 2, 3}, {2, 4, 5}}), 0, count, coefficients, constants);
+        BatchSolver.putSystem(new Matrix(new double[][]{{1, 2, 3}, {0, 4, 4}}), 1, count, coefficients, constants);
+        double[] solutions = new double[2 * count];
+
+        assertEquals(1, new BatchSolver(2).solve(count, coefficients, constants, solutions));
+        assertEquals(1, solutions[BatchSolver.constantIndex(0, 1, count)], 1E-12);
+        assertEquals(1, solutions[BatchSolver.constantIndex(1, 1, count)], 1E-12);
+        assertTrue(Double.isNaN(solutions[BatchSolver.constantIndex(0, 0, count)]));
+    }
+
+    @Test
+    void testPivotsBelowTheTolerance() {
+        //  singular, but elimination leaves a last pivot of rounding size rather than 0
+        Matrix singular = new Matrix(new double[][]{{1, 2, 3, 1}, {4, 5, 6, 1}, {7, 8, 9, 1}});
+        Matrix scaled = new Matrix(new double[][]{{1E-20, 0, 0, 1}, {0, 1E-20, 0, 1}, {0, 0, 1E-20, 1}});
+        assertTrue(singular.getSubmatrixView(0, 3, 0, 3).getLUDecomposition().isSingular());
+
+        int count = 3;
+        double[] coefficients = new double[3 * 3 * count];
+        double[] constants = new double[3 * count];
+        double[] solutions = new double[3 * count];
+        BatchSolver.putSystem(singular, 0, count, coefficients, constants);
+        BatchSolver.putSystem(scaled, 1, count, coefficients, constants);
+        BatchSolver.putSystem(new Matrix(new double[][]{{2, 0, 0, 2}, {0, 1, 0, 1}, {0, 0, 4, 4}}),
+                2, count, coefficients, constants);
+
+        //  the tolerance is relative to each system, so a tiny but well-conditioned one is fine
+        assertEquals(1, new BatchSolver(3).solve(count, coefficients, constants, solutions));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(Double.isNaN(solutions[BatchSolver.constantIndex(i, 0, count)]));
+            assertEquals(1E20, solutions[BatchSolver.constantIndex(i, 1, count)], 1E5);
+            assertEquals(1, solutions[BatchSolver.constantIndex(i, 2, count)], 1E-12);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class CholeskyDecompositionTest {
+    private final Matrix matrix = new Matrix(new double[][]{
+            {4, 12, -16},
+            {12, 37, -43},
+            {-16, -43, 98}
+    });
+
+    @Test
+    void testL() {
+        assertEquals(new Matrix(new double[][]{
+                        {2, 0, 0},
+                        {6, 1, 0},
+                        {-8, 5, 3}
+                }),
+                matrix.getCholeskyDecomposition().getL());
+    }
+
+    @Test
+    void testDeterminantSolveAndInverse() {
+        CholeskyDecomposition cholesky = matrix.getCholeskyDecomposition();
+        assertEquals(36, cholesky.getDeterminant(), 1E-9);
+        assertEquals(new Vector(1, 2, 3), cholesky.solve(new Vector(-20, -43, 192)));
+        assertEquals(matrix.getLUDecomposition().getInverse(), cholesky.getInverse());
+    }
+
+    @Test
+    void testDecompositionDispatch() {
+        assertTrue(matrix.getDecomposition() instanceof CholeskyDecomposition);
+
+        //  symmetric with a positive diagonal, but indefinite
+        Matrix indefinite = new Matrix(new double[][]{
+                {1, 2},
+                {2, 1}
+        });
+        assertFalse(indefinite.getCholeskyDecomposition().isPositiveDefinite());
+        assertTrue(indefinite.getDecomposition() instanceof LUDecomposition);
+        assertEquals(-3, indefinite.getDecomposition().getDeterminant(), 1E-12);
+
+        //  far from symmetric, but with entries so small that every mismatch is within the tolerance of equals
+        Matrix small = new Matrix(new double[][]{
+                {4E-8, 1E-8, 0.5E-8},
+                {0.2E-8, 4E-8, 1E-8},
+                {0.3E-8, 0.1E-8, 4E-8}
+        });
+        assertTrue(small.isSymmetric());
+        assertFalse(small.getStructure().isSymmetricToRounding());
+        assertFalse(CholeskyDecomposition.isCandidate(small));
+        assertTrue(small.getDecomposition() instanceof LUDecomposition);
+        double[] x = small.getDecomposition().solve(new double[]{1, 2, 3});
+        double[] y = new double[3];
+        small.apply(x, y);
+        assertArrayEquals(new double[]{1, 2, 3}, y, 1E-9);
+    }
+
+    @Test
+    void testNotSymmetric() {
+        //  its lower triangle is that of [[4, 0], [0, 5]], which would solve to (1.75, 1)
+        Matrix upper = new Matrix(new double[][]{
+                {4, 3},
+                {0, 5}
+        });
+        CholeskyDecomposition cholesky = upper.getCholeskyDecomposition();
+        assertFalse(cholesky.isPositiveDefinite());
+        assertTrue(cholesky.isSingular());
+        assertThrows(CholeskyDecomposition.NotPositiveDefiniteException.class, () -> cholesky.solve(new double[]{7, 5}));
+        assertArrayEquals(new double[]{1, 1}, upper.getDecomposition().solve(new double[]{7, 5}), 1E-15);
+    }
+
+    @Test
+    void testRankDeficientGramMatrix() {
+        //  B^T * B for a 20 x 21 B is positive semi-definite of rank 20, its last pivot is only rounding
+        Matrix b = random(20, 21, 1);
+        Matrix gram = Operator.multiply(b.getTransposeView(), b);
+        assertTrue(CholeskyDecomposition.isCandidate(gram));
+        CholeskyDecomposition cholesky = gram.getCholeskyDecomposition();
+        assertFalse(cholesky.isPositiveDefinite());
+        assertTrue(cholesky.isSingular());
+        assertThrows(CholeskyDecomposition.NotPositiveDefiniteException.class, cholesky::getDeterminant);
+
+        assertTrue(gram.getDecomposition() instanceof LUDecomposition);
+        assertFalse(gram.isInvertible());
+        assertThrows(Matrix.NotInvertibleException.class, gram::getInverse);
+    }
+}
@@ -0,0 +1,107 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.ComplexNumber;
+import main.net.adultsmath.m1zc3.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EigenvalueSolverTest {
+
+    @Test
+    void testComplexPair() {
+        //  a rotation by 90 degrees scaled by 2, eigenvalues +-2i
+        ComplexNumber[] eigenvalues = new Matrix(new double[][]{
+                {0, -2},
+                {2, 0}
+        }).getComplexEigenValues();
+        assertEquals(0, eigenvalues[0].getRe(), 1E-12);
+        assertEquals(0, eigenvalues[1].getRe(), 1E-12);
+        assertEquals(2, Math.abs(eigenvalues[0].getIm()), 1E-12);
+        assertEquals(-eigenvalues[0].getIm(), eigenvalues[1].getIm(), 1E-12);
+    }
+
+    @Test
+    void testCompanionMatrix() {
+        //  the companion matrix of (x - 1)(x - 2)...(x - 8)
+        int n = 8;
+        double[] coefficients = {1};
+        for (int root = 1; root <= n; root++) {
+            double[] next = new double[coefficients.length + 1];
+            for (int i = 0; i < coefficients.length; i++) {
+                next[i + 1] += coefficients[i];
+                next[i] -= root * coefficients[i];
+            }
+            coefficients = next;
+        }
+        double[][] companion = new double[n][n];
+        for (int i = 1; i < n; i++) {
+            companion[i][i - 1] = 1;
+        }
+        for (int i = 0; i < n; i++) {
+            companion[i][n - 1] = -coefficients[i];
+        }
+
+        EigenvalueSolver solver = new Matrix(companion).getEigenvalueSolver();
+        double[] real = solver.getRealParts();
+        Arrays.sort(real);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, real[i], 1E-7);
+            assertEquals(0, solver.getImaginaryParts()[i], 1E-7);
+        }
+    }
+
+    @Test
+    void testRepeatedEigenvaluesGrouped() {
+        Matrix triangular = new Matrix(new double[][]{
+                {2, 1, 0, 3, 1},
+                {0, 3, 1, 0, 2},
+                {0, 0, 2, 1, 1},
+                {0, 0, 0, 5, 1},
+                {0, 0, 0, 0, 3}
+        });
+        PolynomialRoots roots = triangular.getEigenValues();
+        assertEquals(3, roots.getNumRoots());
+        assertTrue(roots.containsEntry(2, 2));
+        assertTrue(roots.containsEntry(3, 2));
+        assertTrue(roots.containsEntry(5, 1));
+    }
+
+    @Test
+    void testLargeRandomMatrix() {
+        int n = 500;
+        SplittableRandom random = new SplittableRandom(11);
+        double[][] entries = new double[n][n];
+        for (double[] row : entries) {
+            for (int j = 0; j < n; j++) {
+                row[j] = random.nextDouble(-1, 1);
+            }
+        }
+        Matrix a = new Matrix(entries);
+        EigenvalueSolver solver = a.getEigenvalueSolver();
+
+        //  the eigenvalues sum to the trace, their squares to the trace of A^2
+        Matrix square = Operator.multiply(a, a);
+        double trace = 0;
+        double squareTrace = 0;
+        for (int i = 0; i < n; i++) {
+            trace += a.getEntry(i, i);
+            squareTrace += square.getEntry(i, i);
+        }
+        double sum = 0;
+        double squareSum = 0;
+        double[] re = solver.getRealParts();
+        double[] im = solver.getImaginaryParts();
+        for (int i = 0; i < n; i++) {
+            sum += re[i];
+            squareSum += re[i] * re[i] - im[i] * im[i];
+        }
+        assertEquals(trace, sum, 1E-8);
+        assertEquals(squareTrace, squareSum, 1E-8);
+        //  the circular law, the spectral radius of a random matrix is about sqrt(n / 3)
+        assertEquals(Math.sqrt(n / 3.0), solver.getSpectralRadius(), 1.5);
+    }
+}
@@ -0,0 +1,93 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class LUDecompositionTest {
+    private final Matrix matrix = new Matrix(new double[][]{
+            {0, 2, 1, 4},
+            {1, -3, 2, 0},
+            {5, 1, -2, 3},
+            {2, 0, 7, -1}
+    });
+
+    @Test
+    void testPAEqualsLU() {
+        LUDecomposition lu = matrix.getLUDecomposition();
+        assertEquals(Operator.multiply(lu.getP(), matrix), Operator.multiply(lu.getL(), lu.getU()));
+    }
+
+    @Test
+    void testDeterminantMatchesCofactorExpansion() {
+        assertEquals(matrix.getCofactorDeterminant(), matrix.getDeterminant(), 1E-9);
+    }
+
+    @Test
+    void testSolve() {
+        Vector x = new Vector(1, -2, 3, 0.5);
+        Vector b = Operator.multiply(matrix, new Matrix(x).getTransposeMatrix()).getColumn(0);
+        assertEquals(x, matrix.getLUDecomposition().solve(b));
+    }
+
+    @Test
+    void testSingular() {
+        Matrix singular = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 9}
+        });
+        assertTrue(singular.getLUDecomposition().isSingular());
+        assertFalse(singular.isInvertible());
+        assertThrows(Matrix.NotInvertibleException.class,
+                () -> singular.getLUDecomposition().solve(new Vector(1, 2, 3)));
+    }
+
+    @Test
+    void testLargeDeterminant() {
+        //  cofactor expansion would never finish at this size
+        int size = 60;
+        double[][] entries = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            entries[i][i] = 2;
+            if (i + 1 < size) entries[i][i + 1] = 1;
+        }
+        assertEquals(Math.pow(2, size), new Matrix(entries).getDeterminant(), 1E-3);
+    }
+
+    @Test
+    void testInverse() {
+        Matrix identity = Matrix.createIdentityMatrix(4);
+        assertEquals(identity, Operator.multiply(matrix, matrix.getInverse()));
+        assertEquals(identity, Operator.multiply(matrix.getLUDecomposition().getInverse(), matrix));
+    }
+
+    @Test
+    void testInvertInPlace() {
+        Matrix inverse = matrix.createCopy();
+        inverse.invertInPlace();
+        assertEquals(matrix.getInverse(), inverse);
+
+        //  B^T * B of rank 20, elimination leaves a last pivot of rounding size rather than 0
+        Matrix b = random(20, 21, 1);
+        Matrix singular = Operator.multiply(b.getTransposeView(), b);
+        assertFalse(singular.isInvertible());
+        assertThrows(Matrix.NotInvertibleException.class, () -> singular.createCopy().invertInPlace());
+    }
+
+    @Test
+    void testLargeInverse() {
+        int size = 120;
+        double[][] entries = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                entries[i][j] = Math.sin(i * size + j) + (i == j ? size : 0);
+            }
+        }
+        Matrix large = new Matrix(entries);
+        assertEquals(Matrix.createIdentityMatrix(size), Operator.multiply(large, large.getInverse()));
+    }
+}
@@ -0,0 +1,60 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearSolverTest {
+    @Test
+    void testSolveManyRightHandSides() {
+        LinearSolver solver = new Matrix(new double[][]{
+                {1, 7, -2},
+                {-1, 0, 6},
+                {5, -3, -2}
+        }).getLinearSolver();
+        assertEquals(LinearSystemSolution.SolutionType.SINGLE, solver.getSolutionType());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(new Matrix(new double[][]{
+                            {1, 7, -2, 8 * i},
+                            {-1, 0, 6, 2 * i},
+                            {5, -3, -2, 0}
+                    }).getSolution(),
+                    solver.solve(new Vector(8 * i, 2 * i, 0)));
+        }
+    }
+
+    @Test
+    void testSolveInfiniteAndNone() {
+        LinearSolver solver = new Matrix(new double[][]{
+                {1, 0, 1, 3},
+                {0, 1, 0, 0},
+                {0, 0, 0, 0}
+        }).getLinearSolver();
+        assertEquals(2, solver.getRank());
+        assertEquals(new LinearSystemSolution(
+                        new Vector(5, 2, 0, 0),
+                        new VectorSet(new Vector(-1, 0, 1, 0), new Vector(-3, 0, 0, 1))),
+                solver.solve(new Vector(5, 2, 0)));
+        assertEquals(new LinearSystemSolution(), solver.solve(new Vector(5, 2, 1)));
+    }
+
+    @Test
+    void testSolveBlock() {
+        LinearSolver solver = new Matrix(new double[][]{
+                {1, 0},
+                {0, 1},
+                {0, 1}
+        }).getLinearSolver();
+        List<LinearSystemSolution> solutions = solver.solve(new Matrix(new double[][]{
+                {1, 4},
+                {2, 5},
+                {2, 6}
+        }));
+        assertEquals(new LinearSystemSolution(new Vector(1, 2)), solutions.get(0));
+        assertEquals(new LinearSystemSolution(), solutions.get(1));
+    }
+}
@@ -0,0 +1,204 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class MatrixFileTest {
+
+    private interface FileTest {
+        void run(Path file) throws IOException;
+    }
+
+    private static void withFile(FileTest test) throws IOException {
+        Path file = Files.createTempFile("matrix", ".m1zc");
+        try {
+            test.run(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //  write() and readMatrix() ----------------------------------------
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Matrix m = random(37, 53, 1);
+        withFile(file -> {
+            MatrixFile.write(m, file);
+            MatrixFile.Header header = MatrixFile.readHeader(file);
+            assertEquals(37, header.numRows());
+            assertEquals(53, header.numColumns());
+            assertEquals(MatrixFile.Layout.ROW_MAJOR, header.layout());
+            assertEquals(MatrixFile.DataType.FLOAT64, header.dataType());
+            assertEquals(MatrixFile.HEADER_SIZE + 37 * 53 * 8, Files.size(file));
+
+            Matrix read = MatrixFile.readMatrix(file);
+            assertArrayEquals(m.toArray(), read.toArray(), 0);
+        });
+
+        //  a transposed view goes out column by column as it is stored, and comes back the same way
+        withFile(file -> {
+            Matrix transpose = m.getTransposeView();
+            MatrixFile.write(transpose, file);
+            assertEquals(MatrixFile.Layout.COLUMN_MAJOR, MatrixFile.readHeader(file).layout());
+            assertArrayEquals(transpose.toArray(), MatrixFile.readMatrix(file).toArray(), 0);
+        });
+
+        //  and so does a block of a larger matrix
+        withFile(file -> {
+            Matrix block = m.getSubmatrixView(3, 20, 5, 41);
+            MatrixFile.write(block, file);
+            assertArrayEquals(block.toArray(), MatrixFile.readMatrix(file).toArray(), 0);
+        });
+    }
+
+    @Test
+    void testVectorRoundTrip() throws IOException {
+        Vector v = new Vector(1.5, -2, Math.PI, 1E-300, 0);
+        withFile(file -> {
+            MatrixFile.write(v, file);
+            assertEquals(1, MatrixFile.readHeader(file).numColumns());
+            assertEquals(v, MatrixFile.readVector(file));
+        });
+        withFile(file -> {
+            MatrixFile.write(random(3, 3, 2), file);
+            assertThrows(InvalidDimensionsException.class, () -> MatrixFile.readVector(file));
+        });
+    }
+
+    @Test
+    void testFloatRoundTrip() throws IOException {
+        FloatMatrix m = new FloatMatrix(random(20, 30, 11));
+        withFile(file -> {
+            MatrixFile.write(m, file);
+            assertEquals(MatrixFile.DataType.FLOAT32, MatrixFile.readHeader(file).dataType());
+            assertEquals(MatrixFile.HEADER_SIZE + 20 * 30 * 4, Files.size(file));
+            assertEquals(m, MatrixFile.readFloatMatrix(file));
+            assertArrayEquals(m.toMatrix().toArray(), MatrixFile.readMatrix(file).toArray(), 0);
+            assertThrows(MatrixFile.InvalidFormatException.class, () -> MatrixFile.map(file));
+        });
+        withFile(file -> {
+            MatrixFile.write(m.toMatrix().getTransposeView(), file);
+            assertEquals(new FloatMatrix(m.toMatrix().getTransposeView()), MatrixFile.readFloatMatrix(file));
+        });
+    }
+
+    @Test
+    void testInvalidFiles() throws IOException {
+        withFile(file -> {
+            Files.write(file, "[1.0 2.0]\n[3.0 4.0] and some more text".getBytes());
+            assertThrows(MatrixFile.InvalidFormatException.class, () -> MatrixFile.readMatrix(file));
+        });
+        withFile(file -> {
+            MatrixFile.write(random(10, 10, 3), file);
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+            assertThrows(MatrixFile.InvalidFormatException.class, () -> MatrixFile.map(file));
+        });
+    }
+
+    //  map() -----------------------------------------------------------
+
+    @Test
+    void testMappedMatrix() throws IOException {
+        Matrix m = random(120, 70, 4);
+        withFile(file -> {
+            MatrixFile.write(m, file);
+            MappedMatrix mapped = MatrixFile.map(file);
+            assertEquals(120, mapped.getNumRows());
+            assertEquals(70, mapped.getNumColumns());
+            assertEquals(m.getEntry(119, 3), mapped.getEntry(119, 3));
+            assertThrows(IndexOutOfBoundsException.class, () -> mapped.getEntry(120, 0));
+            assertEquals(m, mapped.toMatrix());
+            assertEquals(m.getSubmatrixView(10, 30, 60, 70), mapped.getSubmatrix(10, 30, 60, 70));
+
+            double[] x = random(70, 1, 5).toArray();
+            double[] expected = new double[120];
+            m.apply(x, expected);
+            double[] y = new double[120];
+            mapped.apply(x, y);
+            assertArrayEquals(expected, y, 1E-12);
+
+            double[] z = random(120, 1, 6).toArray();
+            double[] transposed = new double[70];
+            m.getTransposeView().apply(z, transposed);
+            mapped.multiplyTranspose(z, y = new double[70]);
+            assertArrayEquals(transposed, y, 1E-12);
+            mapped.getTranspose().apply(z, y);
+            assertArrayEquals(transposed, y, 1E-12);
+            assertEquals(m.getTransposeView(), mapped.getTranspose().toMatrix());
+        });
+    }
+
+    @Test
+    void testMappedColumnMajorMatrix() throws IOException {
+        Matrix m = random(45, 31, 7).getTransposeView();
+        withFile(file -> {
+            MatrixFile.write(m, file);
+            MappedMatrix mapped = MatrixFile.map(file);
+            assertEquals(31, mapped.getNumRows());
+            assertEquals(45, mapped.getNumColumns());
+            assertEquals(m.getEntry(30, 2), mapped.getEntry(30, 2));
+            assertEquals(m, mapped.toMatrix());
+            assertEquals(m.getSubmatrixView(1, 30, 4, 9), mapped.getSubmatrix(1, 30, 4, 9));
+
+            double[] x = random(45, 1, 8).toArray();
+            double[] expected = new double[31];
+            m.apply(x, expected);
+            double[] y = new double[31];
+            mapped.apply(x, y);
+            assertArrayEquals(expected, y, 1E-12);
+
+            //  rows gathered across the columns of the storage
+            double[] rows = new double[3 * 45];
+            mapped.rewind();
+            assertEquals(3, mapped.read(rows, 3));
+            assertArrayEquals(m.getSubmatrixView(0, 3, 0, 45).toArray(), rows, 0);
+        });
+    }
+
+    @Test
+    void testLeastSquaresFromMappedAndStreamedFiles() throws IOException {
+        //  y = 2 - t + 3 s exactly
+        int rows = 5_000;
+        double[][] entries = new double[rows][4];
+        for (int i = 0; i < rows; i++) {
+            double t = Math.sin(i);
+            double s = Math.cos(3.0 * i);
+            entries[i] = new double[]{1, t, s, 2 - t + 3 * s};
+        }
+        withFile(file -> {
+            MatrixFile.write(new Matrix(entries), file);
+            Vector expected = new Vector(2, -1, 3);
+
+            IncrementalQR mapped = new IncrementalQR(3);
+            mapped.addRows(MatrixFile.map(file));
+            assertEquals(rows, mapped.getNumRowsAdded());
+            assertEquals(expected, mapped.solve());
+
+            try (ChannelRowSource source = MatrixFile.openRowSource(file)) {
+                IncrementalQR streamed = new IncrementalQR(3);
+                streamed.addRows(source);
+                assertEquals(rows, streamed.getNumRowsAdded());
+                assertEquals(expected, streamed.solve());
+            }
+        });
+    }
+
+    //  toString() ------------------------------------------------------
+
+    @Test
+    void testToString() {
+        assertEquals("[1.0 2.0]\n[3.0 4.5]", new Matrix(new double[][]{{1, 2}, {3, 4.5}}).toString());
+        assertEquals("V(1.0, -2.0, 0.5)", new Vector(1, -2, 0.5).toString());
+    }
+}
@@ -0,0 +1,231 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixStructureTest {
+
+    //  a random sparse matrix with a few entries per row scattered over the whole row, diagonally dominant,
+    //  whose factors fill in almost completely whatever the order
+    private static Matrix randomSparse(int size, int perRow, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] entries = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            double sum = 0;
+            for (int k = 0; k < perRow; k++) {
+                int j = random.nextInt(size);
+                if (j == i) continue;
+                entries[i][j] = random.nextDouble(-1, 1);
+                sum += Math.abs(entries[i][j]);
+            }
+            entries[i][i] = sum + random.nextDouble(0.5, 1);
+        }
+        return new Matrix(entries);
+    }
+
+    //  a 5-point operator on a grid, with its unknowns shuffled so the band is lost
+    //  each neighbour couples with -1 - skew on one side and -1 + skew on the other, so the 2-D Laplacian,
+    //  symmetric positive-definite but only weakly diagonally dominant, has diagonal 4 and skew 0
+    private static Matrix shuffledGrid(int side, double diagonal, double skew, long seed) {
+        int size = side * side;
+        int[] position = new int[size];
+        for (int i = 0; i < size; i++) {
+            position[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = position[i];
+            position[i] = position[j];
+            position[j] = temp;
+        }
+        double[][] entries = new double[size][size];
+        for (int x = 0; x < side; x++) {
+            for (int y = 0; y < side; y++) {
+                int p = position[x * side + y];
+                entries[p][p] = diagonal;
+                if (x > 0) entries[p][position[(x - 1) * side + y]] = -1 - skew;
+                if (x < side - 1) entries[p][position[(x + 1) * side + y]] = -1 + skew;
+                if (y > 0) entries[p][position[x * side + y - 1]] = -1 - skew;
+                if (y < side - 1) entries[p][position[x * side + y + 1]] = -1 + skew;
+            }
+        }
+        return new Matrix(entries);
+    }
+
+    private static double[] rightSide(int size) {
+        double[] b = new double[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = i % 5 - 2;
+        }
+        return b;
+    }
+
+    //  getStructure() --------------------------------------------------
+
+    @Test
+    void testStructure() {
+        MatrixStructure structure = new Matrix(new double[][]{
+                {4, 1, 0, 0},
+                {1, 5, 2, 0},
+                {0, 2, 6, 1},
+                {0, 0, 1, 3}
+        }).getStructure();
+        assertEquals(1, structure.getLowerBandwidth());
+        assertEquals(1, structure.getUpperBandwidth());
+        assertEquals(10, structure.getNumNonzeros());
+        assertEquals(10 / 16.0, structure.getDensity(), 1E-15);
+        assertTrue(structure.isTridiagonal());
+        assertTrue(structure.isSymmetric());
+        assertTrue(structure.isSymmetricToRounding());
+        assertTrue(structure.isDiagonallyDominant());
+        assertTrue(structure.hasPositiveDiagonal());
+        assertFalse(structure.isTriangular());
+        assertFalse(structure.isSparse());
+
+        MatrixStructure rectangular = new Matrix(new double[][]{{1, 0, 0}, {0, 1, 0}}).getStructure();
+        assertFalse(rectangular.isSquare());
+        assertFalse(rectangular.isDiagonal());
+        assertFalse(rectangular.isSymmetric());
+        assertEquals(0, rectangular.getLowerBandwidth());
+
+        assertTrue(Matrix.createIdentityMatrix(5).getStructure().isIdentity());
+        assertTrue(new Matrix(new double[][]{{1, 0}, {3, 2}}).isLowerTriangular());
+        assertFalse(new Matrix(new double[][]{{1, 0}, {3, 2}}).isUpperTriangular());
+    }
+
+    @Test
+    void testSymmetryRelativeToTheEntries() {
+        //  mismatches of about 1E-3 next to entries of 1E12, beyond the tolerance of equals but only rounding
+        Matrix large = new Matrix(new double[][]{
+                {4E12, 1E12 + 1E-3, 0},
+                {1E12, 5E12, 2E12},
+                {0, 2E12 - 1E-3, 6E12}
+        });
+        MatrixStructure structure = large.getStructure();
+        assertFalse(structure.isSymmetric());
+        assertTrue(structure.isSymmetricToRounding());
+        assertTrue(large.getDecomposition() instanceof CholeskyDecomposition);
+        assertEquals(3, large.getSymmetricEigenDecomposition().getEigenvalues().length);
+
+        //  and mismatches within the tolerance of equals that are not small next to the entries
+        MatrixStructure small = new Matrix(new double[][]{
+                {4E-8, 1E-8},
+                {2E-8, 4E-8}
+        }).getStructure();
+        assertTrue(small.isSymmetric());
+        assertFalse(small.isSymmetricToRounding());
+    }
+
+    @Test
+    void testStructureIsCachedUntilTheEntriesChange() {
+        Matrix m = new Matrix(new double[][]{{2, 0}, {1, 4}});
+        MatrixStructure structure = m.getStructure();
+        assertSame(structure, m.getStructure());
+        assertTrue(m.isLowerTriangular());
+
+        m.invertInPlace();
+        assertNotSame(structure, m.getStructure());
+        assertTrue(m.isLowerTriangular());
+        assertEquals(new Matrix(new double[][]{{0.5, 0}, {-0.125, 0.25}}), m);
+
+        //  a change made through a view reaches the matrix it looks into
+        Operator.multiplyAdd(1, Matrix.createIdentityMatrix(1), new Matrix(new double[][]{{3}}), 1,
+                m.getSubmatrixView(0, 1, 1, 2));
+        assertFalse(m.isLowerTriangular());
+        assertFalse(m.getTransposeView().isUpperTriangular());
+
+        m.getReducedRowEchelonForm();
+        assertTrue(m.isIdentity());
+    }
+
+    //  getDecomposition() ----------------------------------------------
+
+    @Test
+    void testTriangularDispatch() {
+        Matrix upper = new Matrix(new double[][]{
+                {2, -1, 3, 0, 1},
+                {0, 1, 4, 2, 0},
+                {0, 0, -3, 1, 5},
+                {0, 0, 0, 2, 1},
+                {0, 0, 0, 0, 4}
+        });
+        MatrixDecomposition decomposition = upper.getDecomposition();
+        assertTrue(decomposition instanceof TriangularDecomposition);
+        assertEquals(-48, upper.getDeterminant(), 1E-12);
+        assertEquals(upper.getLUDecomposition().getInverse(), upper.getInverse());
+
+        Matrix lower = upper.getTransposeView();
+        assertTrue(lower.getDecomposition() instanceof TriangularDecomposition);
+        Vector b = new Vector(1, 2, 3, 4, 5);
+        assertEquals(lower.getLUDecomposition().solve(b), lower.getDecomposition().solve(b));
+        Matrix rightSides = new Matrix(new double[][]{{1, 0}, {2, 1}, {0, 3}, {1, 1}, {5, -2}});
+        assertEquals(lower.getLUDecomposition().solve(rightSides), lower.getDecomposition().solve(rightSides));
+
+        Matrix singular = new Matrix(new double[][]{{1, 2}, {0, 0}});
+        assertTrue(singular.getDecomposition().isSingular());
+        assertFalse(singular.isInvertible());
+        assertThrows(Matrix.NotInvertibleException.class, singular::getInverse);
+    }
+
+    @Test
+    void testDiagonallyDominantSparseDispatch() {
+        Matrix m = shuffledGrid(18, 4.5, 0.3, 1);
+        assertTrue(m.getStructure().isSparse());
+        assertTrue(m.getStructure().isDiagonallyDominant());
+        assertFalse(m.isSymmetric());
+        MatrixDecomposition decomposition = m.getDecomposition();
+        assertTrue(decomposition instanceof SparseLUDecomposition);
+
+        LUDecomposition dense = m.getLUDecomposition();
+        double[] b = rightSide(324);
+        assertArrayEquals(dense.solve(b), decomposition.solve(b), 1E-10);
+        assertEquals(1, decomposition.getDeterminant() / dense.getDeterminant(), 1E-9);
+        assertEquals(dense.getInverse(), decomposition.getInverse());
+    }
+
+    @Test
+    void testHeavyFillFallsBackToLU() {
+        Matrix m = randomSparse(400, 5, 1);
+        assertTrue(m.getStructure().isSparse());
+        assertTrue(m.getStructure().isDiagonallyDominant());
+        assertTrue(m.getDecomposition() instanceof LUDecomposition);
+
+        //  asked for directly it still factors, with well over an eighth of the factors filled in
+        SparseLUDecomposition sparse = new SparseLUDecomposition(SparseMatrix.fromMatrix(m));
+        assertTrue(sparse.getNumNonzeros() > 400 * 400 / 8);
+        double[] b = rightSide(400);
+        assertArrayEquals(m.getLUDecomposition().solve(b), sparse.solve(b), 1E-10);
+    }
+
+    @Test
+    void testSymmetricPositiveDefiniteSparseDispatch() {
+        Matrix m = shuffledGrid(15, 4, 0, 2);
+        assertFalse(m.getStructure().isDiagonallyDominant());
+        assertTrue(m.getDecomposition() instanceof SparseLUDecomposition);
+        double[] b = rightSide(225);
+        assertArrayEquals(m.getCholeskyDecomposition().solve(b), m.getDecomposition().solve(b), 1E-10);
+    }
+
+    @Test
+    void testIndefiniteSparseFallsBackToLU() {
+        //  symmetric with a positive diagonal, but the sign flip makes it indefinite
+        Matrix laplacian = shuffledGrid(12, 4, 0, 3);
+        double[][] entries = laplacian.to2DArray();
+        for (int i = 0; i < entries.length; i++) {
+            entries[i][i] = 1;
+        }
+        Matrix m = new Matrix(entries);
+        assertTrue(m.getStructure().isSparse());
+        assertTrue(m.getDecomposition() instanceof LUDecomposition);
+
+        SparseLUDecomposition sparse = new SparseLUDecomposition(SparseMatrix.fromMatrix(m));
+        assertFalse(sparse.hasPositivePivots());
+        assertTrue(sparse.getNumNonzeros() >= SparseMatrix.fromMatrix(m).getNumNonzeros());
+    }
+}
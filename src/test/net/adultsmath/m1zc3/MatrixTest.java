@@ -75,6 +75,61 @@ class MatrixTest {
                 }).getSolution());
     }
 
+    @Test
+    void testReducedRowEchelonFormNeedsRowSwap() {
+        assertEquals(new Matrix(new double[][]{
+                        {1, 0, 0, 3},
+                        {0, 1, 2, 1},
+                        {0, 0, 0, 0}
+                }),
+                new Matrix(new double[][]{
+                        {0, 2, 4, 2},
+                        {2, 0, 0, 6},
+                        {1, 1, 2, 4}
+                }).getReducedRowEchelonForm());
+    }
+
+    @Test
+    void testSolveInfiniteSolutionsPivotsOffDiagonal() {
+        assertEquals(new LinearSystemSolution(
+                        new Vector(0, 1, 0), new VectorSet(new Vector(1, 0, 0), new Vector(0, -2, 1))),
+                new Matrix(new double[][]{
+                        {0, 1, 2, 1},
+                        {0, 2, 4, 2}
+                }).getSolution());
+    }
+
+    //  storage ------------------------------------------------------
+
+    @Test
+    void testTransposeAndMultiply() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4, 5, 6}
+        });
+        assertEquals(new Matrix(new double[][]{
+                        {1, 4},
+                        {2, 5},
+                        {3, 6}
+                }),
+                a.getTransposeMatrix());
+        assertEquals(new Matrix(new double[][]{
+                        {14, 32},
+                        {32, 77}
+                }),
+                Operator.multiply(a, a.getTransposeMatrix()));
+    }
+
+    @Test
+    void testShortRowsArePadded() {
+        Matrix a = new Matrix(new double[][]{
+                {1, 2, 3},
+                {4}
+        });
+        assertEquals(new Vector(4, 0, 0), a.getRow(1));
+        assertEquals(new Vector(3, 0), a.getColumn(2));
+    }
+
     //  eig() ------------------------------------------------------
 
     @Test
@@ -0,0 +1,169 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.Operator;
+import main.net.adultsmath.m1zc3.ParallelOperator;
+import main.net.adultsmath.m1zc3.SparseMatrix;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixViewTest {
+    private static double[][] createEntries(int rows, int columns, int seed) {
+        double[][] entries = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                entries[i][j] = Math.sin(seed + i * columns + j);
+            }
+        }
+        return entries;
+    }
+
+    //  the same block as a compact copy
+    private static Matrix copyOf(double[][] entries, int rowStart, int rowEnd, int columnStart, int columnEnd) {
+        double[][] block = new double[rowEnd - rowStart][columnEnd - columnStart];
+        for (int i = rowStart; i < rowEnd; i++) {
+            System.arraycopy(entries[i], columnStart, block[i - rowStart], 0, columnEnd - columnStart);
+        }
+        return new Matrix(block);
+    }
+
+    //  getTransposeView() ----------------------------------------------
+
+    @Test
+    void testTransposeView() {
+        Matrix a = new Matrix(createEntries(7, 4, 1));
+        Matrix view = a.getTransposeView();
+        assertEquals(4, view.getNumRows());
+        assertEquals(7, view.getNumColumns());
+        assertEquals(a.getTransposeMatrix(), view);
+        assertEquals(a.getTransposeMatrix(), new Matrix(view.to2DArray()));
+        assertEquals(a, view.getTransposeView());
+    }
+
+    @Test
+    void testMultiplyByTransposeView() {
+        //  A * B^T without materializing B^T, through both the small and the packed kernel
+        for (int size : new int[]{5, 150}) {
+            double[][] a = createEntries(size, size + 3, 2);
+            double[][] b = createEntries(size + 1, size + 3, 3);
+            Matrix expected = Operator.multiply(new Matrix(a), new Matrix(b).getTransposeMatrix());
+            assertEquals(expected, Operator.multiply(new Matrix(a), new Matrix(b).getTransposeView()));
+            try (ParallelOperator parallel = new ParallelOperator(4, 1024)) {
+                assertEquals(expected, parallel.multiply(new Matrix(a), new Matrix(b).getTransposeView()));
+            }
+        }
+    }
+
+    @Test
+    void testMultiplyAddIntoTransposeView() {
+        double[][] a = createEntries(60, 40, 4);
+        double[][] b = createEntries(40, 70, 5);
+        Matrix c = Matrix.createZeroMatrix(70, 60);
+        //  (A * B)^T lands in C through its transpose
+        Operator.multiplyAdd(1, new Matrix(a), new Matrix(b), 0, c.getTransposeView());
+        assertEquals(Operator.multiply(new Matrix(a), new Matrix(b)).getTransposeMatrix(), c);
+    }
+
+    @Test
+    void testRowReductionOfTransposeView() {
+        double[][] entries = createEntries(3, 5, 6);
+        Matrix a = new Matrix(entries);
+        Matrix expected = a.getTransposeMatrix().getReducedRowEchelonForm();
+        assertEquals(expected, a.getTransposeView().getReducedRowEchelonForm());
+        //  the reduction happened in place, on the entries of a
+        assertEquals(expected.getTransposeMatrix(), a);
+    }
+
+    //  getSubmatrixView() ----------------------------------------------
+
+    @Test
+    void testSubmatrixView() {
+        double[][] entries = createEntries(9, 8, 7);
+        Matrix view = new Matrix(entries).getSubmatrixView(2, 7, 1, 5);
+        assertEquals(copyOf(entries, 2, 7, 1, 5), view);
+        assertEquals(entries[4][3], view.getEntry(2, 2));
+        assertArrayEquals(copyOf(entries, 2, 7, 1, 5).toArray(), view.toArray());
+    }
+
+    @Test
+    void testSubmatrixViewInvalidBounds() {
+        Matrix a = new Matrix(createEntries(4, 4, 8));
+        assertThrows(IndexOutOfBoundsException.class, () -> a.getSubmatrixView(0, 5, 0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> a.getSubmatrixView(2, 2, 0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> a.getSubmatrixView(0, 4, -1, 3));
+    }
+
+    @Test
+    void testWritesThroughSubmatrixView() {
+        Matrix a = Matrix.createIdentityMatrix(6);
+        Matrix block = a.getSubmatrixView(1, 4, 1, 4);
+        Operator.multiplyAdd(1, Matrix.createIdentityMatrix(3), Matrix.createIdentityMatrix(3), 1, block);
+        //  the diagonal inside the block doubled, everything outside it is untouched
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i >= 1 && i < 4 ? 2 : 1, a.getEntry(i, i));
+        }
+        assertEquals(0, a.getEntry(0, 1));
+
+        block.invertInPlace();
+        assertEquals(0.5, a.getEntry(2, 2), 1E-15);
+        assertEquals(1, a.getEntry(4, 4));
+    }
+
+    @Test
+    void testOperatorsOnSubmatrixViews() {
+        double[][] a = createEntries(10, 10, 9);
+        double[][] b = createEntries(10, 10, 10);
+        Matrix left = new Matrix(a).getSubmatrixView(1, 6, 2, 9);
+        Matrix right = new Matrix(b).getSubmatrixView(3, 8, 0, 7);
+        assertEquals(Operator.add(copyOf(a, 1, 6, 2, 9), copyOf(b, 3, 8, 0, 7)), Operator.add(left, right));
+        try (ParallelOperator parallel = new ParallelOperator(4, 1)) {
+            assertEquals(Operator.scalMult(3, copyOf(a, 1, 6, 2, 9)), parallel.scalMult(3, left));
+            assertEquals(Operator.add(left, right), parallel.add(left, right));
+        }
+        assertEquals(Operator.multiply(copyOf(a, 1, 6, 2, 9), copyOf(b, 3, 8, 0, 7).getTransposeMatrix()),
+                Operator.multiply(left, right.getTransposeView()));
+    }
+
+    @Test
+    void testSolveWithViews() {
+        double[][] entries = createEntries(6, 7, 11);
+        for (int i = 0; i < 6; i++) {
+            entries[i][i] += 4;
+        }
+        Matrix augmented = new Matrix(entries);
+        Matrix a = augmented.getSubmatrixView(0, 6, 0, 6);
+        Matrix b = augmented.getColumnView(6);
+        Matrix expected = copyOf(entries, 0, 6, 0, 6).getLUDecomposition().solve(copyOf(entries, 0, 6, 6, 7));
+        assertEquals(expected, a.getLUDecomposition().solve(b));
+        assertEquals(expected, a.getTransposeView().getTransposeView().getLUDecomposition().solve(b));
+        assertEquals(Operator.multiply(a, expected), SparseMatrix.fromMatrix(a).multiply(expected.getTransposeView()
+                .getTransposeView()));
+        assertEquals(copyOf(entries, 0, 6, 6, 7), SparseMatrix.fromMatrix(a.getTransposeView()).getTranspose()
+                .multiply(expected));
+    }
+
+    //  getRowView() and getColumnView() --------------------------------
+
+    @Test
+    void testRowAndColumnViews() {
+        double[][] entries = createEntries(5, 6, 12);
+        Matrix a = new Matrix(entries);
+        assertArrayEquals(entries[3], a.getRowView(3).getRowArray(0));
+        assertArrayEquals(a.getColumnArray(4), a.getColumnView(4).getColumnArray(0));
+        assertArrayEquals(a.getColumnArray(4), a.getColumnView(4).getTransposeView().getRowArray(0));
+        assertThrows(Matrix.NoSuchRowException.class, () -> a.getRowView(5));
+        assertThrows(IllegalArgumentException.class, () -> a.getColumnView(-1));
+    }
+
+    //  getMinor() ------------------------------------------------------
+
+    @Test
+    void testMinor() {
+        Matrix a = new Matrix(new double[][]{{1, 2, 3}, {4, 5, 6}, {7, 8, 10}});
+        assertEquals(new Matrix(new double[][]{{1, 3}, {7, 10}}), a.getMinor(1, 1));
+        assertEquals(new Matrix(new double[][]{{1, 4}, {2, 5}}), a.getTransposeView().getMinor(2, 2));
+        assertEquals(-11, a.getMinorDeterminant(1, 1), 1E-12);
+        assertEquals(a.getDeterminant(), a.getTransposeView().getCofactorDeterminant(), 1E-12);
+    }
+}
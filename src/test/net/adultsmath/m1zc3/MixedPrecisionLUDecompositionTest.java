@@ -0,0 +1,119 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class MixedPrecisionLUDecompositionTest {
+
+    private static double[] rightSide(int size) {
+        double[] b = new double[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = Math.sin(i + 1);
+        }
+        return b;
+    }
+
+    //  condition number around 10^13
+    private static Matrix hilbert(int size) {
+        double[][] entries = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                entries[i][j] = 1.0 / (i + j + 1);
+            }
+        }
+        return new Matrix(entries);
+    }
+
+    //  FloatMatrix -----------------------------------------------------
+
+    @Test
+    void testFloatMatrix() {
+        Matrix m = new Matrix(new double[][]{{0.1, 2}, {-3, 1E-3}, {4, 5}});
+        FloatMatrix floats = new FloatMatrix(m);
+        assertEquals(3, floats.getNumRows());
+        assertEquals(2, floats.getNumColumns());
+        assertEquals((float) 0.1, floats.getEntry(0, 0));
+        assertNotEquals(0.1, floats.getEntry(0, 0));
+        assertEquals(m, floats.toMatrix());
+        assertEquals(floats, new FloatMatrix(new float[][]{{0.1f, 2}, {-3, 1E-3f}, {4, 5}}));
+        assertThrows(IndexOutOfBoundsException.class, () -> floats.getEntry(3, 0));
+
+        double[] y = new double[3];
+        floats.apply(new double[]{1, 2}, y);
+        assertArrayEquals(new double[]{(double) (float) 0.1 + 4, -3 + 2 * (double) 1E-3f, 14}, y, 0);
+        assertThrows(InvalidDimensionsException.class, () -> floats.apply(new double[3], new double[3]));
+    }
+
+    //  refine() and solve() --------------------------------------------
+
+    @Test
+    void testRefinementReachesDoubleAccuracy() {
+        Matrix a = random(200, 200, 1);
+        double[] b = rightSide(200);
+        MixedPrecisionLUDecomposition mixed = a.getMixedPrecisionLUDecomposition();
+        MixedPrecisionLUDecomposition.Refinement refinement = mixed.refine(b);
+        assertTrue(refinement.converged());
+        assertTrue(refinement.iterations() >= 1 && refinement.iterations() <= 5);
+        assertTrue(refinement.residualNorm() <= 1E-12);
+
+        double[] expected = a.getLUDecomposition().solve(b);
+        assertArrayEquals(expected, refinement.value(), 1E-11);
+        assertArrayEquals(expected, mixed.solve(b), 1E-11);
+        assertFalse(mixed.isSingular());
+        assertEquals(a.getLUDecomposition().getDeterminant(), mixed.getDeterminant(), 0);
+    }
+
+    @Test
+    void testFloatStoredSystem() {
+        //  the float entries are the system, solved to double accuracy even though they were rounded
+        FloatMatrix a = new FloatMatrix(random(100, 100, 2));
+        double[] b = rightSide(100);
+        MixedPrecisionLUDecomposition.Refinement refinement = a.getMixedPrecisionLUDecomposition().refine(b);
+        assertTrue(refinement.converged());
+        assertArrayEquals(a.toMatrix().getLUDecomposition().solve(b), refinement.value(), 1E-11);
+
+        double[] residual = new double[100];
+        a.apply(refinement.value(), residual);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(b[i], residual[i], 1E-12);
+        }
+    }
+
+    @Test
+    void testIllConditionedFallsBackToDouble() {
+        Matrix a = hilbert(10);
+        double[] b = rightSide(10);
+        MixedPrecisionLUDecomposition mixed = a.getMixedPrecisionLUDecomposition();
+        MixedPrecisionLUDecomposition.Refinement refinement = mixed.refine(b);
+        assertFalse(refinement.converged());
+
+        //  solve() still answers as well as double LU does
+        double[] x = mixed.solve(b);
+        assertArrayEquals(a.getLUDecomposition().solve(b), x, 0);
+    }
+
+    @Test
+    void testSingular() {
+        Matrix singular = new Matrix(new double[][]{{1, 2, 3}, {2, 4, 6}, {1, 0, 1}});
+        MixedPrecisionLUDecomposition mixed = singular.getMixedPrecisionLUDecomposition();
+        assertTrue(mixed.isSingular());
+        assertFalse(mixed.refine(new double[]{1, 2, 3}).converged());
+        assertThrows(Matrix.NotInvertibleException.class, () -> mixed.solve(new double[]{1, 2, 3}));
+        assertThrows(InvalidDimensionsException.class,
+                () -> new Matrix(new double[][]{{1, 2}}).getMixedPrecisionLUDecomposition());
+    }
+
+    @Test
+    void testSeveralRightHandSides() {
+        Matrix a = random(60, 60, 3);
+        Matrix b = random(60, 60, 4).getSubmatrixView(0, 60, 0, 5);
+        LUDecomposition lu = a.getLUDecomposition();
+        MixedPrecisionLUDecomposition mixed = a.getMixedPrecisionLUDecomposition();
+        assertEquals(lu.solve(b), mixed.solve(b));
+        assertEquals(lu.getInverse(), mixed.getInverse());
+        assertEquals(new Vector(lu.solve(rightSide(60))), mixed.solve(new Vector(rightSide(60))));
+    }
+}
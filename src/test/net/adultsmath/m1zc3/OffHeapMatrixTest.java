@@ -0,0 +1,152 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import main.net.adultsmath.m1zc3.iterative.ConjugateGradient;
+import main.net.adultsmath.m1zc3.iterative.IterativeSolution;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class OffHeapMatrixTest {
+
+    //  allocate() and copyOf() -----------------------------------------
+
+    @Test
+    void testEntries() {
+        try (MatrixArena arena = new MatrixArena()) {
+            OffHeapMatrix zero = arena.allocate(300, 200);
+            assertEquals(60_000, zero.getNumEntries());
+            assertEquals(0, zero.getEntry(299, 199));
+            zero.setEntry(17, 3, 2.5);
+            assertEquals(2.5, zero.getEntry(17, 3));
+            assertEquals(2.5, zero.getTranspose().getEntry(3, 17));
+            assertThrows(IndexOutOfBoundsException.class, () -> zero.getEntry(300, 0));
+
+            Matrix m = random(40, 25, 1);
+            OffHeapMatrix copy = arena.copyOf(m);
+            assertEquals(m, copy.toMatrix());
+            assertEquals(m.getSubmatrixView(5, 35, 10, 20), copy.getSubmatrix(5, 35, 10, 20));
+            assertEquals(m.getTransposeView(), copy.getTranspose().toMatrix());
+            assertEquals(m.getTransposeView().getSubmatrixView(2, 9, 1, 30),
+                    copy.getTranspose().getSubmatrix(2, 9, 1, 30));
+
+            //  a transposed matrix gets its rows written across the storage
+            OffHeapMatrix transposed = arena.allocate(25, 40).getTranspose();
+            for (int i = 0; i < 40; i++) {
+                transposed.setRow(i, m.getSubmatrixView(i, i + 1, 0, 25).toArray());
+            }
+            assertEquals(m, transposed.toMatrix());
+            assertEquals(60_000 + 2 * 1_000, arena.getNumEntries());
+        }
+    }
+
+    @Test
+    void testClosedArena() {
+        MatrixArena arena = new MatrixArena();
+        OffHeapMatrix m = arena.copyOf(random(10, 10, 2));
+        assertTrue(arena.isOpen());
+        arena.close();
+        assertFalse(arena.isOpen());
+        assertEquals(0, arena.getNumEntries());
+        assertThrows(IllegalStateException.class, () -> m.getEntry(0, 0));
+        assertThrows(IllegalStateException.class, () -> m.multiply(new double[10], new double[10]));
+        assertThrows(IllegalStateException.class, m::toMatrix);
+        assertThrows(IllegalStateException.class, () -> arena.allocate(2, 2));
+        arena.close();
+    }
+
+    //  products --------------------------------------------------------
+
+    @Test
+    void testProducts() {
+        Matrix m = random(150, 90, 3);
+        try (MatrixArena arena = new MatrixArena()) {
+            OffHeapMatrix a = arena.copyOf(m);
+            double[] x = random(90, 1, 4).toArray();
+            double[] expected = new double[150];
+            m.apply(x, expected);
+            double[] y = new double[150];
+            a.apply(x, y);
+            assertArrayEquals(expected, y, 1E-12);
+            assertArrayEquals(expected, a.getTranspose().getTranspose().multiply(new Vector(x)).toArray(), 1E-12);
+
+            double[] z = random(150, 1, 5).toArray();
+            double[] transposed = new double[90];
+            m.getTransposeView().apply(z, transposed);
+            a.getTranspose().apply(z, y = new double[90]);
+            assertArrayEquals(transposed, y, 1E-12);
+            a.multiplyTranspose(z, y);
+            assertArrayEquals(transposed, y, 1E-12);
+            assertThrows(InvalidDimensionsException.class, () -> a.apply(z, new double[150]));
+
+            Matrix b = random(90, 7, 6);
+            assertEquals(Operator.multiply(m, b), a.multiply(b, arena).toMatrix());
+            Matrix c = random(150, 3, 7);
+            assertEquals(Operator.multiply(m.getTransposeView(), c), a.getTranspose().multiply(c, arena).toMatrix());
+            assertThrows(InvalidDimensionsException.class, () -> a.multiply(c, arena));
+        }
+    }
+
+    @Test
+    void testIterativeSolve() {
+        //  A^T * A + I is symmetric positive-definite
+        Matrix m = random(80, 60, 8);
+        double[][] entries = Operator.multiply(m.getTransposeView(), m).to2DArray();
+        for (int i = 0; i < 60; i++) {
+            entries[i][i] += 1;
+        }
+        Matrix a = new Matrix(entries);
+        double[] b = random(60, 1, 9).toArray();
+        try (MatrixArena arena = new MatrixArena()) {
+            IterativeSolution solution = new ConjugateGradient(1E-12, 1000).solve(arena.copyOf(a), b);
+            assertTrue(solution.converged());
+            assertArrayEquals(a.getDecomposition().solve(b), solution.value(), 1E-9);
+        }
+    }
+
+    @Test
+    void testLeastSquaresFromRows() {
+        //  y = 1 + 2 t - s exactly
+        int rows = 3_000;
+        try (MatrixArena arena = new MatrixArena()) {
+            OffHeapMatrix augmented = arena.allocate(rows, 4);
+            for (int i = 0; i < rows; i++) {
+                double t = Math.sin(i);
+                double s = Math.cos(5.0 * i);
+                augmented.setRow(i, new double[]{1, t, s, 1 + 2 * t - s});
+            }
+            IncrementalQR qr = new IncrementalQR(3);
+            qr.addRows(augmented);
+            assertEquals(rows, qr.getNumRowsAdded());
+            assertEquals(new Vector(1, 2, -1), qr.solve());
+        }
+    }
+
+    //  MappedMatrix ----------------------------------------------------
+
+    @Test
+    void testMappedMatrixCopies() throws IOException {
+        Matrix m = random(30, 20, 10);
+        Path file = Files.createTempFile("matrix", ".m1zc");
+        try (MatrixArena arena = new MatrixArena()) {
+            MatrixFile.write(m, file);
+            MappedMatrix mapped = MatrixFile.map(file);
+            assertThrows(ReadOnlyBufferException.class, () -> mapped.setEntry(0, 0, 1));
+
+            OffHeapMatrix copy = arena.copyOf(mapped.getTranspose());
+            copy.setEntry(0, 0, 42);
+            assertEquals(42, copy.getEntry(0, 0));
+            assertEquals(m.getEntry(0, 0), mapped.getEntry(0, 0));
+            assertEquals(m.getTransposeView().getSubmatrixView(1, 20, 0, 30), copy.getSubmatrix(1, 20, 0, 30));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
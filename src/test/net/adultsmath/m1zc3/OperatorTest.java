@@ -0,0 +1,78 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.InvalidDimensionsException;
+import main.net.adultsmath.m1zc3.Matrix;
+import main.net.adultsmath.m1zc3.Operator;
+import main.net.adultsmath.m1zc3.ParallelOperator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperatorTest {
+    private static double[][] createEntries(int rows, int columns, int seed) {
+        double[][] entries = new double[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                entries[i][j] = Math.sin(seed + i * columns + j);
+            }
+        }
+        return entries;
+    }
+
+    private static double[][] multiplyNaive(double[][] a, double[][] b) {
+        double[][] c = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b[0].length; j++) {
+                for (int k = 0; k < b.length; k++) {
+                    c[i][j] += a[i][k] * b[k][j];
+                }
+            }
+        }
+        return c;
+    }
+
+    //  multiply() ------------------------------------------------------
+
+    @Test
+    void testMultiplyUnevenBlocks() {
+        //  sizes that are not multiples of any block size
+        double[][] a = createEntries(137, 301, 1);
+        double[][] b = createEntries(301, 70, 2);
+        assertEquals(new Matrix(multiplyNaive(a, b)), Operator.multiply(new Matrix(a), new Matrix(b)));
+    }
+
+    @Test
+    void testMultiplyAdd() {
+        double[][] a = createEntries(90, 60, 3);
+        double[][] b = createEntries(60, 50, 4);
+        double[][] c = createEntries(90, 50, 5);
+        Matrix result = new Matrix(c);
+        Operator.multiplyAdd(2, new Matrix(a), new Matrix(b), -0.5, result);
+
+        Matrix expected = Operator.add(
+                Operator.scalMult(2, new Matrix(multiplyNaive(a, b))),
+                Operator.scalMult(-0.5, new Matrix(c)));
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void testMultiplyInvalidDimensions() {
+        assertThrows(InvalidDimensionsException.class,
+                () -> Operator.multiply(Matrix.createZeroMatrix(2, 3), Matrix.createZeroMatrix(2, 3)));
+    }
+
+    //  parallel ------------------------------------------------------
+
+    @Test
+    void testParallelMatchesSerial() {
+        Matrix a = new Matrix(createEntries(300, 200, 6));
+        Matrix b = new Matrix(createEntries(200, 150, 7));
+        Matrix c = new Matrix(createEntries(300, 200, 8));
+        try (ParallelOperator parallel = new ParallelOperator(4, 1024)) {
+            assertArrayEquals(Operator.multiply(a, b).toArray(), parallel.multiply(a, b).toArray());
+            assertArrayEquals(Operator.add(a, c).toArray(), parallel.add(a, c).toArray());
+            assertArrayEquals(Operator.scalMult(3, a).toArray(), parallel.scalMult(3, a).toArray());
+            assertArrayEquals(a.getTransposeMatrix().toArray(), parallel.transpose(a).toArray());
+        }
+    }
+}
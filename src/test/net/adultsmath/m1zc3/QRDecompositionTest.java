@@ -0,0 +1,128 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QRDecompositionTest {
+    private final Matrix matrix = new Matrix(new double[][]{
+            {12, -51, 4},
+            {6, 167, -68},
+            {-4, 24, -41},
+            {1, 2, 3}
+    });
+
+    @Test
+    void testQRReproducesMatrix() {
+        QRDecomposition qr = matrix.getQRDecomposition();
+        assertEquals(matrix, Operator.multiply(qr.getQ(), qr.getR()));
+        assertEquals(Matrix.createIdentityMatrix(3), Operator.multiply(qr.getQ().getTransposeMatrix(), qr.getQ()));
+        assertEquals(3, qr.getRank());
+    }
+
+    @Test
+    void testColumnPivoting() {
+        QRDecomposition qr = matrix.getQRDecomposition(true);
+        int[] permutation = qr.getPermutation();
+        double[][] permuted = new double[4][3];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 3; j++) {
+                permuted[i][j] = matrix.getEntry(i, permutation[j]);
+            }
+        }
+        assertEquals(new Matrix(permuted), Operator.multiply(qr.getQ(), qr.getR()));
+        Matrix r = qr.getR();
+        assertTrue(Math.abs(r.getEntry(0, 0)) >= Math.abs(r.getEntry(1, 1)));
+        assertTrue(Math.abs(r.getEntry(1, 1)) >= Math.abs(r.getEntry(2, 2)));
+    }
+
+    @Test
+    void testLeastSquaresMatchesNormalEquations() {
+        SplittableRandom random = new SplittableRandom(3);
+        int rows = 1000;
+        int unknowns = 5;
+        double[][] augmented = new double[rows][unknowns + 1];
+        double[][] coefficients = new double[rows][unknowns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j <= unknowns; j++) {
+                augmented[i][j] = random.nextDouble(-1, 1);
+            }
+            System.arraycopy(augmented[i], 0, coefficients[i], 0, unknowns);
+        }
+        Matrix system = new Matrix(augmented);
+        Matrix a = new Matrix(coefficients);
+        Vector b = system.getColumn(unknowns);
+
+        //  A^T * A * x = A^T * b
+        Matrix transpose = a.getTransposeMatrix();
+        Matrix normal = Operator.multiply(transpose, a);
+        Matrix rightSide = Operator.multiply(transpose, new Matrix(b).getTransposeMatrix());
+        Vector expected = normal.getDecomposition().solve(rightSide.getColumn(0));
+
+        LinearSystemSolution solution = system.getLeastSquaresSolution();
+        assertEquals(LinearSystemSolution.SolutionType.SINGLE, solution.solutionType());
+        assertEquals(expected, solution.value());
+        assertEquals(expected, a.getQRDecomposition().solve(b));
+    }
+
+    @Test
+    void testIncrementalResidual() {
+        IncrementalQR qr = new IncrementalQR(2);
+        //  the line through (0, 1), (1, 3), (2, 5) fits y = 1 + 2 t exactly, (3, 8) is off by 1
+        qr.addRow(new double[]{1, 0}, 1);
+        qr.addRow(new double[]{1, 1}, 3);
+        qr.addRow(new double[]{1, 2}, 5);
+        assertEquals(new Vector(1, 2), qr.solve());
+        assertEquals(0, qr.getResidualNorm(), 1E-12);
+
+        qr.addRow(new double[]{1, 3}, 8);
+        assertEquals(new Vector(0.8, 2.3), qr.solve());
+        assertEquals(4, qr.getNumRowsAdded());
+        assertEquals(Math.sqrt(0.3), qr.getResidualNorm(), 1E-12);
+    }
+
+    @Test
+    void testAddRowsChecksTheArrayFirst() {
+        IncrementalQR qr = new IncrementalQR(2);
+        double[] rows = {1, 0, 1, 1, 1, 3, 1, 2};
+        //  each row takes 3 entries, the 8 entries hold 2 rows starting at position 0, 1 or 2 but never 3
+        assertThrows(InvalidDimensionsException.class, () -> qr.addRows(rows, 1, 3));
+        assertThrows(InvalidDimensionsException.class, () -> qr.addRows(rows, 3, 2));
+        assertThrows(InvalidDimensionsException.class, () -> qr.addRows(rows, -1, 1));
+        assertEquals(0, qr.getNumRowsAdded());
+
+        qr.addRows(rows, 0, 2);
+        assertEquals(2, qr.getNumRowsAdded());
+        assertEquals(new Vector(1, 2), qr.solve());
+    }
+
+    @Test
+    void testRankDeficientLeastSquares() {
+        //  the second column is twice the first
+        Matrix system = new Matrix(new double[][]{
+                {1, 2, 1, 1},
+                {2, 4, 0, 2},
+                {3, 6, 1, 4},
+                {1, 2, 1, 0}
+        });
+        Matrix coefficients = new Matrix(new double[][]{
+                {1, 2, 1},
+                {2, 4, 0},
+                {3, 6, 1},
+                {1, 2, 1}
+        });
+        QRDecomposition qr = coefficients.getQRDecomposition(true);
+        assertEquals(2, qr.getRank());
+        assertFalse(qr.isFullRank());
+
+        LinearSystemSolution solution = system.getLeastSquaresSolution();
+        assertEquals(LinearSystemSolution.SolutionType.INFINITE, solution.solutionType());
+        Vector nullVector = solution.solutionSet().getVectorsList().get(0);
+        Matrix product = Operator.multiply(coefficients, new Matrix(nullVector).getTransposeMatrix());
+        assertEquals(Matrix.createZeroMatrix(4, 1), product);
+    }
+}
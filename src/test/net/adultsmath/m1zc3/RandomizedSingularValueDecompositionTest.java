@@ -0,0 +1,127 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomizedSingularValueDecompositionTest {
+
+    //  U * diag(2^-i) * V^T plus a little noise, so the singular values decay quickly
+    private static Matrix decaying(int rows, int columns, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int size = Math.min(rows, columns);
+        double[][] left = new double[rows][size];
+        double[][] right = new double[size][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < size; j++) {
+                left[i][j] = random.nextGaussian() * Math.pow(0.5, j);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < columns; j++) {
+                right[i][j] = random.nextGaussian();
+            }
+        }
+        return Operator.multiply(new Matrix(left), new Matrix(right));
+    }
+
+    //  the rows of a matrix, counting how many times they are read from the top
+    private static class CountingSource implements RowSource {
+        private final double[] rows;
+        private final int numColumns;
+        private int position;
+        private int passes;
+
+        CountingSource(Matrix a) {
+            rows = a.toArray();
+            numColumns = a.getNumColumns();
+        }
+
+        @Override
+        public int getNumColumns() {
+            return numColumns;
+        }
+
+        @Override
+        public void rewind() {
+            position = 0;
+            passes++;
+        }
+
+        @Override
+        public int read(double[] buffer, int maxRows) {
+            int count = Math.min(maxRows, (rows.length - position) / numColumns);
+            System.arraycopy(rows, position, buffer, 0, count * numColumns);
+            position += count * numColumns;
+            return count;
+        }
+    }
+
+    @Test
+    void testMatchesExactSingularValues() {
+        Matrix a = decaying(400, 150, 1);
+        double[] exact = a.getSingularValues();
+        RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(a, 10);
+        assertEquals(10, svd.getRank());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(exact[i], svd.getSingularValue(i), 1E-8 * exact[0]);
+        }
+
+        Matrix u = svd.getU();
+        Matrix v = svd.getV();
+        assertEquals(Matrix.createIdentityMatrix(10), Operator.multiply(u.getTransposeMatrix(), u));
+        assertEquals(Matrix.createIdentityMatrix(10), Operator.multiply(v.getTransposeMatrix(), v));
+
+        //  nearly as good as the best rank 10 approximation, whose error is the next singular value
+        Matrix error = Operator.subtract(a, svd.getLowRankApproximation());
+        assertEquals(exact[10], error.getSingularValues()[0], 1E-6 * exact[0]);
+    }
+
+    @Test
+    void testSourcesAgree() {
+        Matrix a = decaying(300, 80, 2);
+        RandomizedSingularValueDecomposition dense = new RandomizedSingularValueDecomposition(a, 5);
+        RandomizedSingularValueDecomposition sparse =
+                new RandomizedSingularValueDecomposition(SparseMatrix.fromMatrix(a), 5);
+        CountingSource source = new CountingSource(a);
+        RandomizedSingularValueDecomposition streamed = new RandomizedSingularValueDecomposition(source, 5, 5, 1);
+
+        assertArrayEquals(dense.getSingularValues(), sparse.getSingularValues(), 1E-12);
+        assertEquals(300, streamed.getNumRows());
+        assertArrayEquals(Arrays.copyOf(a.getSingularValues(), 5), streamed.getSingularValues(), 1E-6);
+        //  one pass for the sketch, two for the power iteration and one for B
+        assertEquals(4, source.passes);
+    }
+
+    @Test
+    void testLargeSparse() {
+        //  a 20000 x 2000 sparse matrix with a planted rank 3 part on a few hundred rows
+        SplittableRandom random = new SplittableRandom(3);
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(20_000, 2_000);
+        double[] weights = {100, 50, 25};
+        for (int p = 0; p < 3; p++) {
+            for (int i = p * 100; i < (p + 1) * 100; i++) {
+                for (int j = p * 100; j < (p + 1) * 100; j++) {
+                    builder.add(i, j, weights[p] / 100);
+                }
+            }
+        }
+        for (int t = 0; t < 40_000; t++) {
+            builder.add(random.nextInt(20_000), random.nextInt(2_000), random.nextDouble(-0.01, 0.01));
+        }
+        RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(builder.build(), 3);
+        assertArrayEquals(weights, svd.getSingularValues(), 0.1);
+        assertEquals(20_000, svd.getU().getNumRows());
+    }
+
+    @Test
+    void testInvalidRank() {
+        Matrix a = decaying(20, 10, 4);
+        assertThrows(IllegalArgumentException.class, () -> new RandomizedSingularValueDecomposition(a, 0));
+        assertThrows(InvalidDimensionsException.class, () -> new RandomizedSingularValueDecomposition(a, 11));
+    }
+}
@@ -0,0 +1,156 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowSourceTest {
+
+    //  row i of [A | b] for b = A * (1, -2, 0.5) + noise, with A = (1, t, t^2) on t in [0, 1)
+    private static double[] augmentedRow(int i, int rows, double noise) {
+        double t = (double) i / rows;
+        double constant = 1 - 2 * t + 0.5 * t * t + noise * Math.sin(12345.0 * i);
+        return new double[]{1, t, t * t, constant};
+    }
+
+    //  IncrementalQR.addRows(RowSource) --------------------------------
+
+    @Test
+    void testStreamedRowsMatchTheInMemorySolution() {
+        int rows = 2_000;
+        List<double[]> list = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            list.add(augmentedRow(i, rows, 0.01));
+        }
+        Matrix augmented = new Matrix(list.toArray(new double[0][]));
+
+        IncrementalQR streamed = new IncrementalQR(3);
+        streamed.addRows(RowSource.of(list, 4));
+        assertEquals(rows, streamed.getNumRowsAdded());
+        assertEquals(augmented.getLeastSquaresSolution().value(), streamed.solve());
+
+        //  rows added one at a time and a source can be mixed
+        IncrementalQR mixed = new IncrementalQR(3);
+        mixed.addRow(new double[]{1, 0, 0}, augmentedRow(0, rows, 0.01)[3]);
+        mixed.addRows(RowSource.of(list.subList(1, rows).iterator(), 4));
+        assertEquals(streamed.solve(), mixed.solve());
+        assertEquals(streamed.getResidualNorm(), mixed.getResidualNorm(), 1E-12);
+    }
+
+    @Test
+    void testIteratorSources() {
+        RowSource once = RowSource.of(IntStream.range(0, 5).mapToObj(i -> new double[]{i, -i}).iterator(), 2);
+        double[] buffer = new double[6];
+        assertEquals(3, once.read(buffer, 3));
+        assertArrayEquals(new double[]{0, 0, 1, -1, 2, -2}, buffer);
+        assertEquals(2, once.read(buffer, 3));
+        assertEquals(0, once.read(buffer, 3));
+        assertThrows(IllegalStateException.class, once::rewind);
+
+        RowSource repeatable = RowSource.of(List.of(new double[]{1, 2}, new double[]{3, 4}), 2);
+        assertEquals(2, repeatable.read(buffer, 3));
+        repeatable.rewind();
+        assertEquals(2, repeatable.read(buffer, 3));
+        assertThrows(InvalidDimensionsException.class,
+                () -> RowSource.of(List.of(new double[]{1, 2, 3}), 2).read(buffer, 1));
+    }
+
+    //  ChannelRowSource ------------------------------------------------
+
+    @Test
+    void testLeastSquaresFromAFile() throws IOException {
+        //  more rows than one read of the source buffer or one block of the QR
+        int rows = 100_000;
+        Path file = Files.createTempFile("rows", ".bin");
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.allocate(4 * Double.BYTES * 1000).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < rows; i++) {
+                    for (double entry : augmentedRow(i, rows, 0)) {
+                        bytes.putDouble(entry);
+                    }
+                    if (!bytes.hasRemaining()) {
+                        bytes.flip();
+                        channel.write(bytes);
+                        bytes.clear();
+                    }
+                }
+            }
+
+            try (ChannelRowSource source = ChannelRowSource.open(file, 4)) {
+                assertEquals(rows, source.getNumRows());
+                IncrementalQR qr = new IncrementalQR(3);
+                qr.addRows(source);
+                assertEquals(rows, qr.getNumRowsAdded());
+                assertEquals(new Vector(1, -2, 0.5), qr.solve());
+                assertEquals(0, qr.getResidualNorm(), 1E-9);
+
+                //  and again after a rewind, with a source that knows nothing of the file
+                source.rewind();
+                double[] buffer = new double[8];
+                assertEquals(2, source.read(buffer, 2));
+                assertArrayEquals(augmentedRow(1, rows, 0), Arrays.copyOfRange(buffer, 4, 8));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("rows", ".bin");
+        try {
+            Files.write(file, new byte[3 * Double.BYTES]);
+            try (ChannelRowSource source = ChannelRowSource.open(file, 2)) {
+                double[] buffer = new double[4];
+                assertThrows(IllegalStateException.class, () -> source.read(buffer, 2));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testRandomizedSingularValuesFromAFile() throws IOException {
+        SplittableRandom random = new SplittableRandom(4);
+        double[][] entries = new double[300][20];
+        for (double[] row : entries) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextGaussian() / (j + 1);
+            }
+        }
+        Path file = Files.createTempFile("rows", ".bin");
+        try {
+            ByteBuffer bytes = ByteBuffer.allocate(300 * 20 * Double.BYTES).order(ByteOrder.BIG_ENDIAN);
+            for (double[] row : entries) {
+                for (double entry : row) {
+                    bytes.putDouble(entry);
+                }
+            }
+            Files.write(file, bytes.array());
+            try (ChannelRowSource source = new ChannelRowSource(
+                    FileChannel.open(file, StandardOpenOption.READ), 20, ByteOrder.BIG_ENDIAN)) {
+                RandomizedSingularValueDecomposition svd = new RandomizedSingularValueDecomposition(source, 3);
+                double[] exact = new Matrix(entries).getSingularValues();
+                assertArrayEquals(Arrays.copyOf(exact, 3), svd.getSingularValues(), 1E-6 * exact[0]);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static test.net.adultsmath.m1zc3.TestMatrices.random;
+
+class SingularValueDecompositionTest {
+
+    private static void assertDecomposes(Matrix a, SingularValueDecomposition svd) {
+        Matrix u = svd.getU();
+        Matrix v = svd.getV();
+        assertEquals(Matrix.createIdentityMatrix(u.getNumColumns()), Operator.multiply(u.getTransposeMatrix(), u));
+        assertEquals(Matrix.createIdentityMatrix(v.getNumColumns()), Operator.multiply(v.getTransposeMatrix(), v));
+        assertEquals(a, Operator.multiply(Operator.multiply(u, svd.getS()), v.getTransposeMatrix()));
+        double[] singularValues = svd.getSingularValues();
+        for (int i = 1; i < singularValues.length; i++) {
+            assertTrue(singularValues[i - 1] >= singularValues[i]);
+        }
+        assertTrue(singularValues[singularValues.length - 1] >= 0);
+    }
+
+    @Test
+    void testSmallMatrix() {
+        //  singular values sqrt(45) and sqrt(5), the square roots of the eigenvalues of A^T * A
+        Matrix a = new Matrix(new double[][]{
+                {3, 0},
+                {4, 5}
+        });
+        SingularValueDecomposition svd = a.getSingularValueDecomposition();
+        assertArrayEquals(new double[]{Math.sqrt(45), Math.sqrt(5)}, svd.getSingularValues(), 1E-12);
+        assertEquals(3, svd.getConditionNumber(), 1E-12);
+        assertDecomposes(a, svd);
+    }
+
+    @Test
+    void testShapes() {
+        //  square, tall enough for the QR shortcut, slightly tall, and wide
+        int[][] shapes = {{60, 60}, {300, 40}, {50, 35}, {30, 70}};
+        for (int[] shape : shapes) {
+            Matrix a = random(shape[0], shape[1], shape[0]);
+            SingularValueDecomposition economy = a.getSingularValueDecomposition();
+            int size = Math.min(shape[0], shape[1]);
+            assertEquals(size, economy.getU().getNumColumns());
+            assertEquals(size, economy.getV().getNumColumns());
+            assertDecomposes(a, economy);
+
+            SingularValueDecomposition full = a.getSingularValueDecomposition(false);
+            assertEquals(shape[0], full.getU().getNumColumns());
+            assertEquals(shape[1], full.getV().getNumColumns());
+            assertDecomposes(a, full);
+            assertArrayEquals(economy.getSingularValues(), full.getSingularValues(), 1E-10);
+            assertArrayEquals(economy.getSingularValues(), a.getSingularValues(), 1E-10);
+        }
+    }
+
+    @Test
+    void testRankDeficient() {
+        //  a 40 x 30 product of a 40 x 12 and a 12 x 30 matrix has rank 12
+        Matrix a = Operator.multiply(random(40, 12, 1), random(12, 30, 2));
+        assertEquals(12, a.getRank());
+        assertEquals(Double.POSITIVE_INFINITY, a.getConditionNumber());
+        SingularValueDecomposition svd = a.getSingularValueDecomposition();
+        assertEquals(12, svd.getRank());
+        assertDecomposes(a, svd);
+
+        //  the Penrose conditions A * A+ * A = A and A+ * A * A+ = A+
+        Matrix pseudoInverse = a.getPseudoInverse();
+        assertEquals(30, pseudoInverse.getNumRows());
+        assertEquals(40, pseudoInverse.getNumColumns());
+        assertEquals(a, Operator.multiply(Operator.multiply(a, pseudoInverse), a));
+        assertEquals(pseudoInverse, Operator.multiply(Operator.multiply(pseudoInverse, a), pseudoInverse));
+
+        assertEquals(0, new Matrix(new double[][]{{0, 0}, {0, 0}}).getRank());
+    }
+
+    @Test
+    void testPseudoInverseOfInvertible() {
+        Matrix a = random(25, 25, 9);
+        assertEquals(a.getInverse(), a.getPseudoInverse());
+    }
+
+    @Test
+    void testLowRankApproximation() {
+        Matrix a = random(80, 50, 3);
+        SingularValueDecomposition svd = a.getSingularValueDecomposition();
+        //  the error of the best rank k approximation in the 2-norm is the next singular value
+        for (int k : new int[]{0, 5, 20, 50}) {
+            Matrix error = Operator.subtract(a, svd.getLowRankApproximation(k));
+            double expected = k < 50 ? svd.getSingularValue(k) : 0;
+            assertEquals(expected, error.getSingularValues()[0], 1E-10);
+        }
+        assertEquals(20, svd.getLowRankApproximation(20).getRank());
+    }
+}
@@ -0,0 +1,132 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseMatrixTest {
+    private final Matrix dense = new Matrix(new double[][]{
+            {4, 0, 0, -1},
+            {0, 3, 0, 0},
+            {-1, 0, 5, 2},
+            {0, 0, 0, 0},
+            {0, 7, 0, 1}
+    });
+
+    @Test
+    void testTripletsAddDuplicates() {
+        SparseMatrix sparse = new SparseMatrix.Builder(5, 4)
+                .add(2, 3, 2).add(0, 3, -1).add(4, 1, 7).add(0, 0, 1).add(2, 0, -1)
+                .add(1, 1, 3).add(2, 2, 5).add(0, 0, 3).add(4, 3, 1)
+                .build();
+        assertEquals(8, sparse.getNumNonzeros());
+        assertEquals(4, sparse.getEntry(0, 0));
+        assertEquals(0, sparse.getEntry(3, 2));
+        assertEquals(dense, sparse.toMatrix());
+        assertEquals(dense, SparseMatrix.fromMatrix(dense).toMatrix());
+    }
+
+    @Test
+    void testCompressedColumns() {
+        SparseMatrix transpose = SparseMatrix.fromMatrix(dense).getTranspose();
+        assertEquals(dense.getTransposeMatrix(), transpose.toMatrix());
+
+        //  the CSC arrays of dense, column by column
+        SparseMatrix fromColumns = SparseMatrix.fromCompressedColumns(5, 4,
+                new int[]{0, 2, 4, 5, 8},
+                new int[]{0, 2, 1, 4, 2, 0, 2, 4},
+                new double[]{4, -1, 3, 7, 5, -1, 2, 1});
+        assertEquals(dense, fromColumns.toMatrix());
+    }
+
+    @Test
+    void testInvalidCompressedArrays() {
+        double[] values = {1, 2, 3};
+        //  columns out of order, repeated, or outside the matrix
+        assertThrows(IllegalArgumentException.class,
+                () -> new SparseMatrix(2, 3, new int[]{0, 2, 3}, new int[]{2, 0, 1}, values));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SparseMatrix(2, 3, new int[]{0, 2, 3}, new int[]{1, 1, 1}, values));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> new SparseMatrix(2, 3, new int[]{0, 2, 3}, new int[]{0, 3, 1}, values));
+        //  row pointers that decrease, run past the arrays or do not start at 0
+        assertThrows(InvalidDimensionsException.class,
+                () -> new SparseMatrix(2, 3, new int[]{0, 4, 3}, new int[]{0, 1, 2}, values));
+        assertThrows(InvalidDimensionsException.class,
+                () -> new SparseMatrix(2, 3, new int[]{0, 2, 4}, new int[]{0, 1, 2}, values));
+        assertThrows(InvalidDimensionsException.class,
+                () -> new SparseMatrix(2, 3, new int[]{1, 2, 3}, new int[]{0, 1, 2}, values));
+
+        SparseMatrix valid = new SparseMatrix(2, 3, new int[]{0, 2, 3}, new int[]{0, 2, 1}, values);
+        assertEquals(new Matrix(new double[][]{{1, 0, 2}, {0, 3, 0}}), valid.toMatrix());
+    }
+
+    @Test
+    void testProducts() {
+        SparseMatrix sparse = SparseMatrix.fromMatrix(dense);
+        assertEquals(new Vector(0, 6, 22, 0, 18), sparse.multiply(new Vector(1, 2, 3, 4)));
+
+        double[] y = new double[4];
+        sparse.multiplyTranspose(new double[]{1, 1, 1, 1, 1}, y);
+        assertArrayEquals(new double[]{3, 10, 5, 2}, y, 1E-12);
+
+        Matrix b = new Matrix(new double[][]{
+                {1, 2},
+                {0, 1},
+                {-1, 3},
+                {2, 0}
+        });
+        assertEquals(Operator.multiply(dense, b), sparse.multiply(b));
+    }
+
+    @Test
+    void testLargeTridiagonal() {
+        int n = 200_000;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; i++) {
+            builder.add(i, i, 2);
+            if (i > 0) builder.add(i, i - 1, -1);
+            if (i < n - 1) builder.add(i, i + 1, -1);
+        }
+        SparseMatrix sparse = builder.build();
+        assertEquals(3 * n - 2, sparse.getNumNonzeros());
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        java.util.Arrays.fill(x, 1);
+        sparse.multiply(x, y);
+        assertEquals(1, y[0]);
+        assertEquals(0, y[n / 2]);
+        assertEquals(1, y[n - 1]);
+    }
+
+    @Test
+    void testReverseCuthillMcKeeRecoversTheBand() {
+        //  a path graph with its vertices numbered in a scattered order
+        int n = 50;
+        int[] label = new int[n];
+        for (int i = 0; i < n; i++) {
+            label[i] = (i * 17) % n;
+        }
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; i++) {
+            builder.add(label[i], label[i], 2);
+            if (i > 0) builder.add(label[i], label[i - 1], -1);
+            if (i < n - 1) builder.add(label[i], label[i + 1], -1);
+        }
+        SparseMatrix scattered = builder.build();
+        assertTrue(scattered.toMatrix().getLowerBandwidth() > 1);
+
+        int[] order = scattered.getReverseCuthillMcKeeOrdering();
+        boolean[] seen = new boolean[n];
+        for (int old : order) {
+            assertFalse(seen[old]);
+            seen[old] = true;
+        }
+        Matrix permuted = scattered.getSymmetricPermutation(order).toMatrix();
+        assertTrue(permuted.isTridiagonal());
+        assertEquals(scattered.getEntry(order[3], order[4]), permuted.getEntry(3, 4));
+    }
+}
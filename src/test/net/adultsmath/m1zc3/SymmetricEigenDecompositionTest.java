@@ -0,0 +1,89 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetricEigenDecompositionTest {
+
+    private static Matrix randomSymmetric(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] entries = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j <= i; j++) {
+                entries[i][j] = random.nextDouble(-1, 1);
+                entries[j][i] = entries[i][j];
+            }
+        }
+        return new Matrix(entries);
+    }
+
+    @Test
+    void testSmallMatrix() {
+        SymmetricEigenDecomposition eigen = new Matrix(new double[][]{
+                {2, 1},
+                {1, 2}
+        }).getSymmetricEigenDecomposition();
+        assertArrayEquals(new double[]{1, 3}, eigen.getEigenvalues(), 1E-12);
+        double root = Math.sqrt(0.5);
+        Vector v = eigen.getEigenvector(1);
+        assertEquals(root, Math.abs(v.getComps(0)), 1E-12);
+        assertEquals(v.getComps(0), v.getComps(1), 1E-12);
+    }
+
+    @Test
+    void testReconstruction() {
+        Matrix a = randomSymmetric(150, 4);
+        SymmetricEigenDecomposition eigen = a.getSymmetricEigenDecomposition();
+        Matrix q = eigen.getQ();
+        assertEquals(Matrix.createIdentityMatrix(150), Operator.multiply(q.getTransposeMatrix(), q));
+        assertEquals(a, Operator.multiply(Operator.multiply(q, eigen.getD()), q.getTransposeMatrix()));
+
+        double[] eigenvalues = eigen.getEigenvalues();
+        for (int i = 1; i < eigenvalues.length; i++) {
+            assertTrue(eigenvalues[i - 1] <= eigenvalues[i]);
+        }
+    }
+
+    @Test
+    void testRepeatedEigenvalue() {
+        //  eigenvalues 1, 1 and 4, the eigenspace of 1 is the plane x + y + z = 0
+        Matrix a = new Matrix(new double[][]{
+                {2, 1, 1},
+                {1, 2, 1},
+                {1, 1, 2}
+        });
+        MatrixDiagonalized diagonalized = a.getDiagonalized();
+        Matrix p = diagonalized.matrixP();
+        assertEquals(Matrix.createIdentityMatrix(3), Operator.multiply(p.getTransposeMatrix(), p));
+        assertEquals(a, Operator.multiply(Operator.multiply(p, diagonalized.matrixD()), p.getTransposeMatrix()));
+    }
+
+    @Test
+    void testNotSymmetric() {
+        assertThrows(IllegalArgumentException.class, () -> new SymmetricEigenDecomposition(new Matrix(new double[][]{
+                {1, 2},
+                {3, 4}
+        })));
+
+        //  every mismatch is within the tolerance of equals, but not small next to the entries
+        Matrix small = new Matrix(new double[][]{
+                {4E-8, 1E-8, 0.5E-8},
+                {0.2E-8, 4E-8, 1E-8},
+                {0.3E-8, 0.1E-8, 4E-8}
+        });
+        assertTrue(small.isSymmetric());
+        assertThrows(IllegalArgumentException.class, small::getSymmetricEigenDecomposition);
+
+        //  while a symmetric matrix of the same scale is fine
+        Matrix scaled = new Matrix(new double[][]{
+                {2E-8, 1E-8},
+                {1E-8, 2E-8}
+        });
+        assertArrayEquals(new double[]{1E-8, 3E-8}, scaled.getSymmetricEigenDecomposition().getEigenvalues(), 1E-22);
+    }
+}
@@ -0,0 +1,24 @@
+package test.net.adultsmath.m1zc3;
+
+import main.net.adultsmath.m1zc3.Matrix;
+
+import java.util.SplittableRandom;
+
+//  matrices shared by the tests of this package
+final class TestMatrices {
+
+    private TestMatrices() {
+    }
+
+    //  entries uniform in [-1, 1), the same for the same seed
+    static Matrix random(int rows, int columns, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] entries = new double[rows][columns];
+        for (double[] row : entries) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = random.nextDouble(-1, 1);
+            }
+        }
+        return new Matrix(entries);
+    }
+}
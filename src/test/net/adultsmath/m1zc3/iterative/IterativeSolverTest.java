@@ -0,0 +1,132 @@
+package test.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.Vector;
+import main.net.adultsmath.m1zc3.iterative.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IterativeSolverTest {
+
+    //  the 5-point Laplacian on a size x size grid, symmetric positive-definite
+    private static SparseMatrix poisson(int size) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(size * size, size * size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int row = i * size + j;
+                builder.add(row, row, 4);
+                if (i > 0) builder.add(row, row - size, -1);
+                if (i < size - 1) builder.add(row, row + size, -1);
+                if (j > 0) builder.add(row, row - 1, -1);
+                if (j < size - 1) builder.add(row, row + 1, -1);
+            }
+        }
+        return builder.build();
+    }
+
+    //  the Laplacian plus an upwinded convection term, not symmetric
+    private static SparseMatrix convectionDiffusion(int size) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(size * size, size * size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int row = i * size + j;
+                builder.add(row, row, 5);
+                if (i > 0) builder.add(row, row - size, -1);
+                if (i < size - 1) builder.add(row, row + size, -1);
+                if (j > 0) builder.add(row, row - 1, -2);
+                if (j < size - 1) builder.add(row, row + 1, -1);
+            }
+        }
+        return builder.build();
+    }
+
+    private static double residualNorm(LinearOperator a, double[] b, double[] x) {
+        double[] ax = new double[b.length];
+        a.apply(x, ax);
+        double sum = 0;
+        for (int i = 0; i < b.length; i++) {
+            sum += (b[i] - ax[i]) * (b[i] - ax[i]);
+        }
+        return Math.sqrt(sum);
+    }
+
+    private static double[] ones(int n) {
+        double[] b = new double[n];
+        java.util.Arrays.fill(b, 1);
+        return b;
+    }
+
+    @Test
+    void testConjugateGradient() {
+        SparseMatrix a = poisson(40);
+        double[] b = ones(a.getNumRows());
+        IterativeSolution solution = new ConjugateGradient(1E-10, 1000).solve(a, b);
+        assertTrue(solution.converged());
+        assertTrue(residualNorm(a, b, solution.value()) <= 1E-9 * Math.sqrt(b.length));
+    }
+
+    @Test
+    void testNonSymmetricSolvers() {
+        SparseMatrix a = convectionDiffusion(30);
+        double[] b = ones(a.getNumRows());
+        for (IterativeSolver solver : new IterativeSolver[]{new BiCGSTAB(), new GMRES(), new GMRES(5, 1E-10, 5000)}) {
+            IterativeSolution solution = solver.solve(a, b);
+            assertTrue(solution.converged());
+            assertTrue(residualNorm(a, b, solution.value()) <= 1E-9 * Math.sqrt(b.length));
+        }
+    }
+
+    @Test
+    void testDenseMatchesDirectSolve() {
+        Matrix a = new Matrix(new double[][]{
+                {4, 1, 0, 0},
+                {2, 5, 1, 0},
+                {0, 1, 6, 2},
+                {1, 0, 2, 7}
+        });
+        Vector b = new Vector(1, 2, 3, 4);
+        Vector expected = a.getDecomposition().solve(b);
+        assertEquals(expected, new BiCGSTAB().getSolution(a, b).value());
+        assertEquals(expected, new GMRES().getSolution(a, b).value());
+    }
+
+    @Test
+    void testMatrixFreeOperator() {
+        //  the 1D Laplacian as a stencil, never stored
+        int n = 500;
+        LinearOperator stencil = new LinearOperator() {
+            @Override
+            public int getNumRows() {
+                return n;
+            }
+
+            @Override
+            public int getNumColumns() {
+                return n;
+            }
+
+            @Override
+            public void apply(double[] x, double[] y) {
+                for (int i = 0; i < n; i++) {
+                    y[i] = 2 * x[i] - (i > 0 ? x[i - 1] : 0) - (i < n - 1 ? x[i + 1] : 0);
+                }
+            }
+        };
+        double[] b = ones(n);
+        IterativeSolution solution = new ConjugateGradient().solve(stencil, b);
+        assertTrue(solution.converged());
+        //  x_i = (i + 1) * (n - i) / 2
+        assertEquals(n / 2.0, solution.value()[0], 1E-6);
+        assertEquals(250 * 251 / 2.0, solution.value()[249], 1E-6);
+    }
+
+    @Test
+    void testIterationLimit() {
+        SparseMatrix a = poisson(40);
+        IterativeSolution solution = new ConjugateGradient(1E-12, 5).solve(a, ones(a.getNumRows()));
+        assertFalse(solution.converged());
+        assertEquals(5, solution.iterations());
+        assertThrows(IterativeSolution.NotConvergedException.class, solution::toLinearSystemSolution);
+    }
+}
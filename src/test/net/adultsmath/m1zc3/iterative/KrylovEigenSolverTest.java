@@ -0,0 +1,140 @@
+package test.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.iterative.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KrylovEigenSolverTest {
+
+    //  the 5-point Laplacian on a rows x columns grid, with rows != columns its eigenvalues
+    //  4 - 2 * cos(i * pi / (rows + 1)) - 2 * cos(j * pi / (columns + 1)) are distinct
+    private static SparseMatrix laplacian(int rows, int columns) {
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(rows * columns, rows * columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int node = i * columns + j;
+                builder.add(node, node, 4);
+                if (j > 0) builder.add(node, node - 1, -1);
+                if (j < columns - 1) builder.add(node, node + 1, -1);
+                if (i > 0) builder.add(node, node - columns, -1);
+                if (i < rows - 1) builder.add(node, node + columns, -1);
+            }
+        }
+        return builder.build();
+    }
+
+    //  a random non-symmetric matrix with about density * n^2 nonzeros
+    private static SparseMatrix randomSparse(int n, double density, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (random.nextDouble() < density) builder.add(i, j, random.nextDouble(-1, 1));
+            }
+        }
+        return builder.build();
+    }
+
+    private static double residualNorm(LinearOperator a, double lambda, double[] x) {
+        double[] y = new double[x.length];
+        a.apply(x, y);
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            double r = y[i] - lambda * x[i];
+            sum += r * r;
+        }
+        return Math.sqrt(sum);
+    }
+
+    @Test
+    void testLanczosMatchesFullDecomposition() {
+        SparseMatrix a = laplacian(20, 17);
+        double[] all = a.toMatrix().getSymmetricEigenDecomposition().getEigenvalues();
+        int n = all.length;
+
+        KrylovEigenpairs largest = new LanczosEigenSolver(5, EigenvalueTarget.LARGEST_REAL).solve(a);
+        assertTrue(largest.converged());
+        for (int j = 0; j < 5; j++) {
+            assertEquals(all[n - 1 - j], largest.realParts()[j], 1E-8);
+            double[] x = largest.realVectors()[j];
+            assertEquals(1, Math.sqrt(Arrays.stream(x).map(v -> v * v).sum()), 1E-10);
+            assertTrue(residualNorm(a, largest.realParts()[j], x) < 1E-7);
+        }
+
+        KrylovEigenpairs smallest = new LanczosEigenSolver(4, EigenvalueTarget.SMALLEST_REAL).solve(a);
+        assertTrue(smallest.converged());
+        for (int j = 0; j < 4; j++) {
+            assertEquals(all[j], smallest.realParts()[j], 1E-8);
+            assertTrue(residualNorm(a, smallest.realParts()[j], smallest.realVectors()[j]) < 1E-7);
+        }
+        double expected = 4 - 2 * Math.cos(Math.PI / 21) - 2 * Math.cos(Math.PI / 18);
+        assertEquals(expected, smallest.getEigenvalue(0).getRe(), 1E-10);
+    }
+
+    @Test
+    void testArnoldiMatchesFullDecomposition() {
+        SparseMatrix a = randomSparse(300, 0.05, 7);
+        EigenvalueSolver full = a.toMatrix().getEigenvalueSolver();
+        double[] re = full.getRealParts();
+        double[] im = full.getImaginaryParts();
+        double[] moduli = new double[re.length];
+        for (int i = 0; i < re.length; i++) {
+            moduli[i] = Math.hypot(re[i], im[i]);
+        }
+        Arrays.sort(moduli);
+
+        KrylovEigenpairs pairs = new ArnoldiEigenSolver(6, EigenvalueTarget.LARGEST_MAGNITUDE).solve(a);
+        assertTrue(pairs.converged());
+        for (int j = 0; j < 6; j++) {
+            double lr = pairs.realParts()[j];
+            double li = pairs.imaginaryParts()[j];
+            assertEquals(moduli[moduli.length - 1 - j], Math.hypot(lr, li), 1E-8);
+
+            //  A * (xr + i * xi) = (lr + i * li) * (xr + i * xi), split into real and imaginary parts
+            double[] xr = pairs.realVectors()[j];
+            double[] xi = pairs.imaginaryVectors()[j];
+            double[] axr = new double[xr.length];
+            double[] axi = new double[xr.length];
+            a.apply(xr, axr);
+            a.apply(xi, axi);
+            for (int i = 0; i < xr.length; i++) {
+                assertEquals(lr * xr[i] - li * xi[i], axr[i], 1E-7);
+                assertEquals(li * xr[i] + lr * xi[i], axi[i], 1E-7);
+            }
+        }
+    }
+
+    @Test
+    void testArnoldiRightmostEigenvalues() {
+        //  upper bidiagonal, so the eigenvalues are the diagonal 1, 2, ..., n
+        int n = 400;
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(n, n);
+        for (int i = 0; i < n; i++) {
+            builder.add(i, i, i + 1);
+            if (i < n - 1) builder.add(i, i + 1, 0.5);
+        }
+        SparseMatrix a = builder.build();
+
+        KrylovEigenpairs pairs = new ArnoldiEigenSolver(3, EigenvalueTarget.LARGEST_REAL).solve(a);
+        assertTrue(pairs.converged());
+        for (int j = 0; j < 3; j++) {
+            double expected = n - j;
+            assertEquals(expected, pairs.realParts()[j], 1E-6);
+            assertTrue(pairs.isReal(j));
+            assertTrue(residualNorm(a, expected, pairs.realVectors()[j]) < 1E-6);
+        }
+    }
+
+    @Test
+    void testTooManyEigenpairs() {
+        assertThrows(IllegalArgumentException.class, () -> new LanczosEigenSolver(10, EigenvalueTarget.LARGEST_REAL,
+                11, 1E-10, 10));
+        assertThrows(InvalidDimensionsException.class, () -> new ArnoldiEigenSolver(5, EigenvalueTarget.LARGEST_REAL)
+                .solve(laplacian(2, 2)));
+    }
+}
@@ -0,0 +1,111 @@
+package test.net.adultsmath.m1zc3.iterative;
+
+import main.net.adultsmath.m1zc3.*;
+import main.net.adultsmath.m1zc3.iterative.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreconditionerTest {
+
+    //  node voltages of a size x size grid of resistors between 10 ohm and 1 Mohm,
+    //  with every node also tied to ground through 1 Mohm, the matrix is the conductance matrix
+    private static SparseMatrix resistorGrid(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        SparseMatrix.Builder builder = new SparseMatrix.Builder(size * size, size * size);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int node = i * size + j;
+                builder.add(node, node, 1E-6);
+                if (j < size - 1) connect(builder, node, node + 1, random);
+                if (i < size - 1) connect(builder, node, node + size, random);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void connect(SparseMatrix.Builder builder, int node1, int node2, SplittableRandom random) {
+        double conductance = 1 / Math.pow(10, random.nextDouble(1, 6));
+        builder.add(node1, node1, conductance).add(node2, node2, conductance)
+                .add(node1, node2, -conductance).add(node2, node1, -conductance);
+    }
+
+    //  currents of up to 1 mA injected at every node
+    private static double[] currents(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = random.nextDouble(-1E-3, 1E-3);
+        }
+        return b;
+    }
+
+    @Test
+    void testPreconditioningCutsIterations() {
+        SparseMatrix a = resistorGrid(30, 5);
+        double[] b = currents(a.getNumRows(), 1);
+        ConjugateGradient solver = new ConjugateGradient(1E-8, 20_000);
+
+        int plain = solver.solve(a, b).iterations();
+        Preconditioner[] preconditioners = {
+                new JacobiPreconditioner(a),
+                new SSORPreconditioner(a, 1.2),
+                new ILU0Preconditioner(a)
+        };
+        for (Preconditioner m : preconditioners) {
+            IterativeSolution solution = solver.solve(a, m, b);
+            assertTrue(solution.converged());
+            assertTrue(solution.iterations() < plain);
+        }
+    }
+
+    @Test
+    void testOnePreconditionerManyRightHandSides() {
+        SparseMatrix a = resistorGrid(20, 9);
+        Preconditioner m = new ILU0Preconditioner(a);
+        IterativeSolver[] solvers = {new BiCGSTAB(1E-10, 5000), new GMRES(20, 1E-10, 5000)};
+        for (IterativeSolver solver : solvers) {
+            for (int k = 1; k <= 3; k++) {
+                double[] b = currents(a.getNumRows(), k);
+                IterativeSolution solution = solver.solve(a, m, b);
+                assertTrue(solution.converged());
+
+                double[] ax = new double[b.length];
+                a.apply(solution.value(), ax);
+                for (int i = 0; i < b.length; i++) {
+                    assertEquals(b[i], ax[i], 1E-11);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testILU0IsExactWithoutFill() {
+        //  a tridiagonal matrix has no fill, so ILU(0) is its LU decomposition
+        Matrix dense = new Matrix(new double[][]{
+                {4, -1, 0, 0},
+                {-2, 5, -1, 0},
+                {0, -1, 6, -3},
+                {0, 0, -1, 3}
+        });
+        Preconditioner m = new ILU0Preconditioner(SparseMatrix.fromMatrix(dense));
+        double[] z = new double[4];
+        m.apply(new double[]{1, 2, 3, 4}, z);
+        assertArrayEquals(dense.getDecomposition().solve(new double[]{1, 2, 3, 4}), z, 1E-12);
+
+        IterativeSolution solution = new GMRES().solve(dense, m, new double[]{1, 2, 3, 4});
+        assertEquals(1, solution.iterations());
+    }
+
+    @Test
+    void testZeroDiagonal() {
+        SparseMatrix a = SparseMatrix.fromMatrix(new Matrix(new double[][]{
+                {0, 1},
+                {1, 0}
+        }));
+        assertThrows(Matrix.NotInvertibleException.class, () -> new JacobiPreconditioner(a));
+        assertThrows(Matrix.NotInvertibleException.class, () -> new ILU0Preconditioner(a));
+    }
+}